@@ -0,0 +1,170 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.StockChart;
+import com.cg.stock_service.model.PriceBar;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.PriceHistoryRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Folds a time-ordered stream of ticks or finer bars into OHLCV candles in a single pass.
+ * Only the candle currently being built is kept as mutable state; closed candles are appended
+ * to growable primitive arrays, so no object is allocated per tick or per candle.
+ */
+public class CandleAggregator implements PriceHistoryRepository.TickHandler, PriceBarRepository.BarHandler {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final ChartInterval interval;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private double[] open = new double[INITIAL_CAPACITY];
+    private double[] high = new double[INITIAL_CAPACITY];
+    private double[] low = new double[INITIAL_CAPACITY];
+    private double[] close = new double[INITIAL_CAPACITY];
+    private long[] volume = new long[INITIAL_CAPACITY];
+    private long[] firstTimestamps = new long[INITIAL_CAPACITY];
+    private long[] lastTimestamps = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private boolean building;
+    private long bucketStart;
+    private long bucketEnd;
+    private double bucketOpen;
+    private double bucketHigh;
+    private double bucketLow;
+    private double bucketClose;
+    private long bucketVolume;
+    private long bucketFirst;
+    private long bucketLast;
+
+    public CandleAggregator(ChartInterval interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * Adds one tick. Ticks must arrive in non-decreasing timestamp order.
+     */
+    @Override
+    public void onTick(long timestamp, double price, long tickVolume) {
+        accept(timestamp, price, price, price, price, tickVolume);
+    }
+
+    /**
+     * Adds one bar of a finer resolution that divides this aggregator's interval.
+     * Bars must arrive in bucket order.
+     */
+    @Override
+    public void onBar(long barStart, double barOpen, double barHigh, double barLow, double barClose, long barVolume) {
+        accept(barStart, barOpen, barHigh, barLow, barClose, barVolume);
+    }
+
+    /**
+     * Returns the number of candles built so far, including the one still open.
+     *
+     * @return the candle count
+     */
+    public int size() {
+        return building ? size + 1 : size;
+    }
+
+    /**
+     * Closes the open candle and returns all candles as a chart.
+     *
+     * @param stockId   the ID of the charted stock
+     * @param stockName the name of the charted stock
+     * @return the chart with one entry per non-empty bucket
+     */
+    public StockChart toChart(Long stockId, String stockName) {
+        return toSeries().toChart(stockId, stockName, interval.getCode(), List.of());
+    }
+
+    /**
+     * Closes the open candle and returns all candles as a series over this aggregator's
+     * arrays, without copying them. Aggregation may continue with ticks of later buckets;
+     * they only ever write past the end of the returned series, so it stays valid.
+     *
+     * @return the candles built so far
+     */
+    public PriceSeries toSeries() {
+        finish();
+        return new PriceSeries(timestamps, open, high, low, close, volume, 0, size);
+    }
+
+    /**
+     * Closes the open candle and returns all candles as rollup bars to be merged into storage.
+     *
+     * @param stockId the ID of the stock the ticks belong to
+     * @return one bar per non-empty bucket
+     */
+    public List<PriceBar> toBars(Long stockId) {
+        finish();
+        List<PriceBar> bars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bars.add(new PriceBar(stockId, interval.getCode(), timestamps[i], open[i], high[i], low[i], close[i],
+                    volume[i], firstTimestamps[i], lastTimestamps[i]));
+        }
+        return bars;
+    }
+
+    private void accept(long timestamp, double o, double h, double l, double c, long v) {
+        if (!building || timestamp >= bucketEnd) {
+            if (building) {
+                closeBucket();
+            }
+            bucketStart = interval.bucketStart(timestamp);
+            bucketEnd = bucketStart + interval.getMillis();
+            bucketOpen = o;
+            bucketHigh = h;
+            bucketLow = l;
+            bucketVolume = 0L;
+            bucketFirst = timestamp;
+            building = true;
+        } else if (timestamp < bucketStart) {
+            throw new IllegalStateException("Ticks must be in timestamp order, got " + timestamp
+                    + " after bucket starting " + bucketStart);
+        }
+        if (h > bucketHigh) {
+            bucketHigh = h;
+        }
+        if (l < bucketLow) {
+            bucketLow = l;
+        }
+        bucketClose = c;
+        bucketVolume += v;
+        bucketLast = timestamp;
+    }
+
+    private void finish() {
+        if (building) {
+            closeBucket();
+            building = false;
+        }
+    }
+
+    private void closeBucket() {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+            firstTimestamps = Arrays.copyOf(firstTimestamps, capacity);
+            lastTimestamps = Arrays.copyOf(lastTimestamps, capacity);
+        }
+        timestamps[size] = bucketStart;
+        open[size] = bucketOpen;
+        high[size] = bucketHigh;
+        low[size] = bucketLow;
+        close[size] = bucketClose;
+        volume[size] = bucketVolume;
+        firstTimestamps[size] = bucketFirst;
+        lastTimestamps[size] = bucketLast;
+        size++;
+    }
+}
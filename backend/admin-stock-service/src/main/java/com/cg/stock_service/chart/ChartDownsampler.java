@@ -0,0 +1,94 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.ChartOverlay;
+
+/**
+ * Reduces a chart to a bounded number of candles with Largest-Triangle-Three-Buckets.
+ * The first and last candles are always kept; every bucket in between contributes the candle
+ * whose close forms the largest triangle with the previously kept candle and the average of
+ * the next bucket, which preserves peaks and troughs that plain striding would drop.
+ * Indicator overlays are reduced to the same candles.
+ */
+public final class ChartDownsampler {
+
+    private ChartDownsampler() {
+    }
+
+    /**
+     * Selects the candles to keep so that at most {@code maxPoints} remain, in a single pass
+     * over the series.
+     *
+     * @param series    the candles to downsample
+     * @param maxPoints the maximum number of candles to keep, at least 3
+     * @return the ascending indices of the kept candles, or null if the series is already small enough
+     * @throws IllegalArgumentException if {@code maxPoints} is less than 3
+     */
+    public static int[] downsample(PriceSeries series, int maxPoints) {
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints must be at least 3");
+        }
+        if (series.size() <= maxPoints) {
+            return null;
+        }
+        int n = series.size();
+        int[] selected = new int[maxPoints];
+        // The first and last points are fixed, the rest are split into maxPoints - 2 buckets
+        double bucketSize = (double) (n - 2) / (maxPoints - 2);
+        int kept = 0;
+        selected[kept++] = 0;
+        int a = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+
+            // Measure relative to the kept point to keep the products of epoch millis small
+            long baseX = series.timestamp(a);
+            double ay = series.close(a);
+
+            int nextStart = end;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += series.timestamp(i) - baseX;
+                avgY += series.close(i);
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            double maxArea = -1;
+            int best = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs(-avgX * (series.close(i) - ay) + (series.timestamp(i) - baseX) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = i;
+                }
+            }
+            selected[kept++] = best;
+            a = best;
+        }
+        selected[kept] = n - 1;
+        return selected;
+    }
+
+    /**
+     * Picks the values of an overlay at the kept candles.
+     *
+     * @param overlay the overlay aligned to the original series
+     * @param indices the kept candle indices returned by {@link #downsample(PriceSeries, int)}
+     * @return the overlay aligned to the downsampled series
+     */
+    public static ChartOverlay select(ChartOverlay overlay, int[] indices) {
+        int first = 0;
+        while (first < indices.length && indices[first] < overlay.getOffset()) {
+            first++;
+        }
+        double[] values = new double[indices.length - first];
+        for (int i = first; i < indices.length; i++) {
+            values[i - first] = overlay.getValues()[indices[i] - overlay.getOffset()];
+        }
+        return new ChartOverlay(overlay.getIndicator(), overlay.getLine(), first, values);
+    }
+}
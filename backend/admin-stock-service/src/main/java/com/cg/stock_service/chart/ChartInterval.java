@@ -0,0 +1,113 @@
+package com.cg.stock_service.chart;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Candle widths supported by the chart endpoint.
+ * Buckets are aligned to UTC epoch boundaries, with weekly buckets starting on Monday.
+ * The 1m, 1h, 1d and 1w intervals are also the resolutions of the stored rollup tiers.
+ */
+public enum ChartInterval {
+
+    ONE_MINUTE("1m", 60_000L, 24L * 60 * 60_000L),
+    FIVE_MINUTES("5m", 5L * 60_000L, 5L * 24 * 60 * 60_000L),
+    ONE_HOUR("1h", 60L * 60_000L, 30L * 24 * 60 * 60_000L),
+    ONE_DAY("1d", 24L * 60 * 60_000L, 365L * 24 * 60 * 60_000L),
+    ONE_WEEK("1w", 7L * 24 * 60 * 60_000L, 5L * 365 * 24 * 60 * 60_000L);
+
+    // 1970-01-01 was a Thursday; shifting by three days maps every Monday onto a whole week
+    private static final long WEEK_OFFSET_MILLIS = 3L * 24 * 60 * 60_000L;
+
+    // Coarsest first, so the first tier that divides a requested interval is the cheapest to read
+    private static final List<ChartInterval> ROLLUP_TIERS = List.of(ONE_WEEK, ONE_DAY, ONE_HOUR, ONE_MINUTE);
+
+    private final String code;
+    private final long millis;
+    private final long defaultSpanMillis;
+
+    ChartInterval(String code, long millis, long defaultSpanMillis) {
+        this.code = code;
+        this.millis = millis;
+        this.defaultSpanMillis = defaultSpanMillis;
+    }
+
+    /**
+     * Returns the short code used in request parameters, e.g. {@code 5m}.
+     *
+     * @return the interval code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the width of one candle.
+     *
+     * @return the candle width in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Returns the time range charted when the caller does not give one.
+     *
+     * @return the default range in milliseconds
+     */
+    public long getDefaultSpanMillis() {
+        return defaultSpanMillis;
+    }
+
+    /**
+     * Returns the start of the bucket containing the given timestamp.
+     *
+     * @param timestamp epoch milliseconds
+     * @return the bucket start in epoch milliseconds
+     */
+    public long bucketStart(long timestamp) {
+        long offset = this == ONE_WEEK ? WEEK_OFFSET_MILLIS : 0L;
+        return Math.floorDiv(timestamp + offset, millis) * millis - offset;
+    }
+
+    /**
+     * Returns the coarsest stored rollup tier whose bars can be combined into candles of this
+     * interval, i.e. whose buckets nest exactly inside this interval's buckets.
+     *
+     * @return the rollup tier to read this interval from
+     */
+    public ChartInterval rollupTier() {
+        for (ChartInterval tier : ROLLUP_TIERS) {
+            if (millis % tier.millis == 0) {
+                return tier;
+            }
+        }
+        return ONE_MINUTE;
+    }
+
+    /**
+     * Returns the resolutions maintained as stored rollups.
+     *
+     * @return the rollup tiers, coarsest first
+     */
+    public static List<ChartInterval> rollupTiers() {
+        return ROLLUP_TIERS;
+    }
+
+    /**
+     * Resolves an interval from its code.
+     *
+     * @param code the interval code, e.g. {@code 1h}
+     * @return the matching interval
+     * @throws IllegalArgumentException if the code is not supported
+     */
+    public static ChartInterval fromCode(String code) {
+        for (ChartInterval interval : values()) {
+            if (interval.code.equals(code)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported chart interval: " + code + ", expected one of "
+                + Arrays.stream(values()).map(ChartInterval::getCode).toList());
+    }
+}
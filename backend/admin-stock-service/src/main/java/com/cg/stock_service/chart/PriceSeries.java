@@ -0,0 +1,180 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.ChartOverlay;
+import com.cg.stock_service.dto.StockChart;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable columnar OHLCV series backed by parallel primitive arrays.
+ * A bar costs 48 bytes regardless of how many bars there are, against several hundred for a
+ * list of boxed objects, so ten years of minute bars of one stock fit in a few tens of MB.
+ * Slices share the backing arrays and only move the window, so narrowing a series to a time
+ * range copies nothing; arrays are copied once, when a chart response is built.
+ */
+public final class PriceSeries {
+
+    private static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0], new double[0],
+            new double[0], new double[0], new long[0], 0, 0);
+
+    private final long[] timestamps;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+    private final int offset;
+    private final int length;
+
+    PriceSeries(long[] timestamps, double[] open, double[] high, double[] low, double[] close, long[] volume,
+                int offset, int length) {
+        this.timestamps = timestamps;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Wraps existing arrays without copying them. The arrays must not be modified afterwards.
+     *
+     * @param timestamps bar start times in ascending epoch milliseconds
+     * @param open       opening prices
+     * @param high       highest prices
+     * @param low        lowest prices
+     * @param close      closing prices
+     * @param volume     traded volumes
+     * @return a series over all the given bars
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public static PriceSeries of(long[] timestamps, double[] open, double[] high, double[] low, double[] close,
+                                 long[] volume) {
+        int n = timestamps.length;
+        if (open.length != n || high.length != n || low.length != n || close.length != n || volume.length != n) {
+            throw new IllegalArgumentException("All price series columns must have the same length");
+        }
+        return new PriceSeries(timestamps, open, high, low, close, volume, 0, n);
+    }
+
+    /**
+     * Returns an empty series.
+     *
+     * @return a series with no bars
+     */
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[offset + index];
+    }
+
+    public double open(int index) {
+        return open[offset + index];
+    }
+
+    public double high(int index) {
+        return high[offset + index];
+    }
+
+    public double low(int index) {
+        return low[offset + index];
+    }
+
+    public double close(int index) {
+        return close[offset + index];
+    }
+
+    public long volume(int index) {
+        return volume[offset + index];
+    }
+
+    /**
+     * Returns the index of the first bar at or after the given time.
+     *
+     * @param timestamp epoch milliseconds
+     * @return the bar index, or {@link #size()} if every bar is earlier
+     */
+    public int indexAtOrAfter(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, offset, offset + length, timestamp);
+        return (index >= 0 ? index : -index - 1) - offset;
+    }
+
+    /**
+     * Returns the bars in {@code [from, to)} by index, sharing this series' arrays.
+     *
+     * @param from inclusive start index
+     * @param to   exclusive end index
+     * @return the slice
+     * @throws IndexOutOfBoundsException if the range is not within this series
+     */
+    public PriceSeries slice(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Slice [" + from + ", " + to + ") of series of size " + length);
+        }
+        return new PriceSeries(timestamps, open, high, low, close, volume, offset + from, to - from);
+    }
+
+    /**
+     * Returns the bars starting in {@code [from, to)} by time, sharing this series' arrays.
+     *
+     * @param from inclusive start in epoch milliseconds
+     * @param to   exclusive end in epoch milliseconds
+     * @return the slice
+     */
+    public PriceSeries sliceByTime(long from, long to) {
+        int start = indexAtOrAfter(from);
+        return slice(start, Math.max(start, indexAtOrAfter(to)));
+    }
+
+    /**
+     * Copies the bars at the given indices into a new compact series.
+     *
+     * @param indices ascending bar indices
+     * @return the selected bars
+     */
+    public PriceSeries select(int[] indices) {
+        int n = indices.length;
+        long[] t = new long[n];
+        double[] o = new double[n];
+        double[] h = new double[n];
+        double[] l = new double[n];
+        double[] c = new double[n];
+        long[] v = new long[n];
+        for (int i = 0; i < n; i++) {
+            int source = offset + indices[i];
+            t[i] = timestamps[source];
+            o[i] = open[source];
+            h[i] = high[source];
+            l[i] = low[source];
+            c[i] = close[source];
+            v[i] = volume[source];
+        }
+        return new PriceSeries(t, o, h, l, c, v, 0, n);
+    }
+
+    /**
+     * Builds a chart response from this series, copying exactly the bars in the window.
+     *
+     * @param stockId   the ID of the charted stock
+     * @param stockName the name of the charted stock
+     * @param interval  the candle width code
+     * @param overlays  indicator overlays aligned to this series
+     * @return the chart
+     */
+    public StockChart toChart(Long stockId, String stockName, String interval, List<ChartOverlay> overlays) {
+        int to = offset + length;
+        return new StockChart(stockId, stockName, interval,
+                Arrays.copyOfRange(timestamps, offset, to), Arrays.copyOfRange(open, offset, to),
+                Arrays.copyOfRange(high, offset, to), Arrays.copyOfRange(low, offset, to),
+                Arrays.copyOfRange(close, offset, to), Arrays.copyOfRange(volume, offset, to), overlays);
+    }
+}
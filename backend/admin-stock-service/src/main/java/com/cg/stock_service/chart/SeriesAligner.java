@@ -0,0 +1,80 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.ComparisonSeries;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Puts the candles of several stocks on one time axis for comparison.
+ * The common axis is built with a k-way merge over the already sorted series, which costs
+ * O(n log k) for n candles across k stocks, and each series is then walked once against it.
+ */
+public final class SeriesAligner {
+
+    private SeriesAligner() {
+    }
+
+    /**
+     * Merges the candle starts of all series into one ascending axis without duplicates.
+     *
+     * @param series the series to merge, each in ascending timestamp order
+     * @return every distinct candle start of the series, ascending
+     */
+    public static long[] mergeTimestamps(List<PriceSeries> series) {
+        // A cursor is {series index, position}; the heap holds one cursor per unexhausted series
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, series.size()),
+                Comparator.comparingLong(cursor -> series.get(cursor[0]).timestamp(cursor[1])));
+        int total = 0;
+        for (int i = 0; i < series.size(); i++) {
+            if (series.get(i).size() > 0) {
+                heap.add(new int[]{i, 0});
+                total += series.get(i).size();
+            }
+        }
+        long[] axis = new long[total];
+        int n = 0;
+        while (!heap.isEmpty()) {
+            int[] cursor = heap.poll();
+            PriceSeries current = series.get(cursor[0]);
+            long timestamp = current.timestamp(cursor[1]);
+            if (n == 0 || axis[n - 1] != timestamp) {
+                axis[n++] = timestamp;
+            }
+            if (++cursor[1] < current.size()) {
+                heap.add(cursor);
+            }
+        }
+        return Arrays.copyOf(axis, n);
+    }
+
+    /**
+     * Aligns one series to a common axis as percent change of its close against its first
+     * close. Axis points without a candle of this series repeat the previous value.
+     *
+     * @param stockId   the ID of the stock
+     * @param stockName the name of the stock
+     * @param series    the candles of the stock, whose timestamps must all be on the axis
+     * @param axis      the common axis from {@link #mergeTimestamps(List)}
+     * @return the aligned series
+     */
+    public static ComparisonSeries percentChange(Long stockId, String stockName, PriceSeries series, long[] axis) {
+        if (series.size() == 0) {
+            return new ComparisonSeries(stockId, stockName, 0.0, axis.length, new double[0]);
+        }
+        int offset = Arrays.binarySearch(axis, series.timestamp(0));
+        double base = series.close(0);
+        double[] changes = new double[axis.length - offset];
+        double last = base;
+        int next = 0;
+        for (int i = offset; i < axis.length; i++) {
+            if (next < series.size() && series.timestamp(next) == axis[i]) {
+                last = series.close(next++);
+            }
+            changes[i - offset] = base != 0.0 ? (last / base - 1.0) * 100.0 : 0.0;
+        }
+        return new ComparisonSeries(stockId, stockName, base, offset, changes);
+    }
+}
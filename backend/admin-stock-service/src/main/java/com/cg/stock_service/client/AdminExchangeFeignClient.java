@@ -2,8 +2,16 @@ package com.cg.stock_service.client;
 
 import com.cg.stock_service.dto.Exchange;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Feign client for communicating with the Admin Exchange Service.
@@ -20,4 +28,24 @@ public interface AdminExchangeFeignClient {
      */
     @GetMapping("/exchanges/{id}")
     Exchange getExchangeById(@PathVariable("id") Long id);
+
+    /**
+     * Retrieves one page of exchanges in ID order.
+     *
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param limit  The page size.
+     * @return The exchanges of the page; the X-Next-Cursor header is present if more follow.
+     */
+    @GetMapping("/exchanges")
+    ResponseEntity<List<Exchange>> getExchanges(@RequestParam(value = "cursor", required = false) Long cursor,
+                                                @RequestParam("limit") int limit);
+
+    /**
+     * Retrieves many exchanges by their IDs in a single call.
+     *
+     * @param ids The IDs of the exchanges.
+     * @return Map of exchange ID to Exchange; IDs that do not exist are omitted.
+     */
+    @PostMapping("/exchanges/batch")
+    Map<Long, Exchange> getExchangesByIds(@RequestBody Collection<Long> ids);
 }
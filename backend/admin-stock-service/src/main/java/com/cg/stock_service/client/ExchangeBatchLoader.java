@@ -0,0 +1,61 @@
+package com.cg.stock_service.client;
+
+import com.cg.stock_service.dto.Exchange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Batching front end for {@link AdminExchangeFeignClient}.
+ * Single-exchange lookups made concurrently are coalesced into one call to the batch endpoint.
+ */
+@Component
+public class ExchangeBatchLoader {
+
+    @Autowired
+    private AdminExchangeFeignClient adminExchangeFeignClient;
+
+    @Value("${stock.batch.window-ms:5}")
+    private long windowMillis;
+
+    @Value("${stock.batch.max-size:200}")
+    private int maxBatchSize;
+
+    private RequestCoalescer<Long, Exchange> coalescer;
+
+    @PostConstruct
+    void init() {
+        coalescer = new RequestCoalescer<>(adminExchangeFeignClient::getExchangesByIds, windowMillis, maxBatchSize,
+                "exchange-batch-");
+    }
+
+    @PreDestroy
+    void close() {
+        coalescer.close();
+    }
+
+    /**
+     * Retrieves an exchange by its ID as part of the next coalesced batch.
+     *
+     * @param id The ID of the exchange.
+     * @return The exchange, or null if no exchange exists with this ID.
+     */
+    public Exchange getExchangeById(Long id) {
+        return coalescer.load(id);
+    }
+
+    /**
+     * Retrieves many exchanges by their IDs in a single call.
+     *
+     * @param ids The IDs of the exchanges.
+     * @return Map of exchange ID to Exchange; IDs that do not exist are omitted.
+     */
+    public Map<Long, Exchange> getExchangesByIds(Collection<Long> ids) {
+        return adminExchangeFeignClient.getExchangesByIds(ids);
+    }
+}
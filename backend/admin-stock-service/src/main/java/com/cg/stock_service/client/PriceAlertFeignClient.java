@@ -0,0 +1,23 @@
+package com.cg.stock_service.client;
+
+import com.cg.stock_service.dto.PriceTick;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.Collection;
+
+/**
+ * Feign client for reporting price moves to the price alerts of the Admin User Service.
+ * Built per instance by {@link PriceAlertInstances} rather than load balanced.
+ */
+public interface PriceAlertFeignClient {
+
+    /**
+     * Matches a batch of price moves against the users' active alerts.
+     *
+     * @param ticks The low, high and last price of each stock that moved.
+     * @throws feign.FeignException.ServiceUnavailable if the instance has not loaded its alerts yet.
+     */
+    @PostMapping("/alerts/prices")
+    void evaluatePrices(@RequestBody Collection<PriceTick> ticks);
+}
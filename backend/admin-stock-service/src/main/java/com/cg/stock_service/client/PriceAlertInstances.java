@@ -0,0 +1,55 @@
+package com.cg.stock_service.client;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.openfeign.FeignClientBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves a {@link PriceAlertFeignClient} for every running instance of the Admin User Service.
+ * Each instance matches price moves against its own in-memory alerts, so a move has to reach all
+ * of them rather than one picked by the load balancer.
+ */
+@Component
+public class PriceAlertInstances {
+
+    static final String SERVICE = "admin-user-service";
+
+    @Autowired
+    private DiscoveryClient discoveryClient;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private final Map<String, PriceAlertFeignClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a client per instance currently registered, keyed by the instance's base URI.
+     * Clients of instances that are gone are dropped.
+     *
+     * @return the clients, empty if no instance is registered
+     */
+    public Map<String, PriceAlertFeignClient> clients() {
+        Map<String, PriceAlertFeignClient> current = new LinkedHashMap<>();
+        for (ServiceInstance instance : discoveryClient.getInstances(SERVICE)) {
+            String uri = instance.getUri().toString();
+            current.put(uri, clients.computeIfAbsent(uri, this::build));
+        }
+        clients.keySet().retainAll(current.keySet());
+        return current;
+    }
+
+    private PriceAlertFeignClient build(String uri) {
+        return new FeignClientBuilder(applicationContext)
+                .forType(PriceAlertFeignClient.class, SERVICE)
+                .contextId("priceAlertFeignClient")
+                .url(uri)
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.cg.stock_service.client;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-key lookups into batched calls.
+ * <p>
+ * The first lookup of a batch opens a short time window; every key requested within that
+ * window, or until the batch is full, is fetched with one call to the batch loader. Concurrent
+ * lookups of the same key share a single result.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class RequestCoalescer<K, V> implements AutoCloseable {
+
+    private final Function<Set<K>, Map<K, V>> batchLoader;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> pending = new HashMap<>();
+
+    /**
+     * @param batchLoader  loads many keys at once; keys missing from its result resolve to null
+     * @param windowMillis how long to wait for more keys after the first one arrives
+     * @param maxBatchSize flush immediately once this many distinct keys are pending
+     * @param threadPrefix name prefix for the threads that run timed flushes
+     */
+    public RequestCoalescer(Function<Set<K>, Map<K, V>> batchLoader, long windowMillis, int maxBatchSize,
+                            String threadPrefix) {
+        this.batchLoader = batchLoader;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newScheduledThreadPool(2, new CustomizableThreadFactory(threadPrefix));
+    }
+
+    /**
+     * Requests a single key, to be fetched with the next batch.
+     *
+     * @param key the key to look up
+     * @return a future completed with the value, or null if the batch loader did not return it
+     */
+    public CompletableFuture<V> submit(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (lock) {
+            future = pending.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(key, future);
+                if (pending.size() == 1) {
+                    scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+                }
+                if (pending.size() >= maxBatchSize) {
+                    full = pending;
+                    pending = new HashMap<>();
+                }
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * Looks up a single key and waits for the batch that fetches it.
+     *
+     * @param key the key to look up
+     * @return the value, or null if the batch loader did not return it
+     */
+    public V load(K key) {
+        try {
+            return submit(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void flush() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = batchLoader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(values != null ? values.get(key) : null));
+        } catch (Throwable t) {
+            batch.values().forEach(future -> future.completeExceptionally(t));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,432 @@
+package com.cg.stock_service.client;
+
+import com.cg.stock_service.exception.DependencyUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feign transport wrapper that keeps a slow or failing service from tying up the threads that
+ * call it.
+ * <p>
+ * Each target service gets its own guard, made of:
+ * <ul>
+ *   <li>a bulkhead: at most a fixed number of calls in flight; further calls wait briefly, then fail;</li>
+ *   <li>an adaptive read timeout of {@code srtt + 4 * rttvar} over the service's recent latencies,
+ *   as for TCP retransmission timeouts, clamped to a configured range and to the client's own
+ *   read timeout. A timed-out call counts as a sample at the timeout, so the timeout grows when
+ *   the service slows down for good;</li>
+ *   <li>a circuit breaker over the outcomes of the last calls. Once too many of them failed,
+ *   calls fail at once for a while, then a single trial call decides whether to close it again;</li>
+ *   <li>hedging of GETs: when a GET is not answered within the service's usual latency, a second
+ *   copy is sent and the first answer is used. Hedged GETs run on a small bounded pool; when it
+ *   is full they are sent on the caller's thread without a hedge. The second copy needs a
+ *   bulkhead permit of its own and is not sent when none is free, and each permit is held until
+ *   its attempt completes, even when the caller has already returned with the other answer.</li>
+ * </ul>
+ * Calls turned away by the bulkhead or the circuit breaker throw
+ * {@link DependencyUnavailableException}; callers fall back to cached values where they have them.
+ * Connection failures, timeouts and 5xx responses count as failures, other responses as successes.
+ * <p>
+ * The services are built independently, so each keeps its own copy of this class, of
+ * {@code RequestCoalescer} and of {@code FeignResilienceConfig}; a fix to one copy belongs in all.
+ */
+public class ResilientClient implements Client {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientClient.class);
+
+    private final Client delegate;
+    private final Settings settings;
+    private final Executor hedgeExecutor;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxConcurrentCalls   calls in flight per service
+     * @param maxWaitMillis        how long a call waits for the bulkhead before it is rejected
+     * @param minTimeoutMillis     lower bound of the adaptive read timeout
+     * @param maxTimeoutMillis     upper bound of the adaptive read timeout, used until latencies are known
+     * @param windowSize           the number of recent outcomes the circuit breaker looks at
+     * @param minimumCalls         the number of outcomes needed before the circuit can open
+     * @param failureRateThreshold the failure ratio, between 0 and 1, at which the circuit opens
+     * @param openMillis           how long an open circuit rejects calls before a trial call
+     * @param hedgeEnabled         whether GETs are hedged
+     * @param minHedgeDelayMillis  the shortest wait before a hedge is sent
+     */
+    public record Settings(int maxConcurrentCalls, long maxWaitMillis, long minTimeoutMillis, long maxTimeoutMillis,
+                           int windowSize, int minimumCalls, double failureRateThreshold, long openMillis,
+                           boolean hedgeEnabled, long minHedgeDelayMillis) {
+    }
+
+    /**
+     * @param delegate      the transport that sends the requests
+     * @param settings      the limits applied to every service
+     * @param hedgeExecutor runs hedged GETs; should reject rather than queue when busy
+     */
+    public ResilientClient(Client delegate, Settings settings, Executor hedgeExecutor) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.hedgeExecutor = hedgeExecutor;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        Guard guard = guards.computeIfAbsent(serviceOf(request), Guard::new);
+        boolean trial = guard.acquire();
+        Permit permit = new Permit(() -> guard.release(trial));
+        try {
+            long timeout = Math.min(guard.timeoutMillis(), options.readTimeoutMillis());
+            Request.Options adapted = new Request.Options(options.connectTimeout(), options.connectTimeoutUnit(),
+                    timeout, TimeUnit.MILLISECONDS, options.isFollowRedirects());
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = settings.hedgeEnabled() && request.httpMethod() == Request.HttpMethod.GET
+                        ? executeHedged(request, adapted, guard, permit)
+                        : delegate.execute(request, adapted);
+            } catch (SocketTimeoutException e) {
+                guard.recordLatency(timeout);
+                guard.recordOutcome(true, trial);
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                guard.recordOutcome(true, trial);
+                throw e;
+            }
+            boolean failed = response.status() >= 500;
+            if (!failed) {
+                guard.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            guard.recordOutcome(failed, trial);
+            return response;
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Returns the state of the circuit breaker of a service, mainly for diagnostics.
+     *
+     * @param service the name of the service
+     * @return the state, CLOSED for services not called yet
+     */
+    public CircuitState circuitState(String service) {
+        Guard guard = guards.get(service);
+        return guard != null ? guard.state() : CircuitState.CLOSED;
+    }
+
+    /**
+     * Returns the read timeout currently applied to a service.
+     *
+     * @param service the name of the service
+     * @return the timeout in milliseconds
+     */
+    public long currentTimeoutMillis(String service) {
+        Guard guard = guards.get(service);
+        return guard != null ? guard.timeoutMillis() : settings.maxTimeoutMillis();
+    }
+
+    /**
+     * Sends a GET on the hedge pool and, if it is slower than usual, a second copy. The caller's
+     * permit is also held by the first attempt, and the second copy takes a permit of its own.
+     */
+    private Response executeHedged(Request request, Request.Options options, Guard guard, Permit permit)
+            throws IOException {
+        long hedgeDelayMillis = guard.hedgeDelayMillis();
+        if (hedgeDelayMillis < 0 || hedgeDelayMillis >= options.readTimeoutMillis()) {
+            return delegate.execute(request, options);
+        }
+        CompletableFuture<Response> primary;
+        permit.retain();
+        try {
+            primary = CompletableFuture.supplyAsync(() -> send(request, options), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            permit.close();
+            return delegate.execute(request, options);
+        }
+        primary.whenComplete((response, failure) -> permit.close());
+        try {
+            return primary.get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Slower than usual, send the hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.url());
+        }
+        if (!guard.tryAcquireHedge()) {
+            return await(primary, request);
+        }
+        CompletableFuture<Response> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> send(request, options), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            guard.releaseHedge();
+            return await(primary, request);
+        }
+        hedge.whenComplete((response, failure) -> guard.releaseHedge());
+        return await(firstSuccessful(primary, hedge), request);
+    }
+
+    private Response send(Request request, Request.Options options) {
+        try {
+            return delegate.execute(request, options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Completes with the first response of either attempt, or with the last failure if both fail.
+     * The response that arrives second is closed.
+     */
+    private static CompletableFuture<Response> firstSuccessful(CompletableFuture<Response> first,
+                                                               CompletableFuture<Response> second) {
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger failuresToLose = new AtomicInteger(2);
+        for (CompletableFuture<Response> attempt : List.of(first, second)) {
+            attempt.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    if (!winner.complete(response)) {
+                        response.close();
+                    }
+                } else if (failuresToLose.decrementAndGet() == 0) {
+                    winner.completeExceptionally(failure);
+                }
+            });
+        }
+        return winner;
+    }
+
+    private static Response await(CompletableFuture<Response> response, Request request) throws IOException {
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.url());
+        }
+    }
+
+    private static IOException unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof UncheckedIOException unchecked) {
+            return unchecked.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IOException(cause);
+    }
+
+    private static String serviceOf(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+            return request.requestTemplate().feignTarget().name();
+        }
+        return URI.create(request.url()).getHost();
+    }
+
+    /**
+     * A bulkhead permit shared by the caller and the attempts sent for it, returned once the
+     * last of them lets go.
+     */
+    private static final class Permit {
+
+        private final Runnable release;
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        Permit(Runnable release) {
+            this.release = release;
+        }
+
+        void retain() {
+            holders.incrementAndGet();
+        }
+
+        void close() {
+            if (holders.decrementAndGet() == 0) {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum CircuitState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Bulkhead, latency estimate and circuit breaker of one service. The latency estimate and the
+     * circuit breaker are guarded by the guard's monitor.
+     */
+    private class Guard {
+
+        private final String service;
+        private final Semaphore bulkhead = new Semaphore(settings.maxConcurrentCalls());
+        private final boolean[] outcomes = new boolean[settings.windowSize()];
+        private int recorded;
+        private int next;
+        private int failures;
+        private CircuitState state = CircuitState.CLOSED;
+        private long openUntil;
+        private boolean trialInFlight;
+        private double smoothedLatency = -1.0;
+        private double latencyVariance;
+
+        Guard(String service) {
+            this.service = service;
+        }
+
+        /**
+         * Admits a call or throws. Returns true if the call is the trial call of a half-open circuit.
+         */
+        boolean acquire() {
+            boolean trial;
+            synchronized (this) {
+                if (state == CircuitState.OPEN && System.currentTimeMillis() >= openUntil) {
+                    state = CircuitState.HALF_OPEN;
+                    trialInFlight = false;
+                }
+                if (state == CircuitState.OPEN || state == CircuitState.HALF_OPEN && trialInFlight) {
+                    throw new DependencyUnavailableException("Circuit breaker of " + service + " is open");
+                }
+                trial = state == CircuitState.HALF_OPEN;
+                trialInFlight |= trial;
+            }
+            boolean admitted;
+            try {
+                admitted = bulkhead.tryAcquire(settings.maxWaitMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                admitted = false;
+            }
+            if (!admitted) {
+                if (trial) {
+                    synchronized (this) {
+                        trialInFlight = false;
+                    }
+                }
+                throw new DependencyUnavailableException("Too many concurrent calls to " + service);
+            }
+            return trial;
+        }
+
+        void release(boolean trial) {
+            bulkhead.release();
+            if (trial) {
+                synchronized (this) {
+                    trialInFlight = false;
+                }
+            }
+        }
+
+        /**
+         * Takes a permit for a hedge without waiting, as a hedge is only worth sending at once.
+         */
+        boolean tryAcquireHedge() {
+            return bulkhead.tryAcquire();
+        }
+
+        void releaseHedge() {
+            bulkhead.release();
+        }
+
+        synchronized void recordOutcome(boolean failed, boolean trial) {
+            if (trial) {
+                if (failed) {
+                    open();
+                } else {
+                    logger.info("Circuit breaker of {} closed", service);
+                    state = CircuitState.CLOSED;
+                    recorded = 0;
+                    next = 0;
+                    failures = 0;
+                }
+                return;
+            }
+            if (state != CircuitState.CLOSED) {
+                return;
+            }
+            if (recorded == outcomes.length) {
+                failures -= outcomes[next] ? 1 : 0;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = failed;
+            failures += failed ? 1 : 0;
+            next = (next + 1) % outcomes.length;
+            if (recorded >= settings.minimumCalls() && failures >= settings.failureRateThreshold() * recorded) {
+                open();
+            }
+        }
+
+        private void open() {
+            logger.warn("Circuit breaker of {} opened for {} ms after {} failures in {} calls", service,
+                    settings.openMillis(), failures, recorded);
+            state = CircuitState.OPEN;
+            openUntil = System.currentTimeMillis() + settings.openMillis();
+        }
+
+        synchronized CircuitState state() {
+            if (state == CircuitState.OPEN && System.currentTimeMillis() >= openUntil) {
+                return CircuitState.HALF_OPEN;
+            }
+            return state;
+        }
+
+        synchronized void recordLatency(long millis) {
+            if (smoothedLatency < 0) {
+                smoothedLatency = millis;
+                latencyVariance = millis / 2.0;
+            } else {
+                latencyVariance = 0.75 * latencyVariance + 0.25 * Math.abs(smoothedLatency - millis);
+                smoothedLatency = 0.875 * smoothedLatency + 0.125 * millis;
+            }
+        }
+
+        synchronized long timeoutMillis() {
+            if (smoothedLatency < 0) {
+                return settings.maxTimeoutMillis();
+            }
+            long timeout = Math.round(smoothedLatency + 4 * latencyVariance);
+            return Math.max(settings.minTimeoutMillis(), Math.min(settings.maxTimeoutMillis(), timeout));
+        }
+
+        /**
+         * Returns how long to wait for a GET before hedging it, about the service's 95th
+         * percentile latency, or -1 while its latencies are unknown.
+         */
+        synchronized long hedgeDelayMillis() {
+            if (smoothedLatency < 0) {
+                return -1L;
+            }
+            return Math.max(settings.minHedgeDelayMillis(), Math.round(smoothedLatency + 2 * latencyVariance));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cg.stock_service.config;
+
+import com.cg.stock_service.client.ResilientClient;
+import feign.Capability;
+import feign.Client;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the transport of every Feign client in a {@link ResilientClient}, so that calls to each
+ * service are bounded by a bulkhead, an adaptive timeout and a circuit breaker, and GETs are
+ * hedged.
+ */
+@Configuration
+public class FeignResilienceConfig {
+
+    @Value("${stock.feign.max-concurrent-calls:20}")
+    private int maxConcurrentCalls;
+
+    @Value("${stock.feign.max-wait-ms:20}")
+    private long maxWaitMillis;
+
+    @Value("${stock.feign.timeout.min-ms:200}")
+    private long minTimeoutMillis;
+
+    @Value("${stock.feign.timeout.max-ms:5000}")
+    private long maxTimeoutMillis;
+
+    @Value("${stock.feign.circuit.window-size:50}")
+    private int windowSize;
+
+    @Value("${stock.feign.circuit.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${stock.feign.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${stock.feign.circuit.open-ms:10000}")
+    private long openMillis;
+
+    @Value("${stock.feign.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${stock.feign.hedge.min-delay-ms:20}")
+    private long minHedgeDelayMillis;
+
+    @Value("${stock.feign.hedge.threads:16}")
+    private int hedgeThreads;
+
+    private ThreadPoolExecutor hedgeExecutor;
+
+    @PostConstruct
+    void startExecutor() {
+        // No queue: when every thread is busy, GETs are sent on the caller's thread without a hedge
+        hedgeExecutor = new ThreadPoolExecutor(1, hedgeThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("feign-hedge-"));
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    @Bean
+    public Capability resilienceCapability() {
+        ResilientClient.Settings settings = new ResilientClient.Settings(maxConcurrentCalls, maxWaitMillis,
+                minTimeoutMillis, maxTimeoutMillis, windowSize, minimumCalls, failureRateThreshold, openMillis,
+                hedgeEnabled, minHedgeDelayMillis);
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                return new ResilientClient(client, settings, hedgeExecutor);
+            }
+        };
+    }
+}
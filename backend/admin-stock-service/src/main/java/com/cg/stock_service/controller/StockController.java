@@ -1,11 +1,27 @@
 package com.cg.stock_service.controller;
 
+import com.cg.stock_service.dto.BulkWriteResult;
 import com.cg.stock_service.dto.FileUploadResponse;
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.dto.KeysetPage;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.ScreenerEntry;
+import com.cg.stock_service.dto.StockChart;
+import com.cg.stock_service.dto.StockComparison;
+import com.cg.stock_service.dto.StockSuggestion;
+import com.cg.stock_service.dto.UploadJobStatus;
+import com.cg.stock_service.exception.ExportRejectedException;
 import com.cg.stock_service.exception.InvalidExcelFileException;
-import com.cg.stock_service.exception.TemplateGenerationException;
+import com.cg.stock_service.exception.SubscriptionRejectedException;
+import com.cg.stock_service.exception.UploadRejectedException;
 import com.cg.stock_service.model.Stock;
-import com.cg.stock_service.dto.StockPerformance;
+import com.cg.stock_service.service.MarketScreener;
+import com.cg.stock_service.service.PriceHistoryService;
+import com.cg.stock_service.service.PriceStreamService;
+import com.cg.stock_service.service.StockExportService;
+import com.cg.stock_service.service.StockSearchIndex;
 import com.cg.stock_service.service.StockService;
+import com.cg.stock_service.service.UploadJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -16,11 +32,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -31,41 +50,154 @@ import java.util.Optional;
 @Tag(name = "Admin Stock Service", description = "Endpoints for managing stocks")
 public class StockController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private UploadJobService uploadJobService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private StockExportService stockExportService;
+
+    @Autowired
+    private PriceStreamService priceStreamService;
+
+    @Autowired
+    private MarketScreener marketScreener;
+
+    @Autowired
+    private StockSearchIndex stockSearchIndex;
+
     /**
-     * Retrieves all stocks.
+     * Retrieves one page of stocks in ID order, optionally filtered by exchange, price range and
+     * name prefix. When more stocks follow, the {@code X-Next-Cursor} header carries the cursor
+     * of the next page. Responses carry an ETag of the page itself; a request whose If-None-Match
+     * still matches gets a 304 without the stocks being sent again.
      *
-     * @return A list of all stocks.
+     * @param cursor     The cursor returned with the previous page, or none for the first page.
+     * @param limit      The page size; capped at the configured maximum.
+     * @param exchangeId Only return stocks of this exchange.
+     * @param minPrice   Only return stocks priced at least this.
+     * @param maxPrice   Only return stocks priced at most this.
+     * @param namePrefix Only return stocks whose name starts with this.
+     * @param request    The current request, used to evaluate If-None-Match.
+     * @return A page of stocks, or a 304 status if the client's copy is current.
      */
-    @Operation(summary = "Get all stocks")
+    @Operation(summary = "Get stocks", description = "Retrieve stocks page by page; follow X-Next-Cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved stocks")
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved stocks"),
+            @ApiResponse(responseCode = "304", description = "Stocks not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or price range")
     })
     @GetMapping
-    public ResponseEntity<List<Stock>> getAllStocks() {
-        List<Stock> stocks = stockService.getAllStocks();
-        return ResponseEntity.ok(stocks);
+    public ResponseEntity<List<Stock>> getAllStocks(@RequestParam(required = false) Long cursor,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    @RequestParam(required = false) Long exchangeId,
+                                                    @RequestParam(required = false) Double minPrice,
+                                                    @RequestParam(required = false) Double maxPrice,
+                                                    @RequestParam(required = false) String namePrefix,
+                                                    WebRequest request) {
+        try {
+            KeysetPage<Stock> page = stockService.getStocksPage(cursor, limit, exchangeId, minPrice, maxPrice, namePrefix);
+            if (request.checkNotModified(stockService.getStocksPageETag(page))) {
+                return null;
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Exports every stock, or every stock of one exchange, in a single streamed response.
+     * Rows are written as they are read from the database, so memory use stays flat however
+     * many stocks there are. Excel exports keep only a small window of rows on the heap.
+     *
+     * @param format     The output format: ndjson (one stock per line), json (a single array), csv or xlsx.
+     * @param exchangeId Only export stocks of this exchange.
+     * @return The streamed stocks, a 400 status if the format is unknown, or a 503 status if too many exports are running.
+     */
+    @Operation(summary = "Export all stocks", description = "Stream every stock as NDJSON, a JSON array, CSV or an Excel workbook")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stocks streamed successfully"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format"),
+            @ApiResponse(responseCode = "503", description = "Too many exports in progress")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStocks(@RequestParam(defaultValue = "ndjson") String format,
+                                                              @RequestParam(required = false) Long exchangeId) {
+        StockExportService.Format exportFormat;
+        try {
+            exportFormat = StockExportService.Format.fromCode(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            stockExportService.acquireExportSlot();
+        } catch (ExportRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                stockExportService.export(exportFormat, exchangeId, out);
+            } finally {
+                stockExportService.releaseExportSlot();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=stocks." + exportFormat.getCode())
+                .body(body);
     }
 
     /**
      * Retrieves a stock by its ID.
+     * Responses carry an ETag derived from the stock's version.
      *
-     * @param id The ID of the stock to retrieve.
-     * @return The stock with the given ID, or a 404 status if not found.
+     * @param id      The ID of the stock to retrieve.
+     * @param request The current request, used to evaluate If-None-Match.
+     * @return The stock with the given ID, a 304 status if the client's copy is current, or a 404 status if not found.
      */
     @Operation(summary = "Get stock by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved stock"),
+            @ApiResponse(responseCode = "304", description = "Stock not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Stock not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Stock> getStockById(@PathVariable Long id) {
+    public ResponseEntity<Stock> getStockById(@PathVariable Long id, WebRequest request) {
+        Optional<String> eTag = stockService.getStockETag(id);
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
         Optional<Stock> stock = stockService.getStockById(id);
         return stock.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Retrieves many stocks by their IDs in a single request.
+     *
+     * @param ids The IDs of the stocks to retrieve.
+     * @return A map of stock ID to stock; unknown IDs are omitted.
+     */
+    @Operation(summary = "Get stocks by IDs", description = "Retrieve many stocks in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved stocks")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<Map<Long, Stock>> getStocksByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(stockService.getStocksByIds(ids));
+    }
+
     /**
      * Adds a new stock.
      *
@@ -160,8 +292,11 @@ public class StockController {
     @PostMapping("/bulk")
     public ResponseEntity<String> saveStockData(@RequestBody List<Stock> stockList) {
         try {
-            stockService.saveAll(stockList);
-            return ResponseEntity.ok("Stocks saved successfully");
+            BulkWriteResult result = stockService.saveAll(stockList);
+            return ResponseEntity.ok()
+                    .header("X-Rows-Written", String.valueOf(result.getRowsWritten()))
+                    .header("X-Rows-Per-Second", String.valueOf(Math.round(result.getRowsPerSecond())))
+                    .body("Stocks saved successfully");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to save stocks");
         }
@@ -169,23 +304,34 @@ public class StockController {
 
     /**
      * Uploads an Excel file containing stock data.
+     * With {@code async=true} the file is queued for a background import and a job ID is
+     * returned immediately; progress can be polled via {@code /stocks/upload/{jobId}}.
      *
-     * @param file The Excel file to upload.
+     * @param file  The Excel file to upload.
+     * @param async Whether to import the file in the background.
      * @return A response indicating the result of the file upload.
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<FileUploadResponse> uploadFile(@RequestPart("file") MultipartFile file) {
+    public ResponseEntity<FileUploadResponse> uploadFile(@RequestPart("file") MultipartFile file,
+                                                         @RequestParam(value = "async", defaultValue = "false") boolean async) {
         try {
-            if (stockService.isValidExcelFile(file)) {
-                stockService.saveExcelData(file);
-                FileUploadResponse response = new FileUploadResponse("File uploaded successfully", file.getSize());
-                return ResponseEntity.status(HttpStatus.OK).body(response);
-            } else {
+            if (!stockService.isValidExcelFile(file)) {
                 throw new InvalidExcelFileException("Invalid Excel file");
             }
+            if (async) {
+                UploadJobStatus job = uploadJobService.submit(file);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(new FileUploadResponse("File accepted for processing", file.getSize(), job.getJobId()));
+            }
+            ImportResult result = stockService.saveExcelData(file);
+            FileUploadResponse response = new FileUploadResponse("File uploaded successfully", file.getSize(), result);
+            return ResponseEntity.status(HttpStatus.OK).body(response);
         } catch (InvalidExcelFileException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new FileUploadResponse(e.getMessage(), file.getSize()));
+        } catch (UploadRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new FileUploadResponse(e.getMessage(), file.getSize()));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new FileUploadResponse("Error processing file", file.getSize()));
@@ -196,46 +342,217 @@ public class StockController {
     }
 
     /**
-     * Generates a stock performance chart for a specific stock ID.
+     * Appends timestamped prices to a stock's price history.
+     *
+     * @param id     The ID of the stock.
+     * @param prices The price ticks to record.
+     * @return The number of ticks written and the achieved throughput.
+     */
+    @Operation(summary = "Record stock prices", description = "Append timestamped price and volume ticks to a stock's history")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Prices recorded successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "404", description = "Stock not found")
+    })
+    @PostMapping("/{id}/prices")
+    public ResponseEntity<BulkWriteResult> recordPrices(@PathVariable Long id, @RequestBody List<PricePoint> prices) {
+        try {
+            return ResponseEntity.ok(priceHistoryService.recordPrices(id, prices));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Recomputes the chart rollups of a stock from its recorded prices.
+     *
+     * @param id The ID of the stock.
+     * @return The number of rollup bars written and the achieved throughput.
+     */
+    @Operation(summary = "Rebuild price rollups", description = "Recompute a stock's 1m, 1h, 1d and 1w chart bars from its price history")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rollups rebuilt successfully"),
+            @ApiResponse(responseCode = "404", description = "Stock not found")
+    })
+    @PostMapping("/{id}/prices/rollups")
+    public ResponseEntity<BulkWriteResult> rebuildRollups(@PathVariable Long id) {
+        return ResponseEntity.ok(priceHistoryService.rebuildRollups(id));
+    }
+
+    /**
+     * Retrieves the progress of a background upload job.
+     *
+     * @param jobId The ID returned when the upload was accepted.
+     * @return The job's state, row counts, throughput and ETA.
+     */
+    @Operation(summary = "Get upload job status", description = "Reports progress, throughput and ETA of a background upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved upload job status"),
+            @ApiResponse(responseCode = "404", description = "Upload job not found")
+    })
+    @GetMapping("/upload/{jobId}")
+    public ResponseEntity<UploadJobStatus> getUploadJobStatus(@PathVariable String jobId) {
+        return ResponseEntity.ok(uploadJobService.getStatus(jobId));
+    }
+
+    /**
+     * Generates OHLCV candles for a specific stock ID.
      *
-     * @param id The ID of the stock for which to generate the chart.
-     * @return The stock performance data for the specified stock.
+     * @param id         The ID of the stock for which to generate the chart.
+     * @param interval   The candle width: 1m, 5m, 1h, 1d or 1w.
+     * @param from       Inclusive start of the range in epoch milliseconds.
+     * @param to         Exclusive end of the range in epoch milliseconds.
+     * @param maxPoints  The maximum number of candles to return; longer ranges are downsampled.
+     * @param indicators Indicator overlays to compute, e.g. sma(20),ema(50),rsi(14),macd(12,26,9),bb(20,2),minmax(20).
+     * @param request    The current request, used to evaluate If-None-Match.
+     * @return The candles of the stock within the range, or a 304 status if the client's copy is current.
      */
-    @Operation(summary = "Generate Stock Performance Chart", description = "Generates a stock performance chart for a specific stock ID")
+    @Operation(summary = "Generate Stock Chart", description = "Aggregates the price history of a stock into OHLCV candles with optional indicator overlays")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully generated stock performance chart"),
+            @ApiResponse(responseCode = "200", description = "Successfully generated stock chart"),
+            @ApiResponse(responseCode = "304", description = "Chart not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid interval, range, maxPoints or indicators"),
             @ApiResponse(responseCode = "404", description = "Stock not found")
     })
     @GetMapping("/{id}/chart")
-    public ResponseEntity<StockPerformance> generateStockChart(@PathVariable Long id) {
-        StockPerformance stockPerformance = stockService.generateStockChart(id);
-        return ResponseEntity.ok(stockPerformance);
+    public ResponseEntity<StockChart> generateStockChart(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "1d") String interval,
+                                                         @RequestParam(required = false) Long from,
+                                                         @RequestParam(required = false) Long to,
+                                                         @RequestParam(required = false) Integer maxPoints,
+                                                         @RequestParam(required = false) String indicators,
+                                                         WebRequest request) {
+        try {
+            if (request.checkNotModified(stockService.getChartETag(id, interval, from, to))) {
+                return null;
+            }
+            return ResponseEntity.ok(stockService.generateStockChart(id, interval, from, to, maxPoints, indicators));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
-     * Downloads the stock template Excel file.
+     * Charts several stocks on one time axis as percent change, for comparing their performance.
      *
-     * @return A response containing the Excel file as a byte array.
+     * @param ids      The IDs of the stocks to compare.
+     * @param interval The candle width: 1m, 5m, 1h, 1d or 1w.
+     * @param from     Inclusive start of the range in epoch milliseconds.
+     * @param to       Exclusive end of the range in epoch milliseconds.
+     * @return The aligned series of the stocks.
      */
-    @GetMapping("/download-template")
-    public ResponseEntity<byte[]> downloadTemplate() {
-        ByteArrayInputStream stream = null;
+    @Operation(summary = "Compare stocks", description = "Aligns the candles of several stocks on a common time axis as percent change")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully generated comparison"),
+            @ApiResponse(responseCode = "400", description = "No or too many stock IDs, or an invalid interval or range"),
+            @ApiResponse(responseCode = "404", description = "Stock not found")
+    })
+    @GetMapping("/compare")
+    public ResponseEntity<StockComparison> compareStocks(@RequestParam List<Long> ids,
+                                                         @RequestParam(defaultValue = "1d") String interval,
+                                                         @RequestParam(required = false) Long from,
+                                                         @RequestParam(required = false) Long to) {
         try {
-            stream = stockService.getTemplateExcelFile();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentDispositionFormData("attachment", "template.xlsx");
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            return ResponseEntity.ok().headers(headers).body(stream.readAllBytes());
-        } catch (Exception e) {
-            throw new TemplateGenerationException("Error generating Excel template");
-        } finally {
-            if (stream != null) {
-                try {
-                    stream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+            return ResponseEntity.ok(stockService.compareStocks(ids, interval, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Ranks stocks by today's performance, e.g. top gainers, top losers or the most volatile
+     * stocks of an exchange. Rankings are kept up to date in memory as prices are written.
+     *
+     * @param metric     The value to rank by: change (percent since the day's open), range (high-low in percent of the open) or volume.
+     * @param order      desc for the highest values first, asc for the lowest.
+     * @param exchangeId Only rank stocks of this exchange.
+     * @param limit      The number of stocks to return.
+     * @return The ranked stocks with their intraday statistics.
+     */
+    @Operation(summary = "Screen stocks", description = "Rank stocks by intraday percent change, range or volume")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully ranked stocks"),
+            @ApiResponse(responseCode = "400", description = "Invalid metric, order or limit")
+    })
+    @GetMapping("/screener")
+    public ResponseEntity<List<ScreenerEntry>> screenStocks(@RequestParam(defaultValue = "change") String metric,
+                                                            @RequestParam(defaultValue = "desc") String order,
+                                                            @RequestParam(required = false) Long exchangeId,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("order must be asc or desc");
             }
+            return ResponseEntity.ok(marketScreener.top(MarketScreener.Metric.fromCode(metric), exchangeId,
+                    order.equalsIgnoreCase("asc"), limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Suggests stocks as a name is typed. Each word of the query matches the start of a word of
+     * the stock's name or of its exchange's name, ignoring case and punctuation; exact and
+     * leading matches come first. Served from an in-memory index, without querying the database.
+     *
+     * @param q          The typed text.
+     * @param exchangeId Only suggest stocks of this exchange.
+     * @param limit      The number of stocks to return.
+     * @return The best matching stocks, best first.
+     */
+    @Operation(summary = "Search stocks", description = "Typeahead search of stocks by name or exchange name")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully searched stocks"),
+            @ApiResponse(responseCode = "400", description = "Empty or too long query, or invalid limit")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<StockSuggestion>> searchStocks(@RequestParam String q,
+                                                              @RequestParam(required = false) Long exchangeId,
+                                                              @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(stockSearchIndex.search(q, exchangeId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Opens a Server-Sent Events stream of live prices for a set of stocks.
+     * The current price of each stock is sent first, then a {@code price} event whenever a new
+     * price is recorded. A client that cannot keep up receives only the latest price per stock.
+     *
+     * @param ids The IDs of the stocks to follow.
+     * @return The event stream, a 400 status if no or too many IDs are given, or a 503 status if the service is at its subscriber limit.
+     */
+    @Operation(summary = "Stream live prices", description = "Subscribe to price updates of the given stocks as Server-Sent Events")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "400", description = "No stock IDs or too many stock IDs"),
+            @ApiResponse(responseCode = "503", description = "Too many live price subscribers")
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPrices(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(priceStreamService.subscribe(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (SubscriptionRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Downloads the stock template Excel file.
+     * The workbook is written straight to the response without an intermediate byte array.
+     *
+     * @return A response streaming the Excel file.
+     */
+    @GetMapping("/download-template")
+    public ResponseEntity<StreamingResponseBody> downloadTemplate() {
+        StreamingResponseBody body = out -> stockService.writeTemplateExcelFile(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=template.xlsx")
+                .body(body);
+    }
 }
@@ -0,0 +1,26 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkWriteResult {
+    private long rowsWritten;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    /**
+     * Builds a result from a row count and the elapsed wall-clock time.
+     *
+     * @param rowsWritten  the number of rows written
+     * @param elapsedNanos the elapsed time in nanoseconds
+     * @return the write result including throughput
+     */
+    public static BulkWriteResult of(long rowsWritten, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1L) / 1_000_000_000.0;
+        return new BulkWriteResult(rowsWritten, elapsedNanos / 1_000_000L, rowsWritten / seconds);
+    }
+}
@@ -0,0 +1,20 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a technical indicator drawn over a chart.
+ * {@code values[i]} belongs to candle {@code offset + i}; candles before the offset have no
+ * value because the indicator was still warming up.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChartOverlay {
+    private String indicator;
+    private String line;
+    private int offset;
+    private double[] values;
+}
@@ -0,0 +1,22 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One stock of a comparison chart, as percent change of its close against its first close
+ * in the range. {@code changes[i]} belongs to timestamp {@code offset + i} of the comparison;
+ * timestamps before the offset precede the stock's first bar. Timestamps at which the stock
+ * has no bar of its own carry its previous value forward.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComparisonSeries {
+    private Long stockId;
+    private String stockName;
+    private double basePrice;
+    private int offset;
+    private double[] changes;
+}
@@ -1,14 +1,36 @@
 package com.cg.stock_service.dto;
 
+import java.util.List;
+
 public class FileUploadResponse {
     private String message;
     private long fileSize;
+    private long rowsWritten;
+    private long rowsRejected;
+    private double rowsPerSecond;
+    private List<StageThroughput> stages;
+    private String jobId;
 
     public FileUploadResponse(String message, long fileSize) {
         this.message = message;
         this.fileSize = fileSize;
     }
 
+    public FileUploadResponse(String message, long fileSize, String jobId) {
+        this.message = message;
+        this.fileSize = fileSize;
+        this.jobId = jobId;
+    }
+
+    public FileUploadResponse(String message, long fileSize, ImportResult result) {
+        this.message = message;
+        this.fileSize = fileSize;
+        this.rowsWritten = result.getRowsImported();
+        this.rowsRejected = result.getRowsRejected();
+        this.rowsPerSecond = result.getRowsPerSecond();
+        this.stages = result.getStages();
+    }
+
     public String getMessage() {
         return message;
     }
@@ -24,4 +46,44 @@ public class FileUploadResponse {
     public void setFileSize(long fileSize) {
         this.fileSize = fileSize;
     }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<StageThroughput> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<StageThroughput> stages) {
+        this.stages = stages;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
 }
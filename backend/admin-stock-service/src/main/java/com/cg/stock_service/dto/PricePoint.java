@@ -0,0 +1,15 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PricePoint {
+    // Boxed so that a tick sent without a timestamp can be told apart from one at the epoch
+    private Long timestamp;
+    private double price;
+    private long volume;
+}
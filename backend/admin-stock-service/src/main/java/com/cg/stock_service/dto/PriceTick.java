@@ -0,0 +1,20 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The price movement of one stock over a short window: the lowest, highest and last price
+ * written, and the time of the last one.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceTick {
+    private Long stockId;
+    private double low;
+    private double high;
+    private double last;
+    private long timestamp;
+}
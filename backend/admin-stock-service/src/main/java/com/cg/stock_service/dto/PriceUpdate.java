@@ -0,0 +1,15 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceUpdate {
+    private Long stockId;
+    private long timestamp;
+    private double price;
+    private long volume;
+}
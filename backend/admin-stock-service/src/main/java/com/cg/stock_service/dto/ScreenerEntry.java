@@ -0,0 +1,25 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Intraday statistics of one stock as ranked by the market screener. The day is the current
+ * UTC day; percentages are relative to the day's opening price.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScreenerEntry {
+    private Long stockId;
+    private String stockName;
+    private Long exchangeId;
+    private double price;
+    private double open;
+    private double high;
+    private double low;
+    private long volume;
+    private double changePercent;
+    private double rangePercent;
+}
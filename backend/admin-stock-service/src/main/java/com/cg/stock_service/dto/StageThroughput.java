@@ -0,0 +1,16 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StageThroughput {
+    private String stage;
+    private int workers;
+    private long rows;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,28 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * OHLCV candles of one stock. Candle {@code i} is made of the i-th entry of each array,
+ * with {@code timestamps[i]} the start of its bucket in epoch milliseconds. Requested
+ * indicators are returned as overlays aligned to the same candles.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockChart {
+    private Long stockId;
+    private String stockName;
+    private String interval;
+    private long[] timestamps;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volume;
+    private List<ChartOverlay> overlays;
+}
@@ -0,0 +1,20 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Several stocks charted on one time axis. {@code timestamps} is the union of the candle
+ * starts of all stocks, and every series is aligned to it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockComparison {
+    private String interval;
+    private long[] timestamps;
+    private List<ComparisonSeries> series;
+}
@@ -0,0 +1,18 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One typeahead match of the stock search, best matches first.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockSuggestion {
+    private Long stockId;
+    private String stockName;
+    private Long exchangeId;
+    private String exchangeName;
+}
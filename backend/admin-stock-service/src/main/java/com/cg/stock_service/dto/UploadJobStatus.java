@@ -0,0 +1,26 @@
+package com.cg.stock_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadJobStatus {
+    private String jobId;
+    private String fileName;
+    private String state;
+    private Instant submittedAt;
+    private long expectedRows;
+    private long rowsRead;
+    private long rowsProcessed;
+    private long rowsRejected;
+    private double rowsPerSecond;
+    private long etaSeconds;
+    private String message;
+    private List<StageThroughput> stages;
+}
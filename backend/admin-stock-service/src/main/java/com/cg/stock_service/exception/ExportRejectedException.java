@@ -0,0 +1,7 @@
+package com.cg.stock_service.exception;
+
+public class ExportRejectedException extends RuntimeException {
+    public ExportRejectedException(String message) {
+        super(message);
+    }
+}
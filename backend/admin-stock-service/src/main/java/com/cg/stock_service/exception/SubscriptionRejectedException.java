@@ -0,0 +1,7 @@
+package com.cg.stock_service.exception;
+
+public class SubscriptionRejectedException extends RuntimeException {
+    public SubscriptionRejectedException(String message) {
+        super(message);
+    }
+}
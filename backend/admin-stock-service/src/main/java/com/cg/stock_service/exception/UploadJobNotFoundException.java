@@ -0,0 +1,7 @@
+package com.cg.stock_service.exception;
+
+public class UploadJobNotFoundException extends RuntimeException {
+    public UploadJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.cg.stock_service.exception;
+
+public class UploadRejectedException extends RuntimeException {
+    public UploadRejectedException(String message) {
+        super(message);
+    }
+}
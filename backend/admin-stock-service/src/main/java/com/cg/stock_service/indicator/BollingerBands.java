@@ -0,0 +1,72 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * Bollinger bands: a simple moving average plus and minus {@code k} population standard
+ * deviations. Mean and variance are maintained with Welford's update, extended to remove the
+ * value leaving the window, which avoids the cancellation of the naive sum-of-squares form.
+ */
+public class BollingerBands implements Indicator {
+
+    private final int period;
+    private final double k;
+    private final double[] window;
+    private int next;
+    private int count;
+    private double mean;
+    private double m2;
+
+    public BollingerBands(int period, double k) {
+        if (period < 2) {
+            throw new IllegalArgumentException("Bollinger period must be at least 2");
+        }
+        this.period = period;
+        this.k = k;
+        this.window = new double[period];
+    }
+
+    @Override
+    public String getName() {
+        return "bb(" + period + "," + formatK() + ")";
+    }
+
+    @Override
+    public List<String> getLines() {
+        return List.of("upper", "middle", "lower");
+    }
+
+    @Override
+    public int getWarmup() {
+        return period - 1;
+    }
+
+    @Override
+    public boolean update(double value, double[] out) {
+        if (count < period) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        } else {
+            double old = window[next];
+            double oldMean = mean;
+            mean += (value - old) / period;
+            m2 += (value - old) * (value - mean + old - oldMean);
+        }
+        window[next] = value;
+        next = next + 1 == period ? 0 : next + 1;
+        if (count < period) {
+            return false;
+        }
+        double deviation = Math.sqrt(Math.max(m2, 0) / period);
+        out[0] = mean + k * deviation;
+        out[1] = mean;
+        out[2] = mean - k * deviation;
+        return true;
+    }
+
+    private String formatK() {
+        return k == Math.rint(k) ? String.valueOf((long) k) : String.valueOf(k);
+    }
+}
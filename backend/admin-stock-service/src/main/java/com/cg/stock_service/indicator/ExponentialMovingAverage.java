@@ -0,0 +1,68 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * Exponential moving average with smoothing factor {@code 2 / (period + 1)}, seeded with the
+ * simple average of the first {@code period} values.
+ */
+public class ExponentialMovingAverage implements Indicator {
+
+    private final int period;
+    private final double alpha;
+    private int count;
+    private double value;
+
+    public ExponentialMovingAverage(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("EMA period must be positive");
+        }
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    @Override
+    public String getName() {
+        return "ema(" + period + ")";
+    }
+
+    @Override
+    public List<String> getLines() {
+        return List.of("ema");
+    }
+
+    @Override
+    public int getWarmup() {
+        // The seed's influence decays by (1 - alpha)^n, which is below 0.3% after 3 periods
+        return 3 * period;
+    }
+
+    @Override
+    public boolean update(double next, double[] out) {
+        if (!update(next)) {
+            return false;
+        }
+        out[0] = value;
+        return true;
+    }
+
+    /**
+     * Feeds the next value without writing to an output array.
+     *
+     * @param next the next value
+     * @return true once the average is defined
+     */
+    boolean update(double next) {
+        if (count < period) {
+            value += next / period;
+            count++;
+            return count == period;
+        }
+        value += alpha * (next - value);
+        return true;
+    }
+
+    double getValue() {
+        return value;
+    }
+}
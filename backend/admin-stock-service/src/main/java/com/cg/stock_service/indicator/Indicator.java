@@ -0,0 +1,43 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * A technical indicator that is updated one value at a time.
+ * Implementations keep only the rolling state they need, so each update costs a constant
+ * number of operations and an indicator can be carried forward as new candles arrive instead
+ * of being recomputed over the full history.
+ */
+public interface Indicator {
+
+    /**
+     * Returns the canonical name of this indicator including its parameters, e.g. {@code sma(20)}.
+     *
+     * @return the indicator name
+     */
+    String getName();
+
+    /**
+     * Returns the names of the lines this indicator produces, e.g. {@code upper, middle, lower}.
+     *
+     * @return the line names, in the order they are written by {@link #update(double, double[])}
+     */
+    List<String> getLines();
+
+    /**
+     * Returns how many values must be fed before the output is meaningful.
+     * Callers should prefetch this many values before the range they want to display.
+     *
+     * @return the number of warm-up values
+     */
+    int getWarmup();
+
+    /**
+     * Feeds the next value of the series.
+     *
+     * @param value the next value, usually a candle close
+     * @param out   receives one value per line once the indicator is ready
+     * @return true if {@code out} holds defined values, false while the indicator is warming up
+     */
+    boolean update(double value, double[] out);
+}
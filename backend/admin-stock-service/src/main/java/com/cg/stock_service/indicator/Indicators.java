@@ -0,0 +1,140 @@
+package com.cg.stock_service.indicator;
+
+import com.cg.stock_service.chart.PriceSeries;
+import com.cg.stock_service.dto.ChartOverlay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses indicator specifications and runs indicators over candle series.
+ * Specifications look like {@code sma(20),ema(50),rsi(14),macd(12,26,9),bb(20,2),minmax(20)}.
+ */
+public final class Indicators {
+
+    private static final Pattern SPEC = Pattern.compile("\\s*([a-z]+)\\s*\\(([^)]*)\\)\\s*(,|$)");
+
+    private Indicators() {
+    }
+
+    /**
+     * Parses a comma-separated list of indicator specifications.
+     *
+     * @param specs the specifications, or null or blank for none
+     * @return fresh indicators in the order given
+     * @throws IllegalArgumentException if a specification is malformed or unknown
+     */
+    public static List<Indicator> parse(String specs) {
+        List<Indicator> indicators = new ArrayList<>();
+        if (specs == null || specs.isBlank()) {
+            return indicators;
+        }
+        Matcher matcher = SPEC.matcher(specs.toLowerCase());
+        int position = 0;
+        while (position < specs.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                throw new IllegalArgumentException("Malformed indicator specification: " + specs);
+            }
+            indicators.add(create(matcher.group(1), matcher.group(2)));
+            position = matcher.end();
+        }
+        return indicators;
+    }
+
+    /**
+     * Runs an indicator over a series and collects its output from {@code from} onwards.
+     * Values before {@code from} only warm the indicator up.
+     *
+     * @param indicator a fresh indicator, or one already carried up to the start of the series
+     * @param series    the input values, usually candle closes
+     * @param from      the index of the first value to report
+     * @return one overlay per line of the indicator
+     */
+    public static List<ChartOverlay> run(Indicator indicator, double[] series, int from) {
+        return run(indicator, i -> series[i], series.length, from);
+    }
+
+    /**
+     * Runs an indicator over the closes of a candle series and collects its output from
+     * {@code from} onwards, reading the closes in place.
+     *
+     * @param indicator a fresh indicator, or one already carried up to the start of the series
+     * @param series    the candles
+     * @param from      the index of the first candle to report
+     * @return one overlay per line of the indicator
+     */
+    public static List<ChartOverlay> run(Indicator indicator, PriceSeries series, int from) {
+        return run(indicator, series::close, series.size(), from);
+    }
+
+    private static List<ChartOverlay> run(Indicator indicator, IntToDoubleFunction series, int size, int from) {
+        List<String> lines = indicator.getLines();
+        double[] out = new double[lines.size()];
+        double[][] values = new double[lines.size()][];
+        int offset = -1;
+        for (int i = 0; i < size; i++) {
+            if (indicator.update(series.applyAsDouble(i), out) && i >= from) {
+                if (offset < 0) {
+                    offset = i;
+                    for (int line = 0; line < values.length; line++) {
+                        values[line] = new double[size - offset];
+                    }
+                }
+                for (int line = 0; line < values.length; line++) {
+                    values[line][i - offset] = out[line];
+                }
+            }
+        }
+        List<ChartOverlay> overlays = new ArrayList<>(lines.size());
+        for (int line = 0; line < values.length; line++) {
+            overlays.add(offset < 0
+                    ? new ChartOverlay(indicator.getName(), lines.get(line), Math.max(size - from, 0), new double[0])
+                    : new ChartOverlay(indicator.getName(), lines.get(line), offset - from, values[line]));
+        }
+        return overlays;
+    }
+
+    private static Indicator create(String name, String arguments) {
+        double[] args = parseArguments(name, arguments);
+        return switch (name) {
+            case "sma" -> new SimpleMovingAverage(period(name, args, 0, 1));
+            case "ema" -> new ExponentialMovingAverage(period(name, args, 0, 1));
+            case "rsi" -> new RelativeStrengthIndex(period(name, args, 0, 1));
+            case "macd" -> new MovingAverageConvergenceDivergence(period(name, args, 0, 3),
+                    period(name, args, 1, 3), period(name, args, 2, 3));
+            case "bb" -> new BollingerBands(period(name, args, 0, 2), args[1]);
+            case "minmax" -> new RollingMinMax(period(name, args, 0, 1));
+            default -> throw new IllegalArgumentException("Unknown indicator: " + name);
+        };
+    }
+
+    private static double[] parseArguments(String name, String arguments) {
+        if (arguments.isBlank()) {
+            return new double[0];
+        }
+        String[] parts = arguments.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                values[i] = Double.parseDouble(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid argument for " + name + ": " + parts[i].trim());
+            }
+        }
+        return values;
+    }
+
+    private static int period(String name, double[] args, int index, int expectedCount) {
+        if (args.length != expectedCount) {
+            throw new IllegalArgumentException(name + " expects " + expectedCount + " argument(s)");
+        }
+        double value = args[index];
+        if (value != Math.rint(value) || value < 1 || value > 10_000) {
+            throw new IllegalArgumentException("Invalid period for " + name + ": " + value);
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,59 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * MACD line (fast EMA minus slow EMA), its signal EMA, and the histogram between them.
+ */
+public class MovingAverageConvergenceDivergence implements Indicator {
+
+    private final int fastPeriod;
+    private final int slowPeriod;
+    private final int signalPeriod;
+    private final ExponentialMovingAverage fast;
+    private final ExponentialMovingAverage slow;
+    private final ExponentialMovingAverage signal;
+
+    public MovingAverageConvergenceDivergence(int fastPeriod, int slowPeriod, int signalPeriod) {
+        if (fastPeriod >= slowPeriod) {
+            throw new IllegalArgumentException("MACD fast period must be shorter than its slow period");
+        }
+        this.fastPeriod = fastPeriod;
+        this.slowPeriod = slowPeriod;
+        this.signalPeriod = signalPeriod;
+        this.fast = new ExponentialMovingAverage(fastPeriod);
+        this.slow = new ExponentialMovingAverage(slowPeriod);
+        this.signal = new ExponentialMovingAverage(signalPeriod);
+    }
+
+    @Override
+    public String getName() {
+        return "macd(" + fastPeriod + "," + slowPeriod + "," + signalPeriod + ")";
+    }
+
+    @Override
+    public List<String> getLines() {
+        return List.of("macd", "signal", "histogram");
+    }
+
+    @Override
+    public int getWarmup() {
+        return 3 * slowPeriod + signalPeriod;
+    }
+
+    @Override
+    public boolean update(double value, double[] out) {
+        boolean fastReady = fast.update(value);
+        if (!slow.update(value) || !fastReady) {
+            return false;
+        }
+        double macd = fast.getValue() - slow.getValue();
+        if (!signal.update(macd)) {
+            return false;
+        }
+        out[0] = macd;
+        out[1] = signal.getValue();
+        out[2] = macd - signal.getValue();
+        return true;
+    }
+}
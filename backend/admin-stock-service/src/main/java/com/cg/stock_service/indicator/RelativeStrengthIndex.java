@@ -0,0 +1,65 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * Relative strength index using Wilder's smoothing of average gains and losses.
+ */
+public class RelativeStrengthIndex implements Indicator {
+
+    private final int period;
+    private boolean hasPrevious;
+    private double previous;
+    private int changes;
+    private double averageGain;
+    private double averageLoss;
+
+    public RelativeStrengthIndex(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("RSI period must be positive");
+        }
+        this.period = period;
+    }
+
+    @Override
+    public String getName() {
+        return "rsi(" + period + ")";
+    }
+
+    @Override
+    public List<String> getLines() {
+        return List.of("rsi");
+    }
+
+    @Override
+    public int getWarmup() {
+        return 3 * period;
+    }
+
+    @Override
+    public boolean update(double value, double[] out) {
+        if (!hasPrevious) {
+            previous = value;
+            hasPrevious = true;
+            return false;
+        }
+        double change = value - previous;
+        previous = value;
+        double gain = Math.max(change, 0);
+        double loss = Math.max(-change, 0);
+        if (changes < period) {
+            // The first averages are plain means of the first period changes
+            averageGain += gain / period;
+            averageLoss += loss / period;
+            changes++;
+            if (changes < period) {
+                return false;
+            }
+        } else {
+            averageGain = (averageGain * (period - 1) + gain) / period;
+            averageLoss = (averageLoss * (period - 1) + loss) / period;
+        }
+        out[0] = averageLoss == 0 ? 100.0 : 100.0 - 100.0 / (1.0 + averageGain / averageLoss);
+        return true;
+    }
+}
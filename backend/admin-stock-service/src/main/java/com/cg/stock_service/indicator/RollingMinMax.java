@@ -0,0 +1,95 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * Highest and lowest value over the last {@code period} values, as used for price channels.
+ * Each extreme is tracked with a monotonic deque of candidate positions, so every value is
+ * pushed and popped at most once and an update is amortised O(1).
+ */
+public class RollingMinMax implements Indicator {
+
+    private final int period;
+    private final MonotonicDeque maxima;
+    private final MonotonicDeque minima;
+    private long position;
+
+    public RollingMinMax(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Min/max period must be positive");
+        }
+        this.period = period;
+        this.maxima = new MonotonicDeque(period, true);
+        this.minima = new MonotonicDeque(period, false);
+    }
+
+    @Override
+    public String getName() {
+        return "minmax(" + period + ")";
+    }
+
+    @Override
+    public List<String> getLines() {
+        return List.of("max", "min");
+    }
+
+    @Override
+    public int getWarmup() {
+        return period - 1;
+    }
+
+    @Override
+    public boolean update(double value, double[] out) {
+        long expired = position - period;
+        maxima.push(position, value, expired);
+        minima.push(position, value, expired);
+        position++;
+        if (position < period) {
+            return false;
+        }
+        out[0] = maxima.front();
+        out[1] = minima.front();
+        return true;
+    }
+
+    /**
+     * Fixed-capacity ring of (position, value) pairs kept in decreasing order for maxima or
+     * increasing order for minima, so the current extreme is always at the front.
+     */
+    private static class MonotonicDeque {
+
+        private final long[] positions;
+        private final double[] values;
+        private final boolean max;
+        private int head;
+        private int size;
+
+        MonotonicDeque(int capacity, boolean max) {
+            this.positions = new long[capacity];
+            this.values = new double[capacity];
+            this.max = max;
+        }
+
+        void push(long position, double value, long expired) {
+            while (size > 0 && positions[head] <= expired) {
+                head = (head + 1) % positions.length;
+                size--;
+            }
+            while (size > 0 && dominates(value, values[(head + size - 1) % values.length])) {
+                size--;
+            }
+            int tail = (head + size) % positions.length;
+            positions[tail] = position;
+            values[tail] = value;
+            size++;
+        }
+
+        double front() {
+            return values[head];
+        }
+
+        private boolean dominates(double value, double existing) {
+            return max ? value >= existing : value <= existing;
+        }
+    }
+}
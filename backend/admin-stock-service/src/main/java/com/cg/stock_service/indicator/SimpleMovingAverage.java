@@ -0,0 +1,56 @@
+package com.cg.stock_service.indicator;
+
+import java.util.List;
+
+/**
+ * Simple moving average over the last {@code period} values, kept as a running sum over a
+ * ring buffer.
+ */
+public class SimpleMovingAverage implements Indicator {
+
+    private final int period;
+    private final double[] window;
+    private int next;
+    private int count;
+    private double sum;
+
+    public SimpleMovingAverage(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("SMA period must be positive");
+        }
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    @Override
+    public String getName() {
+        return "sma(" + period + ")";
+    }
+
+    @Override
+    public List<String> getLines() {
+        return List.of("sma");
+    }
+
+    @Override
+    public int getWarmup() {
+        return period - 1;
+    }
+
+    @Override
+    public boolean update(double value, double[] out) {
+        if (count == period) {
+            sum -= window[next];
+        } else {
+            count++;
+        }
+        window[next] = value;
+        next = next + 1 == period ? 0 : next + 1;
+        sum += value;
+        if (count < period) {
+            return false;
+        }
+        out[0] = sum / period;
+        return true;
+    }
+}
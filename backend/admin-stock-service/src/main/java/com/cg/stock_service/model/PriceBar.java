@@ -0,0 +1,54 @@
+package com.cg.stock_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A pre-aggregated OHLCV candle of one stock at one rollup resolution.
+ * The primary key is (stock_id, resolution, bucket_start), so the bars of one stock at one
+ * resolution are stored contiguously in time order. The first and last tick timestamps let
+ * late or out-of-order ticks be merged into an existing bar. The secondary index finds the
+ * bars of all stocks in one bucket, e.g. today's daily bars.
+ */
+@Entity
+@Table(name = "price_bars", indexes = @Index(name = "idx_price_bars_bucket", columnList = "resolution, bucket_start"))
+@IdClass(PriceBarId.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBar {
+    @Id
+    @Column(name = "stock_id")
+    private Long stockId;
+
+    @Id
+    @Column(length = 4)
+    private String resolution;
+
+    @Id
+    @Column(name = "bucket_start")
+    private Long bucketStart;
+
+    @Column(nullable = false)
+    private double open;
+
+    @Column(nullable = false)
+    private double high;
+
+    @Column(nullable = false)
+    private double low;
+
+    @Column(nullable = false)
+    private double close;
+
+    @Column(nullable = false)
+    private long volume;
+
+    @Column(name = "first_ts", nullable = false)
+    private long firstTimestamp;
+
+    @Column(name = "last_ts", nullable = false)
+    private long lastTimestamp;
+}
@@ -0,0 +1,16 @@
+package com.cg.stock_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceBarId implements Serializable {
+    private Long stockId;
+    private String resolution;
+    private Long bucketStart;
+}
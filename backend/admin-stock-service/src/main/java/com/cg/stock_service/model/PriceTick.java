@@ -0,0 +1,34 @@
+package com.cg.stock_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single timestamped trade price for a stock.
+ * The primary key is (stock_id, ts), which InnoDB uses as the clustered index, so the ticks
+ * of one stock are stored contiguously in time order and a chart range read is a single
+ * ordered index scan.
+ */
+@Entity
+@Table(name = "price_ticks")
+@IdClass(PriceTickId.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceTick {
+    @Id
+    @Column(name = "stock_id")
+    private Long stockId;
+
+    @Id
+    @Column(name = "ts")
+    private Long timestamp;
+
+    @Column(nullable = false)
+    private double price;
+
+    @Column(nullable = false)
+    private long volume;
+}
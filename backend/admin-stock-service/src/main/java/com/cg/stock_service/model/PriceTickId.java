@@ -0,0 +1,15 @@
+package com.cg.stock_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceTickId implements Serializable {
+    private Long stockId;
+    private Long timestamp;
+}
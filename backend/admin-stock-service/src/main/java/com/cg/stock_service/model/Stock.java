@@ -8,7 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "stocks")
+@Table(name = "stocks", indexes = @Index(name = "idx_stocks_name", columnList = "name"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -29,4 +29,8 @@ public class Stock {
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private UserDto user;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
\ No newline at end of file
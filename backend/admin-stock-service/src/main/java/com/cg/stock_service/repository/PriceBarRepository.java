@@ -0,0 +1,226 @@
+package com.cg.stock_service.repository;
+
+import com.cg.stock_service.model.PriceBar;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC access to the price_bars rollup tiers.
+ * New bars are merged into existing ones in the database, so rollups can be maintained
+ * incrementally from each batch of ticks without reading the bars back first.
+ */
+@Repository
+public class PriceBarRepository {
+
+    // MySQL applies the assignments left to right, so open and close are resolved against
+    // the stored first_ts and last_ts before those are widened
+    private static final String MERGE_SQL =
+            "INSERT INTO price_bars (stock_id, resolution, bucket_start, open, high, low, close, volume, first_ts, last_ts) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+                    + "open = IF(VALUES(first_ts) < first_ts, VALUES(open), open), "
+                    + "close = IF(VALUES(last_ts) >= last_ts, VALUES(close), close), "
+                    + "high = GREATEST(high, VALUES(high)), "
+                    + "low = LEAST(low, VALUES(low)), "
+                    + "volume = volume + VALUES(volume), "
+                    + "first_ts = LEAST(first_ts, VALUES(first_ts)), "
+                    + "last_ts = GREATEST(last_ts, VALUES(last_ts))";
+
+    private static final String RANGE_SQL =
+            "SELECT bucket_start, open, high, low, close, volume FROM price_bars "
+                    + "WHERE stock_id = ? AND resolution = ? AND bucket_start >= ? AND bucket_start < ? "
+                    + "ORDER BY bucket_start";
+
+    private static final String MULTI_RANGE_SQL =
+            "SELECT stock_id, bucket_start, open, high, low, close, volume FROM price_bars "
+                    + "WHERE stock_id IN (%s) AND resolution = ? AND bucket_start >= ? AND bucket_start < ? "
+                    + "ORDER BY stock_id, bucket_start";
+
+    private static final String BUCKET_SQL =
+            "SELECT stock_id, bucket_start, open, high, low, close, volume FROM price_bars "
+                    + "WHERE resolution = ? AND bucket_start = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM price_bars WHERE stock_id = ?";
+
+    private static final String DELETE_BEFORE_SQL =
+            "DELETE FROM price_bars WHERE stock_id = ? AND resolution = ? AND bucket_start < ?";
+
+    // Bounded by resolution so the range scan runs on idx_price_bars_bucket
+    private static final String STOCKS_BEFORE_SQL =
+            "SELECT DISTINCT stock_id FROM price_bars WHERE resolution = ? AND bucket_start < ?";
+
+    private static final String EARLIEST_SQL =
+            "SELECT MIN(bucket_start) FROM price_bars WHERE stock_id = ? AND resolution = ? "
+                    + "AND bucket_start >= ? AND bucket_start < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stock.bulk.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Callback for bars streamed out of a range read, in bucket order.
+     */
+    @FunctionalInterface
+    public interface BarHandler {
+        void onBar(long bucketStart, double open, double high, double low, double close, long volume);
+    }
+
+    /**
+     * Callback for bars of several stocks streamed out of one range read, grouped by stock and
+     * in bucket order within each stock.
+     */
+    @FunctionalInterface
+    public interface StockBarHandler {
+        void onBar(long stockId, long bucketStart, double open, double high, double low, double close, long volume);
+    }
+
+    /**
+     * Merges bars into the stored rollups. A bar for an existing bucket widens its high and
+     * low, adds to its volume, and replaces its open or close only if it holds an earlier
+     * first tick or a later last tick. Bars must therefore be built from ticks that were not
+     * stored before; a replaced tick can only be taken out of a bar by rebuilding the rollups.
+     *
+     * @param bars the bars to merge
+     */
+    @Transactional
+    public void merge(List<PriceBar> bars) {
+        jdbcTemplate.batchUpdate(MERGE_SQL, bars, batchSize, (ps, bar) -> {
+            ps.setLong(1, bar.getStockId());
+            ps.setString(2, bar.getResolution());
+            ps.setLong(3, bar.getBucketStart());
+            ps.setDouble(4, bar.getOpen());
+            ps.setDouble(5, bar.getHigh());
+            ps.setDouble(6, bar.getLow());
+            ps.setDouble(7, bar.getClose());
+            ps.setLong(8, bar.getVolume());
+            ps.setLong(9, bar.getFirstTimestamp());
+            ps.setLong(10, bar.getLastTimestamp());
+        });
+    }
+
+    /**
+     * Streams the bars of one stock at one resolution whose bucket starts in {@code [from, to)}.
+     *
+     * @param stockId    the ID of the stock
+     * @param resolution the rollup resolution code, e.g. {@code 1h}
+     * @param from       inclusive lower bound, epoch milliseconds
+     * @param to         exclusive upper bound, epoch milliseconds
+     * @param handler    receives each bar
+     */
+    public void streamRange(long stockId, String resolution, long from, long to, BarHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RANGE_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setLong(1, stockId);
+            ps.setString(2, resolution);
+            ps.setLong(3, from);
+            ps.setLong(4, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.onBar(rs.getLong(1), rs.getDouble(2), rs.getDouble(3),
+                rs.getDouble(4), rs.getDouble(5), rs.getLong(6)));
+    }
+
+    /**
+     * Streams the bars of several stocks at one resolution whose bucket starts in
+     * {@code [from, to)} with a single query, so charting many stocks costs one round trip.
+     *
+     * @param stockIds   the IDs of the stocks, at least one
+     * @param resolution the rollup resolution code, e.g. {@code 1h}
+     * @param from       inclusive lower bound, epoch milliseconds
+     * @param to         exclusive upper bound, epoch milliseconds
+     * @param handler    receives each bar, grouped by stock
+     */
+    public void streamRange(Collection<Long> stockIds, String resolution, long from, long to, StockBarHandler handler) {
+        List<Long> ids = List.copyOf(stockIds);
+        String sql = String.format(MULTI_RANGE_SQL, String.join(", ", Collections.nCopies(ids.size(), "?")));
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            int index = 1;
+            for (Long id : ids) {
+                ps.setLong(index++, id);
+            }
+            ps.setString(index++, resolution);
+            ps.setLong(index++, from);
+            ps.setLong(index, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.onBar(rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4),
+                rs.getDouble(5), rs.getDouble(6), rs.getLong(7)));
+    }
+
+    /**
+     * Streams the bars of every stock in one bucket, e.g. the current day at the daily resolution.
+     *
+     * @param resolution  the rollup resolution code
+     * @param bucketStart the start of the bucket, epoch milliseconds
+     * @param handler     receives each bar
+     */
+    public void streamBucket(String resolution, long bucketStart, StockBarHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(BUCKET_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setString(1, resolution);
+            ps.setLong(2, bucketStart);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.onBar(rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4),
+                rs.getDouble(5), rs.getDouble(6), rs.getLong(7)));
+    }
+
+    /**
+     * Drops all rollups of one stock, ahead of rebuilding them from its ticks.
+     *
+     * @param stockId the ID of the stock
+     */
+    public void deleteByStockId(long stockId) {
+        jdbcTemplate.update(DELETE_SQL, stockId);
+    }
+
+    /**
+     * Drops the bars of one stock at one resolution that start before the given time,
+     * once they have been sealed into segments.
+     *
+     * @param stockId    the ID of the stock
+     * @param resolution the rollup resolution code
+     * @param until      exclusive upper bound, epoch milliseconds
+     * @return the number of bars deleted
+     */
+    public int deleteBefore(long stockId, String resolution, long until) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, stockId, resolution, until);
+    }
+
+    /**
+     * Lists the stocks that have bars at one resolution starting before the given time.
+     *
+     * @param resolution the rollup resolution code
+     * @param until      exclusive upper bound, epoch milliseconds
+     * @return the stock IDs
+     */
+    public List<Long> findStockIdsWithBarsBefore(String resolution, long until) {
+        return jdbcTemplate.queryForList(STOCKS_BEFORE_SQL, Long.class, resolution, until);
+    }
+
+    /**
+     * Returns the start of the oldest bar of one stock at one resolution in {@code [from, to)}.
+     *
+     * @param stockId    the ID of the stock
+     * @param resolution the rollup resolution code
+     * @param from       inclusive lower bound, epoch milliseconds
+     * @param to         exclusive upper bound, epoch milliseconds
+     * @return the bucket start, or null if there is no bar in the range
+     */
+    public Long findEarliestBucketStart(long stockId, String resolution, long from, long to) {
+        return jdbcTemplate.queryForObject(EARLIEST_SQL, Long.class, stockId, resolution, from, to);
+    }
+}
@@ -0,0 +1,155 @@
+package com.cg.stock_service.repository;
+
+import com.cg.stock_service.dto.PricePoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC access to the price_ticks time series.
+ * Appends are batched upserts in (stock_id, ts) order and range reads stream rows straight
+ * off the clustered index without materialising entities.
+ */
+@Repository
+public class PriceHistoryRepository {
+
+    private static final String APPEND_SQL =
+            "INSERT INTO price_ticks (stock_id, ts, price, volume) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE price = VALUES(price), volume = VALUES(volume)";
+
+    private static final String EXISTING_SQL =
+            "SELECT ts FROM price_ticks WHERE stock_id = ? AND ts IN (%s)";
+
+    private static final String DELETE_SQL = "DELETE FROM price_ticks WHERE stock_id = ? LIMIT ?";
+
+    private static final String RANGE_SQL =
+            "SELECT ts, price, volume FROM price_ticks WHERE stock_id = ? AND ts >= ? AND ts < ? ORDER BY ts";
+
+    private static final String LATEST_SQL =
+            "SELECT MAX(ts) FROM price_ticks WHERE stock_id = ?";
+
+    private static final String EARLIEST_SQL =
+            "SELECT MIN(ts) FROM price_ticks WHERE stock_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stock.bulk.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Callback for ticks streamed out of a range read, in timestamp order.
+     */
+    @FunctionalInterface
+    public interface TickHandler {
+        void onTick(long timestamp, double price, long volume);
+    }
+
+    /**
+     * Appends ticks for one stock. A tick at an existing timestamp replaces its price and
+     * volume, so replaying a feed leaves the stored ticks unchanged.
+     *
+     * @param stockId the ID of the stock
+     * @param ticks   the ticks to append, sorted by timestamp
+     */
+    @Transactional
+    public void append(long stockId, List<PricePoint> ticks) {
+        jdbcTemplate.batchUpdate(APPEND_SQL, ticks, batchSize, (ps, tick) -> {
+            ps.setLong(1, stockId);
+            ps.setLong(2, tick.getTimestamp());
+            ps.setDouble(3, tick.getPrice());
+            ps.setLong(4, tick.getVolume());
+        });
+    }
+
+    /**
+     * Returns which of the given timestamps already hold a tick of the stock. Timestamps are
+     * looked up in batches of the configured size, so the statement stays bounded.
+     *
+     * @param stockId    the ID of the stock
+     * @param timestamps the timestamps to look up
+     * @return the subset of {@code timestamps} that is already stored
+     */
+    public Set<Long> findExistingTimestamps(long stockId, List<Long> timestamps) {
+        Set<Long> existing = new HashSet<>();
+        for (int from = 0; from < timestamps.size(); from += batchSize) {
+            List<Long> batch = timestamps.subList(from, Math.min(from + batchSize, timestamps.size()));
+            String sql = String.format(EXISTING_SQL, String.join(", ", Collections.nCopies(batch.size(), "?")));
+            Object[] args = new Object[batch.size() + 1];
+            args[0] = stockId;
+            for (int i = 0; i < batch.size(); i++) {
+                args[i + 1] = batch.get(i);
+            }
+            existing.addAll(jdbcTemplate.queryForList(sql, Long.class, args));
+        }
+        return existing;
+    }
+
+    /**
+     * Deletes all ticks of one stock. Rows are removed in batches of the configured size, so a
+     * long history does not turn into one huge transaction.
+     *
+     * @param stockId the ID of the stock
+     * @return the number of ticks deleted
+     */
+    public long deleteByStockId(long stockId) {
+        long deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(DELETE_SQL, stockId, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        return deleted;
+    }
+
+    /**
+     * Streams the ticks of one stock in {@code [from, to)} in timestamp order.
+     * Rows are fetched from MySQL as a forward-only stream rather than buffered.
+     *
+     * @param stockId the ID of the stock
+     * @param from    inclusive lower bound, epoch milliseconds
+     * @param to      exclusive upper bound, epoch milliseconds
+     * @param handler receives each tick
+     */
+    public void streamRange(long stockId, long from, long to, TickHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RANGE_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setLong(1, stockId);
+            ps.setLong(2, from);
+            ps.setLong(3, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.onTick(rs.getLong(1), rs.getDouble(2), rs.getLong(3)));
+    }
+
+    /**
+     * Returns the timestamp of the most recent tick of a stock.
+     *
+     * @param stockId the ID of the stock
+     * @return the latest timestamp in epoch milliseconds, or null if the stock has no ticks
+     */
+    public Long findLatestTimestamp(long stockId) {
+        return jdbcTemplate.queryForObject(LATEST_SQL, Long.class, stockId);
+    }
+
+    /**
+     * Returns the timestamp of the oldest tick of a stock.
+     *
+     * @param stockId the ID of the stock
+     * @return the earliest timestamp in epoch milliseconds, or null if the stock has no ticks
+     */
+    public Long findEarliestTimestamp(long stockId) {
+        return jdbcTemplate.queryForObject(EARLIEST_SQL, Long.class, stockId);
+    }
+}
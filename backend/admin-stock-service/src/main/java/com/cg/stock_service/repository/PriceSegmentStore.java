@@ -0,0 +1,278 @@
+package com.cg.stock_service.repository;
+
+import com.cg.stock_service.chart.PriceSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Immutable on-disk segments of sealed price bars, one directory per stock and resolution.
+ * <p>
+ * A segment holds the bars of one contiguous time range as fixed-width little-endian records
+ * behind a small header, followed by a sparse index of every {@value #INDEX_STRIDE}th record's
+ * timestamp. Segments are memory-mapped when first read, so a range read is a binary search
+ * over the in-heap index plus a sequential scan of the mapping, with no per-row driver overhead.
+ * <p>
+ * Sealed bars are deleted from the database, so {@code stock.segments.dir} must be durable
+ * storage shared by every instance. There is no default: without a directory the store holds
+ * no segments and refuses writes.
+ */
+@Repository
+public class PriceSegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceSegmentStore.class);
+
+    static final int MAGIC = 0x50534547; // "PSEG"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 48;
+    static final int INDEX_STRIDE = 256;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final String SUFFIX = ".seg";
+
+    @Value("${stock.segments.dir:}")
+    private String segmentDir;
+
+    private final Map<String, List<Segment>> segments = new ConcurrentHashMap<>();
+
+    /**
+     * Returns whether a segment directory is configured.
+     *
+     * @return true if segments can be written and read
+     */
+    public boolean isConfigured() {
+        return segmentDir != null && !segmentDir.isBlank();
+    }
+
+    /**
+     * Returns the end of the sealed history of one stock at one resolution.
+     *
+     * @param stockId    the ID of the stock
+     * @param resolution the rollup resolution code, e.g. {@code 1m}
+     * @return the exclusive end of the sealed range, or {@link Long#MIN_VALUE} if nothing is sealed
+     */
+    public long getSealedUntil(long stockId, String resolution) {
+        List<Segment> sealed = segmentsOf(stockId, resolution);
+        return sealed.isEmpty() ? Long.MIN_VALUE : sealed.get(sealed.size() - 1).coveredUntil;
+    }
+
+    /**
+     * Streams the sealed bars whose bucket starts in {@code [from, to)}, in bucket order.
+     *
+     * @param stockId    the ID of the stock
+     * @param resolution the rollup resolution code
+     * @param from       inclusive lower bound, epoch milliseconds
+     * @param to         exclusive upper bound, epoch milliseconds
+     * @param handler    receives each bar
+     */
+    public void streamRange(long stockId, String resolution, long from, long to, PriceBarRepository.BarHandler handler) {
+        for (Segment segment : segmentsOf(stockId, resolution)) {
+            if (segment.coveredUntil > from && segment.coveredFrom < to) {
+                segment.scan(from, to, handler);
+            }
+        }
+    }
+
+    /**
+     * Writes bars to a new segment covering {@code [coveredFrom, coveredUntil)}.
+     * The file is written under a temporary name and moved into place atomically, so readers
+     * never see a partial segment.
+     *
+     * @param stockId      the ID of the stock
+     * @param resolution   the rollup resolution code
+     * @param coveredFrom  inclusive start of the sealed range, at or after the end of the previous segment
+     * @param coveredUntil exclusive end of the sealed range
+     * @param bars         the bars of the range in bucket order
+     * @throws IOException if the segment cannot be written
+     * @throws IllegalStateException if no segment directory is configured
+     */
+    public void write(long stockId, String resolution, long coveredFrom, long coveredUntil, PriceSeries bars)
+            throws IOException {
+        if (!isConfigured()) {
+            throw new IllegalStateException("stock.segments.dir is not set");
+        }
+        Path dir = directoryOf(stockId, resolution);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(coveredUntil + SUFFIX);
+        Path temp = dir.resolve(coveredUntil + SUFFIX + ".tmp");
+
+        int count = bars.size();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(stockId).put(encodeResolution(resolution))
+                    .putInt(count).putInt(INDEX_STRIDE).putLong(coveredFrom).putLong(coveredUntil);
+            buffer.position(HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < RECORD_BYTES) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(bars.timestamp(i)).putDouble(bars.open(i)).putDouble(bars.high(i))
+                        .putDouble(bars.low(i)).putDouble(bars.close(i)).putLong(bars.volume(i));
+            }
+            for (int i = 0; i < count; i += INDEX_STRIDE) {
+                if (buffer.remaining() < Long.BYTES) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(bars.timestamp(i));
+            }
+            drain(buffer, channel);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        segments.remove(key(stockId, resolution));
+    }
+
+    /**
+     * Deletes every segment of a stock, e.g. before its rollups are rebuilt from raw ticks.
+     *
+     * @param stockId the ID of the stock
+     */
+    public void deleteStock(long stockId) {
+        if (!isConfigured()) {
+            return;
+        }
+        Path dir = Paths.get(segmentDir, String.valueOf(stockId));
+        segments.keySet().removeIf(key -> key.startsWith(stockId + "/"));
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            // Mapped segments stay readable by in-flight scans until they are garbage collected
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete segments of stock " + stockId, e);
+        }
+    }
+
+    private List<Segment> segmentsOf(long stockId, String resolution) {
+        if (!isConfigured()) {
+            return List.of();
+        }
+        return segments.computeIfAbsent(key(stockId, resolution), k -> load(directoryOf(stockId, resolution)));
+    }
+
+    private List<Segment> load(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Segment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                loaded.add(Segment.open(path));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open price segments in " + dir, e);
+        }
+        loaded.sort(Comparator.comparingLong(segment -> segment.coveredUntil));
+        logger.debug("Opened {} price segments in {}", loaded.size(), dir);
+        return List.copyOf(loaded);
+    }
+
+    private Path directoryOf(long stockId, String resolution) {
+        return Paths.get(segmentDir, String.valueOf(stockId), resolution);
+    }
+
+    private static String key(long stockId, String resolution) {
+        return stockId + "/" + resolution;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] encodeResolution(String resolution) {
+        byte[] bytes = new byte[4];
+        byte[] code = resolution.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(code, 0, bytes, 0, Math.min(code.length, bytes.length));
+        return bytes;
+    }
+
+    /**
+     * One memory-mapped segment file with its sparse index loaded on heap.
+     */
+    private static final class Segment {
+
+        private final MappedByteBuffer mapping;
+        private final int count;
+        private final long coveredFrom;
+        private final long coveredUntil;
+        private final long[] index;
+        private final int stride;
+
+        private Segment(MappedByteBuffer mapping, int count, int stride, long coveredFrom, long coveredUntil,
+                        long[] index) {
+            this.mapping = mapping;
+            this.count = count;
+            this.stride = stride;
+            this.coveredFrom = coveredFrom;
+            this.coveredUntil = coveredUntil;
+            this.index = index;
+        }
+
+        static Segment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapping.order(ByteOrder.LITTLE_ENDIAN);
+                if (mapping.getInt(0) != MAGIC || mapping.getInt(4) != VERSION) {
+                    throw new IOException("Not a price segment: " + path);
+                }
+                int count = mapping.getInt(20);
+                int stride = mapping.getInt(24);
+                long coveredFrom = mapping.getLong(28);
+                long coveredUntil = mapping.getLong(36);
+                long[] index = new long[(count + stride - 1) / stride];
+                long indexStart = HEADER_BYTES + (long) count * RECORD_BYTES;
+                for (int i = 0; i < index.length; i++) {
+                    index[i] = mapping.getLong((int) (indexStart + (long) i * Long.BYTES));
+                }
+                return new Segment(mapping, count, stride, coveredFrom, coveredUntil, index);
+            }
+        }
+
+        void scan(long from, long to, PriceBarRepository.BarHandler handler) {
+            // The last index entry at or before from bounds the linear search to one stride
+            int entry = Arrays.binarySearch(index, from);
+            int record = (entry >= 0 ? entry : Math.max(-entry - 2, 0)) * stride;
+            for (; record < count; record++) {
+                int position = HEADER_BYTES + record * RECORD_BYTES;
+                long timestamp = mapping.getLong(position);
+                if (timestamp >= to) {
+                    return;
+                }
+                if (timestamp >= from) {
+                    handler.onBar(timestamp, mapping.getDouble(position + 8), mapping.getDouble(position + 16),
+                            mapping.getDouble(position + 24), mapping.getDouble(position + 32),
+                            mapping.getLong(position + 40));
+                }
+            }
+        }
+    }
+}
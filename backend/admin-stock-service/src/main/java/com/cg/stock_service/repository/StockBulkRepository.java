@@ -0,0 +1,62 @@
+package com.cg.stock_service.repository;
+
+import com.cg.stock_service.dto.BulkWriteResult;
+import com.cg.stock_service.model.Stock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Bulk insert path for stocks that bypasses the JPA persistence context.
+ * Hibernate cannot batch inserts for IDENTITY ids, so rows are written with JDBC batches
+ * instead; with rewriteBatchedStatements enabled the MySQL driver sends each batch as
+ * multi-row INSERT statements.
+ */
+@Repository
+public class StockBulkRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stocks (name, price, exchange_id, user_id) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stock.bulk.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Inserts the given stocks in JDBC batches of {@code stock.bulk.batch-size} rows.
+     * Generated ids are not read back into the entities.
+     *
+     * @param stocks the stocks to insert
+     * @return the number of rows written and the achieved throughput
+     */
+    @Transactional
+    public BulkWriteResult insertAll(List<Stock> stocks) {
+        long start = System.nanoTime();
+        jdbcTemplate.batchUpdate(INSERT_SQL, stocks, batchSize, this::bindStock);
+        return BulkWriteResult.of(stocks.size(), System.nanoTime() - start);
+    }
+
+    private void bindStock(PreparedStatement ps, Stock stock) throws SQLException {
+        ps.setString(1, stock.getName());
+        ps.setDouble(2, stock.getPrice());
+        if (stock.getExchange() != null && stock.getExchange().getId() != null) {
+            ps.setLong(3, stock.getExchange().getId());
+        } else {
+            ps.setNull(3, Types.BIGINT);
+        }
+        if (stock.getUser() != null && stock.getUser().getId() != null) {
+            ps.setLong(4, stock.getUser().getId());
+        } else {
+            ps.setNull(4, Types.BIGINT);
+        }
+    }
+}
@@ -1,14 +1,77 @@
 package com.cg.stock_service.repository;
 
 import com.cg.stock_service.model.Stock;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface StockRepository extends JpaRepository<Stock, Long> {
     @Query("SELECT s FROM Stock s WHERE s.exchangeId = :exchangeId")
     List<Stock> findByExchangeId(Long exchangeId);
+
+    /**
+     * Reads the stocks after a cursor in ID order. Null filters are ignored; the name prefix is a
+     * LIKE pattern escaped with {@code !}. The page size is taken from {@code page}, which should
+     * always ask for its first page because the cursor, not an offset, does the skipping.
+     */
+    @Query("SELECT s FROM Stock s WHERE (:cursor IS NULL OR s.id > :cursor)"
+            + " AND (:exchangeId IS NULL OR s.exchange.id = :exchangeId)"
+            + " AND (:minPrice IS NULL OR s.price >= :minPrice)"
+            + " AND (:maxPrice IS NULL OR s.price <= :maxPrice)"
+            + " AND (:namePattern IS NULL OR s.name LIKE :namePattern ESCAPE '!')"
+            + " ORDER BY s.id")
+    List<Stock> findPage(Long cursor, Long exchangeId, Double minPrice, Double maxPrice, String namePattern,
+                         Pageable page);
+
+    /**
+     * Streams every stock, or every stock of one exchange, in ID order through a forward-only cursor. A fetch size of
+     * {@code Integer.MIN_VALUE} makes the MySQL driver hand rows over one at a time instead of
+     * buffering the whole result set. Associations are fetched in the same query, because the
+     * connection cannot run other statements until the stream is drained. Must be consumed
+     * inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Stock s LEFT JOIN FETCH s.exchange LEFT JOIN FETCH s.user"
+            + " WHERE (:exchangeId IS NULL OR s.exchange.id = :exchangeId) ORDER BY s.id")
+    Stream<Stock> streamAll(Long exchangeId);
+
+    /**
+     * Bulk updates bypass Hibernate's version check, so the version is bumped explicitly to keep
+     * entity tags of the stock in step with its price.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Stock s SET s.price = :price, s.version = s.version + 1 WHERE s.id = :id")
+    int updatePrice(Long id, double price);
+
+    /**
+     * Bumps the version of a stock whose price history changed without a new current price,
+     * e.g. by a backfill, so that chart entity tags change as well.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Stock s SET s.version = s.version + 1 WHERE s.id = :id")
+    int incrementVersion(Long id);
+
+    @Query("SELECT s.price FROM Stock s WHERE s.id = :id")
+    Optional<Double> findPriceById(Long id);
+
+    @Query("SELECT s.version FROM Stock s WHERE s.id = :id")
+    Optional<Long> findVersionById(Long id);
 }
@@ -0,0 +1,147 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.ChartOverlay;
+import com.cg.stock_service.dto.StockChart;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of chart responses keyed by stock and request parameters.
+ * <p>
+ * Entries are bounded by their estimated size in bytes and evicted with Caffeine's W-TinyLFU
+ * policy, so a few popular symbols stay cached while one-off long-range charts do not push
+ * them out. A per-stock index of cached keys lets a write to one stock drop exactly that
+ * stock's charts. Hit, miss and eviction counts are published as {@code cache.*} meters.
+ */
+@Component
+public class ChartCache {
+
+    private static final String CACHE_NAME = "stockCharts";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stock.chart-cache.max-weight-mb:64}")
+    private long maxWeightMb;
+
+    @Value("${stock.chart-cache.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    private final Map<Long, Set<ChartKey>> keysByStock = new ConcurrentHashMap<>();
+
+    private Cache<ChartKey, StockChart> cache;
+
+    /**
+     * Request parameters that identify a chart. Null bounds mean the default range ending now,
+     * which is why entries also expire after a while even if the stock is never written.
+     */
+    record ChartKey(Long stockId, String interval, Long from, Long to, Integer maxPoints, String indicators) {
+    }
+
+    @PostConstruct
+    void buildCache() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightMb * 1024 * 1024)
+                .weigher((ChartKey key, StockChart chart) -> weigh(chart))
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .evictionListener((ChartKey key, StockChart chart, RemovalCause cause) -> unindex(key))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached chart for the given request, building and caching it on a miss.
+     * Concurrent misses for the same request share one build.
+     *
+     * @param stockId    the ID of the stock
+     * @param interval   the candle width code
+     * @param from       the requested range start, or null
+     * @param to         the requested range end, or null
+     * @param maxPoints  the requested point limit, or null
+     * @param indicators the requested indicator specifications, or null
+     * @param loader     builds the chart on a miss
+     * @return the chart
+     */
+    public StockChart get(Long stockId, String interval, Long from, Long to, Integer maxPoints, String indicators,
+                          Supplier<StockChart> loader) {
+        ChartKey key = new ChartKey(stockId, interval, from, to, maxPoints, indicators);
+        return cache.get(key, k -> {
+            // Indexed before the chart is read, so an invalidation racing this load still finds the key
+            keysByStock.computeIfAbsent(k.stockId(), id -> ConcurrentHashMap.newKeySet()).add(k);
+            return loader.get();
+        });
+    }
+
+    /**
+     * Drops every cached chart of a stock. Inside a transaction the charts are dropped after
+     * commit, so a concurrent request cannot cache data the transaction is about to replace.
+     *
+     * @param stockId the ID of the stock whose data changed
+     */
+    public void invalidate(Long stockId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(stockId);
+                }
+            });
+        } else {
+            evict(stockId);
+        }
+    }
+
+    /**
+     * Returns the number of cached charts.
+     *
+     * @return the approximate entry count
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private void evict(Long stockId) {
+        Set<ChartKey> keys = keysByStock.get(stockId);
+        if (keys == null) {
+            return;
+        }
+        // The set stays mapped, so a load that indexes its key while this runs is not orphaned
+        for (ChartKey key : keys) {
+            keys.remove(key);
+            cache.invalidate(key);
+        }
+    }
+
+    private void unindex(ChartKey key) {
+        keysByStock.computeIfPresent(key.stockId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    static int weigh(StockChart chart) {
+        long bytes = 128L + 48L * chart.getTimestamps().length;
+        if (chart.getOverlays() != null) {
+            for (ChartOverlay overlay : chart.getOverlays()) {
+                bytes += 64L + 8L * overlay.getValues().length;
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
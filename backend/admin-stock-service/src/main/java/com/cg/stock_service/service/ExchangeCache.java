@@ -0,0 +1,287 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.client.AdminExchangeFeignClient;
+import com.cg.stock_service.client.ExchangeBatchLoader;
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.exception.DependencyUnavailableException;
+import feign.FeignException;
+import feign.RetryableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process cache of exchanges used to validate exchange IDs on stock writes.
+ * <p>
+ * The cache is warmed with the full exchange list at startup and refreshed in the background,
+ * so validation is normally a map lookup instead of a call to the Admin Exchange Service.
+ * Entries expire after a TTL, unknown IDs are remembered for the same TTL, and the cache
+ * evicts the least recently used entries once it grows past its size bound.
+ * While the Admin Exchange Service is unavailable, expired entries are served rather than
+ * failing the lookup; only exchanges never seen before fail.
+ */
+@Component
+public class ExchangeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeCache.class);
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private AdminExchangeFeignClient adminExchangeFeignClient;
+
+    @Autowired
+    private ExchangeBatchLoader exchangeBatchLoader;
+
+    @Value("${stock.exchange-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${stock.exchange-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${stock.exchange-cache.refresh-page-size:500}")
+    private int refreshPageSize;
+
+    private final Map<Long, CachedExchange> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Loads all exchanges once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        try {
+            refreshAll();
+        } catch (Exception e) {
+            logger.warn("Could not warm exchange cache, exchanges will be loaded on demand: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads the full exchange list in the background so that entries stay fresh.
+     */
+    @Scheduled(fixedDelayString = "${stock.exchange-cache.refresh-interval-ms:60000}",
+            initialDelayString = "${stock.exchange-cache.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            refreshAll();
+        } catch (Exception e) {
+            logger.warn("Exchange cache refresh failed, keeping cached entries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the cached exchanges with the current list from the Admin Exchange Service,
+     * read page by page. Exchanges that no longer exist are dropped.
+     */
+    public void refreshAll() {
+        List<Exchange> exchanges = fetchAllExchanges();
+        long now = System.currentTimeMillis();
+        Set<Long> seen = new HashSet<>();
+        for (Exchange exchange : exchanges) {
+            if (exchange != null && exchange.getId() != null) {
+                entries.put(exchange.getId(), new CachedExchange(exchange, now));
+                seen.add(exchange.getId());
+            }
+        }
+        entries.entrySet().removeIf(e -> e.getValue().exchange != null && !seen.contains(e.getKey()));
+        evictIfOversized();
+        logger.debug("Exchange cache refreshed with {} exchanges", seen.size());
+    }
+
+    private List<Exchange> fetchAllExchanges() {
+        List<Exchange> exchanges = new ArrayList<>();
+        Long cursor = null;
+        do {
+            ResponseEntity<List<Exchange>> page = adminExchangeFeignClient.getExchanges(cursor, refreshPageSize);
+            if (page.getBody() != null) {
+                exchanges.addAll(page.getBody());
+            }
+            String next = page.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+            cursor = next != null ? Long.valueOf(next) : null;
+        } while (cursor != null);
+        return exchanges;
+    }
+
+    /**
+     * Retrieves an exchange by its ID, loading it from the Admin Exchange Service on a miss.
+     * Misses from concurrent callers are coalesced into one batched call.
+     *
+     * @param id the ID of the exchange
+     * @return the exchange, or null if no exchange exists with this ID
+     */
+    public Exchange getExchange(Long id) {
+        if (id == null) {
+            return null;
+        }
+        CachedExchange cached = entries.get(id);
+        if (cached != null && !cached.isExpired(now(), ttlSeconds)) {
+            cached.touch();
+            return cached.exchange;
+        }
+        return load(id);
+    }
+
+    /**
+     * Checks whether an exchange exists with the given ID.
+     *
+     * @param id the ID of the exchange
+     * @return true if the exchange exists
+     */
+    public boolean isValid(Long id) {
+        return getExchange(id) != null;
+    }
+
+    /**
+     * Validates many exchange IDs at once.
+     * IDs that are not fresh in the cache are resolved with a single batched lookup rather
+     * than one remote call per ID.
+     *
+     * @param ids the exchange IDs to validate, duplicates allowed
+     * @return the IDs for which no exchange exists
+     */
+    public Set<Long> findUnknownIds(Collection<Long> ids) {
+        long now = now();
+        Set<Long> misses = new HashSet<>();
+        Set<Long> unknown = new HashSet<>();
+        for (Long id : ids) {
+            CachedExchange cached = id != null ? entries.get(id) : null;
+            if (id == null) {
+                unknown.add(null);
+            } else if (cached == null || cached.isExpired(now, ttlSeconds)) {
+                misses.add(id);
+            } else if (cached.exchange == null) {
+                unknown.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            Map<Long, Exchange> loaded;
+            try {
+                loaded = exchangeBatchLoader.getExchangesByIds(misses);
+            } catch (RuntimeException e) {
+                Map<Long, CachedExchange> expired = new HashMap<>();
+                for (Long id : misses) {
+                    CachedExchange cached = entries.get(id);
+                    if (cached != null) {
+                        expired.put(id, cached);
+                    }
+                }
+                if (!isUnavailable(e) || expired.size() < misses.size()) {
+                    throw e;
+                }
+                logger.debug("Admin Exchange Service unavailable, validating {} exchanges against expired entries: {}",
+                        misses.size(), e.getMessage());
+                expired.forEach((id, cached) -> {
+                    if (cached.exchange == null) {
+                        unknown.add(id);
+                    }
+                });
+                return unknown;
+            }
+            long loadedAt = now();
+            for (Long id : misses) {
+                Exchange exchange = loaded.get(id);
+                entries.put(id, new CachedExchange(exchange, loadedAt));
+                if (exchange == null) {
+                    unknown.add(id);
+                }
+            }
+            evictIfOversized();
+        }
+        return unknown;
+    }
+
+    /**
+     * Drops a single exchange from the cache so that the next lookup goes to the service.
+     *
+     * @param id the ID of the exchange
+     */
+    public void invalidate(Long id) {
+        entries.remove(id);
+    }
+
+    private Exchange load(Long id) {
+        Exchange exchange;
+        try {
+            exchange = exchangeBatchLoader.getExchangeById(id);
+        } catch (RuntimeException e) {
+            CachedExchange expired = entries.get(id);
+            if (expired == null || !isUnavailable(e)) {
+                throw e;
+            }
+            logger.debug("Admin Exchange Service unavailable, using expired entry of exchange {}: {}", id, e.getMessage());
+            expired.touch();
+            return expired.exchange;
+        }
+        entries.put(id, new CachedExchange(exchange, now()));
+        evictIfOversized();
+        return exchange;
+    }
+
+    /**
+     * Tells failures of the Admin Exchange Service itself, which expired entries may paper over,
+     * from errors that would recur with any answer.
+     */
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof DependencyUnavailableException || e instanceof RetryableException
+                || e instanceof FeignException.FeignServerException;
+    }
+
+    private void evictIfOversized() {
+        int overflow = entries.size() - maxSize;
+        if (overflow <= 0) {
+            return;
+        }
+        // Evict a tenth of the cache at once so that the scan is amortised over many inserts
+        int toEvict = Math.max(overflow, maxSize / 10);
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                .limit(toEvict)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * A cached exchange, or a remembered miss when {@code exchange} is null.
+     */
+    private static class CachedExchange {
+
+        private final Exchange exchange;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        CachedExchange(Exchange exchange, long loadedAt) {
+            this.exchange = exchange;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+
+        boolean isExpired(long now, long ttlSeconds) {
+            return now - loadedAt > ttlSeconds * 1000L;
+        }
+
+        void touch() {
+            lastAccess = now();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.cg.stock_service.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters for an import that is still running.
+ * The pipeline updates them from its worker threads; readers may poll them at any time.
+ */
+public class ImportProgress {
+
+    private volatile long expectedRows = -1;
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsImported = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+
+    void setExpectedRows(long expectedRows) {
+        this.expectedRows = expectedRows;
+    }
+
+    void addRead(long rows) {
+        rowsRead.add(rows);
+    }
+
+    void addImported(long rows) {
+        rowsImported.add(rows);
+    }
+
+    void addRejected(long rows) {
+        rowsRejected.add(rows);
+    }
+
+    /**
+     * Returns the number of data rows the sheet declares, or -1 if unknown.
+     *
+     * @return the expected row count
+     */
+    public long getExpectedRows() {
+        return expectedRows;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    public long getRowsImported() {
+        return rowsImported.sum();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.sum();
+    }
+}
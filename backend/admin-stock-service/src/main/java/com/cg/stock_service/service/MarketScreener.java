@@ -0,0 +1,415 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.ScreenerEntry;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.StockRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Ranks stocks by their intraday performance: percent change, trading range and volume.
+ * <p>
+ * Every stock's statistics for the current UTC day are held in memory and indexed in sorted
+ * sets, one per metric for the whole market and one per metric for each exchange. A price
+ * write moves the stock within those sets in O(log n), and a top-K query reads K entries off
+ * one end of a set, so rankings never scan the {@code stocks} table. Full sorted sets are kept
+ * rather than bounded top-K heaps because a falling value has to be able to leave the top.
+ * <p>
+ * The statistics are loaded from the stocks and today's daily bars at startup and restart
+ * from each stock's last price when the day rolls over.
+ */
+@Component
+public class MarketScreener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketScreener.class);
+
+    private static final Comparator<Ranked> RANKING =
+            Comparator.comparingDouble(Ranked::value).thenComparingLong(Ranked::stockId);
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private PriceBarRepository priceBarRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stock.screener.max-results:100}")
+    private int maxResults;
+
+    private final Map<Long, StockStats> stats = new ConcurrentHashMap<>();
+
+    private final Rankings market = new Rankings();
+
+    private final Map<Long, Rankings> byExchange = new ConcurrentHashMap<>();
+
+    private volatile long currentDay = dayOf(System.currentTimeMillis());
+
+    /**
+     * The quantities stocks can be ranked by.
+     */
+    public enum Metric {
+        CHANGE("change"),
+        RANGE("range"),
+        VOLUME("volume");
+
+        private final String code;
+
+        Metric(String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * Resolves a metric from its code.
+         *
+         * @param code the metric code, e.g. {@code change}
+         * @return the matching metric
+         * @throws IllegalArgumentException if the code is not supported
+         */
+        public static Metric fromCode(String code) {
+            for (Metric metric : values()) {
+                if (metric.code.equalsIgnoreCase(code)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported screener metric: " + code + ", expected one of "
+                    + Arrays.stream(values()).map(Metric::getCode).toList());
+        }
+    }
+
+    /**
+     * An indexed value of one stock. Values are snapshots, so a stock is moved by removing its
+     * old entry and adding a new one.
+     */
+    record Ranked(double value, long stockId) {
+    }
+
+    /**
+     * Loads the statistics of every stock once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warn("Could not load market screener, rankings start empty: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds all statistics from the stocks' current prices and today's daily bars.
+     * Must run inside a transaction, because the stocks are streamed.
+     */
+    void rebuild() {
+        long day = dayOf(System.currentTimeMillis());
+        Map<Long, StockStats> loaded = new HashMap<>();
+        try (Stream<Stock> stocks = stockRepository.streamAll(null)) {
+            stocks.forEach(stock -> {
+                loaded.put(stock.getId(), new StockStats(stock.getId(), stock.getName(), exchangeIdOf(stock), day,
+                        stock.getPrice()));
+                entityManager.detach(stock);
+            });
+        }
+        // The stream holds the connection until it is drained, so today's bars are read afterwards
+        priceBarRepository.streamBucket(ChartInterval.ONE_DAY.getCode(), day,
+                (stockId, bucketStart, open, high, low, close, volume) -> {
+                    StockStats stock = loaded.get(stockId);
+                    if (stock != null) {
+                        stock.open = open;
+                        stock.high = Math.max(high, stock.last);
+                        stock.low = Math.min(low, stock.last);
+                        stock.volume = volume;
+                    }
+                });
+        stats.keySet().forEach(this::untrack);
+        currentDay = day;
+        loaded.values().forEach(stock -> {
+            stats.put(stock.stockId, stock);
+            index(stock);
+        });
+        logger.info("Market screener loaded {} stocks", loaded.size());
+    }
+
+    /**
+     * Starts following a new stock, or picks up a changed name or exchange of a known one.
+     *
+     * @param stock the saved stock
+     */
+    public void track(Stock stock) {
+        if (stock == null || stock.getId() == null) {
+            return;
+        }
+        StockStats existing = stats.computeIfAbsent(stock.getId(), id ->
+                new StockStats(id, stock.getName(), exchangeIdOf(stock), currentDay, stock.getPrice()));
+        synchronized (existing) {
+            unindex(existing);
+            existing.name = stock.getName();
+            existing.exchangeId = exchangeIdOf(stock);
+            index(existing);
+        }
+    }
+
+    /**
+     * Stops following a deleted stock.
+     *
+     * @param stockId the ID of the stock
+     */
+    public void untrack(Long stockId) {
+        StockStats removed = stats.remove(stockId);
+        if (removed != null) {
+            synchronized (removed) {
+                unindex(removed);
+            }
+        }
+    }
+
+    /**
+     * Folds newly written ticks into a stock's statistics and moves it within the rankings.
+     * Inside a transaction the ticks are applied after commit. Ticks of earlier days are ignored.
+     *
+     * @param stockId the ID of the stock
+     * @param ticks   the ticks written, in timestamp order
+     */
+    public void record(Long stockId, List<PricePoint> ticks) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(stockId, ticks);
+                }
+            });
+        } else {
+            apply(stockId, ticks);
+        }
+    }
+
+    /**
+     * Restarts the statistics of every stock from its last price once a new UTC day begins.
+     */
+    @Scheduled(fixedDelayString = "${stock.screener.rollover-check-ms:60000}")
+    public void rollover() {
+        long day = dayOf(System.currentTimeMillis());
+        if (day <= currentDay) {
+            return;
+        }
+        currentDay = day;
+        for (StockStats stock : stats.values()) {
+            synchronized (stock) {
+                if (stock.day < day) {
+                    unindex(stock);
+                    stock.startDay(day, stock.last);
+                    index(stock);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the highest or lowest ranked stocks by one metric.
+     *
+     * @param metric     the metric to rank by
+     * @param exchangeId only rank stocks of this exchange, or null for the whole market
+     * @param ascending  true for the lowest values first, e.g. top losers; false for the highest
+     * @param limit      the number of stocks to return, at most the configured maximum
+     * @return the ranked stocks with their current statistics
+     * @throws IllegalArgumentException if the limit is not between 1 and the configured maximum
+     */
+    public List<ScreenerEntry> top(Metric metric, Long exchangeId, boolean ascending, int limit) {
+        if (limit < 1 || limit > maxResults) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxResults);
+        }
+        Rankings rankings = exchangeId != null ? byExchange.get(exchangeId) : market;
+        if (rankings == null) {
+            return List.of();
+        }
+        NavigableSet<Ranked> ranked = rankings.of(metric);
+        Iterator<Ranked> it = ascending ? ranked.iterator() : ranked.descendingIterator();
+        List<ScreenerEntry> entries = new ArrayList<>(limit);
+        while (it.hasNext() && entries.size() < limit) {
+            StockStats stock = stats.get(it.next().stockId());
+            if (stock != null) {
+                synchronized (stock) {
+                    entries.add(stock.toEntry());
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void apply(Long stockId, List<PricePoint> ticks) {
+        StockStats stock = stats.get(stockId);
+        if (stock == null) {
+            // Stocks created by bulk inserts and imports are picked up on their first price write
+            stockRepository.findById(stockId).ifPresent(this::track);
+            stock = stats.get(stockId);
+            if (stock == null) {
+                return;
+            }
+        }
+        synchronized (stock) {
+            unindex(stock);
+            for (PricePoint tick : ticks) {
+                long day = dayOf(tick.getTimestamp());
+                if (day > stock.day) {
+                    stock.startDay(day, tick.getPrice());
+                } else if (day < stock.day) {
+                    continue;
+                }
+                stock.high = Math.max(stock.high, tick.getPrice());
+                stock.low = Math.min(stock.low, tick.getPrice());
+                stock.volume += tick.getVolume();
+                if (tick.getTimestamp() >= stock.lastTimestamp) {
+                    stock.last = tick.getPrice();
+                    stock.lastTimestamp = tick.getTimestamp();
+                }
+            }
+            index(stock);
+        }
+    }
+
+    private void index(StockStats stock) {
+        stock.indexed = new Ranked[]{
+                new Ranked(stock.changePercent(), stock.stockId),
+                new Ranked(stock.rangePercent(), stock.stockId),
+                new Ranked(stock.volume, stock.stockId)};
+        stock.indexedExchangeId = stock.exchangeId;
+        market.add(stock.indexed);
+        if (stock.exchangeId != null) {
+            byExchange.computeIfAbsent(stock.exchangeId, id -> new Rankings()).add(stock.indexed);
+        }
+    }
+
+    private void unindex(StockStats stock) {
+        if (stock.indexed == null) {
+            return;
+        }
+        market.remove(stock.indexed);
+        if (stock.indexedExchangeId != null) {
+            Rankings rankings = byExchange.get(stock.indexedExchangeId);
+            if (rankings != null) {
+                rankings.remove(stock.indexed);
+            }
+        }
+        stock.indexed = null;
+    }
+
+    private static long dayOf(long timestamp) {
+        return ChartInterval.ONE_DAY.bucketStart(timestamp);
+    }
+
+    private static Long exchangeIdOf(Stock stock) {
+        return stock.getExchange() != null ? stock.getExchange().getId() : null;
+    }
+
+    /**
+     * One sorted set per metric. Entries are passed as arrays indexed by {@link Metric#ordinal()}.
+     */
+    private static class Rankings {
+
+        private final Map<Metric, ConcurrentSkipListSet<Ranked>> sets = new EnumMap<>(Metric.class);
+
+        Rankings() {
+            for (Metric metric : Metric.values()) {
+                sets.put(metric, new ConcurrentSkipListSet<>(RANKING));
+            }
+        }
+
+        NavigableSet<Ranked> of(Metric metric) {
+            return sets.get(metric);
+        }
+
+        void add(Ranked[] values) {
+            for (Metric metric : Metric.values()) {
+                sets.get(metric).add(values[metric.ordinal()]);
+            }
+        }
+
+        void remove(Ranked[] values) {
+            for (Metric metric : Metric.values()) {
+                sets.get(metric).remove(values[metric.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Intraday statistics of one stock. Guarded by its own monitor; the entries it is currently
+     * indexed under are kept so that they can be removed exactly.
+     */
+    private static class StockStats {
+
+        private final long stockId;
+        private String name;
+        private Long exchangeId;
+        private long day;
+        private double open;
+        private double high;
+        private double low;
+        private double last;
+        private long lastTimestamp;
+        private long volume;
+        private Ranked[] indexed;
+        private Long indexedExchangeId;
+
+        StockStats(long stockId, String name, Long exchangeId, long day, double price) {
+            this.stockId = stockId;
+            this.name = name;
+            this.exchangeId = exchangeId;
+            startDay(day, price);
+        }
+
+        void startDay(long day, double price) {
+            this.day = day;
+            open = price;
+            high = price;
+            low = price;
+            last = price;
+            volume = 0L;
+        }
+
+        double changePercent() {
+            return open != 0.0 ? (last / open - 1.0) * 100.0 : 0.0;
+        }
+
+        double rangePercent() {
+            return open != 0.0 ? (high - low) / open * 100.0 : 0.0;
+        }
+
+        ScreenerEntry toEntry() {
+            return new ScreenerEntry(stockId, name, exchangeId, last, open, high, low, volume, changePercent(),
+                    rangePercent());
+        }
+    }
+}
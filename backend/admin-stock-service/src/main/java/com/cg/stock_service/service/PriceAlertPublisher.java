@@ -0,0 +1,136 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.client.PriceAlertFeignClient;
+import com.cg.stock_service.client.PriceAlertInstances;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.PriceTick;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports price writes to the price alerts of the Admin User Service in batches.
+ * <p>
+ * Writes are folded per stock into the lowest, highest and last price since the previous
+ * flush, so a threshold crossed and left again between flushes still triggers its alerts, and
+ * the cost of a flush grows with the number of stocks that moved rather than with the number
+ * of ticks. Writers only update a map entry and never wait for the remote call.
+ * <p>
+ * Every instance of the Admin User Service holds its own alerts in memory, so each flush goes to
+ * all registered instances. Every instance has its own backlog of undelivered moves, so an
+ * instance that is down or still loading its alerts gets them later without the others seeing
+ * them twice.
+ */
+@Component
+public class PriceAlertPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceAlertPublisher.class);
+
+    @Autowired
+    private PriceAlertInstances priceAlertInstances;
+
+    @Value("${stock.alerts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stock.alerts.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    private final Map<Long, PriceTick> pending = new ConcurrentHashMap<>();
+
+    // Per instance URI; only touched by flush, which never runs concurrently with itself
+    private final Map<String, Map<Long, PriceTick>> undelivered = new HashMap<>();
+
+    /**
+     * Queues newly written prices of a stock for alert matching. Inside a transaction the
+     * prices are queued after commit, so alerts never fire on a price that is rolled back.
+     *
+     * @param stockId the ID of the stock
+     * @param ticks   the prices written
+     */
+    public void publish(Long stockId, List<PricePoint> ticks) {
+        if (!enabled || ticks.isEmpty()) {
+            return;
+        }
+        PriceTick move = summarize(stockId, ticks);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(stockId, move, PriceAlertPublisher::combine);
+                }
+            });
+        } else {
+            pending.merge(stockId, move, PriceAlertPublisher::combine);
+        }
+    }
+
+    /**
+     * Sends the price moves collected since the previous flush to every instance. Moves an
+     * instance does not accept are kept for it and merged with later ones, so they are retried
+     * with the next flush. While no instance is registered, moves stay pending.
+     */
+    @Scheduled(fixedDelayString = "${stock.alerts.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty() && undelivered.values().stream().allMatch(Map::isEmpty)) {
+            return;
+        }
+        Map<String, PriceAlertFeignClient> instances = priceAlertInstances.clients();
+        undelivered.keySet().retainAll(instances.keySet());
+        if (instances.isEmpty()) {
+            return;
+        }
+        List<PriceTick> moves = new ArrayList<>();
+        for (Long stockId : pending.keySet()) {
+            PriceTick move = pending.remove(stockId);
+            if (move != null) {
+                moves.add(move);
+            }
+        }
+        instances.forEach((uri, client) -> {
+            Map<Long, PriceTick> backlog = undelivered.computeIfAbsent(uri, key -> new HashMap<>());
+            moves.forEach(move -> backlog.merge(move.getStockId(), move, PriceAlertPublisher::combine));
+            send(uri, client, backlog);
+        });
+    }
+
+    private void send(String uri, PriceAlertFeignClient client, Map<Long, PriceTick> backlog) {
+        List<PriceTick> batch = new ArrayList<>(backlog.values());
+        for (int from = 0; from < batch.size(); from += maxBatchSize) {
+            List<PriceTick> chunk = batch.subList(from, Math.min(from + maxBatchSize, batch.size()));
+            try {
+                client.evaluatePrices(chunk);
+            } catch (Exception e) {
+                logger.warn("Could not report {} price moves to price alerts at {}, retrying: {}",
+                        batch.size() - from, uri, e.getMessage());
+                return;
+            }
+            chunk.forEach(move -> backlog.remove(move.getStockId()));
+        }
+    }
+
+    private static PriceTick summarize(Long stockId, List<PricePoint> ticks) {
+        PriceTick move = null;
+        for (PricePoint tick : ticks) {
+            PriceTick single = new PriceTick(stockId, tick.getPrice(), tick.getPrice(), tick.getPrice(), tick.getTimestamp());
+            move = move == null ? single : combine(move, single);
+        }
+        return move;
+    }
+
+    private static PriceTick combine(PriceTick a, PriceTick b) {
+        PriceTick latest = b.getTimestamp() >= a.getTimestamp() ? b : a;
+        return new PriceTick(a.getStockId(), Math.min(a.getLow(), b.getLow()), Math.max(a.getHigh(), b.getHigh()),
+                latest.getLast(), latest.getTimestamp());
+    }
+}
@@ -0,0 +1,339 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.chart.CandleAggregator;
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.dto.BulkWriteResult;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.exception.StockNotFoundException;
+import com.cg.stock_service.model.PriceBar;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.PriceHistoryRepository;
+import com.cg.stock_service.repository.PriceSegmentStore;
+import com.cg.stock_service.repository.StockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service class for recording and reading the price history of stocks.
+ * Every batch of ticks is also folded into the 1m, 1h, 1d and 1w rollup tiers, so charts
+ * read pre-aggregated bars instead of raw ticks.
+ */
+@Service
+public class PriceHistoryService {
+
+    // Rollups are rebuilt in windows of whole weeks so that no bar of any tier spans two windows
+    private static final long REBUILD_WINDOW_MILLIS = 4 * ChartInterval.ONE_WEEK.getMillis();
+
+    @Autowired
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Autowired
+    private PriceBarRepository priceBarRepository;
+
+    @Autowired
+    private PriceSegmentStore priceSegmentStore;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ChartCache chartCache;
+
+    @Autowired
+    private PriceStreamService priceStreamService;
+
+    @Autowired
+    private MarketScreener marketScreener;
+
+    @Autowired
+    private PriceAlertPublisher priceAlertPublisher;
+
+    /**
+     * Appends price ticks to a stock's history and moves the stock's current price to the
+     * newest tick if it is the most recent one recorded; otherwise only the stock's version is
+     * bumped, so that its chart entity tags still change. Once the transaction commits, a new
+     * current price is pushed to live subscribers, and new ticks reach the market screener and
+     * the price alerts. A tick at a timestamp that is already stored replaces it but is not
+     * folded into the rollups again, so replaying a feed does not inflate bar volumes; a
+     * corrected tick reaches the rollups through {@link #rebuildRollups}.
+     *
+     * @param stockId the ID of the stock
+     * @param ticks   the ticks to record, in any order
+     * @return the number of ticks written and the achieved throughput
+     * @throws StockNotFoundException if the stock does not exist
+     * @throws IllegalArgumentException if the tick list is empty or null, or a tick has no
+     *                                  timestamp, a negative or non-finite price or a negative volume
+     */
+    @Transactional
+    public BulkWriteResult recordPrices(Long stockId, List<PricePoint> ticks) {
+        if (ticks == null || ticks.isEmpty()) {
+            throw new IllegalArgumentException("Price list is empty or null");
+        }
+        ticks.forEach(PriceHistoryService::validate);
+        if (!stockRepository.existsById(stockId)) {
+            throw new StockNotFoundException("Stock not found with ID: " + stockId);
+        }
+        long start = System.nanoTime();
+        List<PricePoint> sorted = sortedByTime(ticks);
+
+        Long latest = priceHistoryRepository.findLatestTimestamp(stockId);
+        List<PricePoint> inserted = append(stockId, sorted, latest);
+
+        chartCache.invalidate(stockId);
+        marketScreener.record(stockId, inserted);
+        // Backfilled history is not a price move, so only ticks past the previous latest reach alerts
+        priceAlertPublisher.publish(stockId, latest == null ? sorted
+                : sorted.stream().filter(tick -> tick.getTimestamp() >= latest).toList());
+
+        PricePoint newest = sorted.get(sorted.size() - 1);
+        if (latest == null || newest.getTimestamp() >= latest) {
+            stockRepository.updatePrice(stockId, newest.getPrice());
+            priceStreamService.publish(stockId, newest);
+        } else {
+            stockRepository.incrementVersion(stockId);
+        }
+        return BulkWriteResult.of(sorted.size(), System.nanoTime() - start);
+    }
+
+    private static void validate(PricePoint tick) {
+        if (tick == null) {
+            throw new IllegalArgumentException("Price list contains a null tick");
+        }
+        if (tick.getTimestamp() == null) {
+            throw new IllegalArgumentException("Tick timestamp is required");
+        }
+        if (!Double.isFinite(tick.getPrice()) || tick.getPrice() < 0) {
+            throw new IllegalArgumentException("Tick price must be a finite, non-negative number: " + tick.getPrice());
+        }
+        if (tick.getVolume() < 0) {
+            throw new IllegalArgumentException("Tick volume must not be negative: " + tick.getVolume());
+        }
+    }
+
+    /**
+     * Records the current price of a stock as a tick at the current time.
+     * Used when a price is written through the stock CRUD endpoints.
+     *
+     * @param stockId the ID of the stock
+     * @param price   the new price
+     */
+    @Transactional
+    public void recordCurrentPrice(Long stockId, double price) {
+        PricePoint tick = new PricePoint(System.currentTimeMillis(), price, 0L);
+        List<PricePoint> inserted = append(stockId, List.of(tick), priceHistoryRepository.findLatestTimestamp(stockId));
+        chartCache.invalidate(stockId);
+        marketScreener.record(stockId, inserted);
+        priceAlertPublisher.publish(stockId, List.of(tick));
+        priceStreamService.publish(stockId, tick);
+    }
+
+    /**
+     * Streams the ticks of one stock in {@code [from, to)} in timestamp order.
+     *
+     * @param stockId the ID of the stock
+     * @param from    inclusive lower bound, epoch milliseconds
+     * @param to      exclusive upper bound, epoch milliseconds
+     * @param handler receives each tick
+     */
+    public void streamTicks(Long stockId, long from, long to, PriceHistoryRepository.TickHandler handler) {
+        priceHistoryRepository.streamRange(stockId, from, to, handler);
+    }
+
+    /**
+     * Streams the stored bars of one rollup tier whose buckets start in {@code [from, to)}.
+     * Sealed history is read from the segment files and the rest from the database, so the
+     * handler sees one continuous series.
+     *
+     * @param stockId the ID of the stock
+     * @param tier    the rollup tier to read, one of {@link ChartInterval#rollupTiers()}
+     * @param from    inclusive lower bound, epoch milliseconds
+     * @param to      exclusive upper bound, epoch milliseconds
+     * @param handler receives each bar in bucket order
+     */
+    public void streamBars(Long stockId, ChartInterval tier, long from, long to, PriceBarRepository.BarHandler handler) {
+        long sealedUntil = priceSegmentStore.getSealedUntil(stockId, tier.getCode());
+        if (from < sealedUntil) {
+            priceSegmentStore.streamRange(stockId, tier.getCode(), from, Math.min(to, sealedUntil), handler);
+        }
+        if (to > sealedUntil) {
+            priceBarRepository.streamRange(stockId, tier.getCode(), Math.max(from, sealedUntil), to, handler);
+        }
+    }
+
+    /**
+     * Streams the stored bars of one rollup tier for several stocks at once. Sealed history is
+     * read from each stock's segment files, and the unsealed bars of all stocks with a single
+     * database query, so the cost does not grow with a round trip per stock.
+     *
+     * @param stockIds the IDs of the stocks, at least one
+     * @param tier     the rollup tier to read, one of {@link ChartInterval#rollupTiers()}
+     * @param from     inclusive lower bound, epoch milliseconds
+     * @param to       exclusive upper bound, epoch milliseconds
+     * @param handlers receives the bars of each stock in bucket order, keyed by stock ID
+     */
+    public void streamBars(Collection<Long> stockIds, ChartInterval tier, long from, long to,
+                           Map<Long, ? extends PriceBarRepository.BarHandler> handlers) {
+        Map<Long, Long> sealedUntil = new HashMap<>();
+        long databaseFrom = to;
+        for (Long stockId : stockIds) {
+            long sealed = priceSegmentStore.getSealedUntil(stockId, tier.getCode());
+            sealedUntil.put(stockId, sealed);
+            if (from < sealed) {
+                priceSegmentStore.streamRange(stockId, tier.getCode(), from, Math.min(to, sealed), handlers.get(stockId));
+            }
+            databaseFrom = Math.min(databaseFrom, Math.max(from, sealed));
+        }
+        if (databaseFrom >= to) {
+            return;
+        }
+        // The query starts at the earliest unsealed bar of any stock, so bars other stocks
+        // already read from segments are skipped here
+        priceBarRepository.streamRange(stockIds, tier.getCode(), databaseFrom, to,
+                (stockId, bucketStart, open, high, low, close, volume) -> {
+                    if (bucketStart >= sealedUntil.get(stockId)) {
+                        handlers.get(stockId).onBar(bucketStart, open, high, low, close, volume);
+                    }
+                });
+    }
+
+    /**
+     * Recomputes all rollup tiers of a stock from its raw ticks, e.g. after ticks were
+     * replayed, late ticks arrived for sealed history, or rollups were lost. The bars go back to
+     * the database until the next seal run, and the sealed segments are dropped once the rebuild
+     * commits, so a failed rebuild keeps them. Ticks are processed a few weeks at a time so memory
+     * use does not grow with the length of the history.
+     *
+     * @param stockId the ID of the stock
+     * @return the number of bars written and the achieved throughput
+     * @throws StockNotFoundException if the stock does not exist
+     */
+    @Transactional
+    public BulkWriteResult rebuildRollups(Long stockId) {
+        if (!stockRepository.existsById(stockId)) {
+            throw new StockNotFoundException("Stock not found with ID: " + stockId);
+        }
+        long start = System.nanoTime();
+        priceBarRepository.deleteByStockId(stockId);
+        Long earliest = priceHistoryRepository.findEarliestTimestamp(stockId);
+        Long latest = priceHistoryRepository.findLatestTimestamp(stockId);
+        long written = 0;
+        if (earliest != null && latest != null) {
+            for (long from = ChartInterval.ONE_WEEK.bucketStart(earliest); from <= latest; from += REBUILD_WINDOW_MILLIS) {
+                List<CandleAggregator> aggregators = newTierAggregators();
+                priceHistoryRepository.streamRange(stockId, from, from + REBUILD_WINDOW_MILLIS, (ts, price, volume) -> {
+                    for (CandleAggregator aggregator : aggregators) {
+                        aggregator.onTick(ts, price, volume);
+                    }
+                });
+                written += mergeBars(stockId, aggregators);
+            }
+        }
+        // Until then readers keep getting the sealed range from the old segments
+        afterCommit(() -> priceSegmentStore.deleteStock(stockId));
+        chartCache.invalidate(stockId);
+        return BulkWriteResult.of(written, System.nanoTime() - start);
+    }
+
+    /**
+     * Deletes the ticks, rollups and sealed segments of a stock. Inside a transaction the
+     * history is deleted after commit, so a rolled-back stock delete keeps its history.
+     *
+     * @param stockId the ID of the deleted stock
+     */
+    public void deleteHistory(Long stockId) {
+        afterCommit(() -> removeHistory(stockId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void removeHistory(Long stockId) {
+        priceHistoryRepository.deleteByStockId(stockId);
+        priceBarRepository.deleteByStockId(stockId);
+        priceSegmentStore.deleteStock(stockId);
+        chartCache.invalidate(stockId);
+    }
+
+    private static List<PricePoint> sortedByTime(List<PricePoint> ticks) {
+        List<PricePoint> sorted = new ArrayList<>(ticks);
+        sorted.sort(Comparator.comparingLong(PricePoint::getTimestamp));
+        // The upsert keeps the last tick given for a timestamp, so only that one may reach the rollups
+        List<PricePoint> unique = new ArrayList<>(sorted.size());
+        for (PricePoint tick : sorted) {
+            int last = unique.size() - 1;
+            if (last >= 0 && unique.get(last).getTimestamp().equals(tick.getTimestamp())) {
+                unique.set(last, tick);
+            } else {
+                unique.add(tick);
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Writes ticks and folds the ones at new timestamps into the rollups.
+     *
+     * @return the ticks that were not stored before
+     */
+    private List<PricePoint> append(Long stockId, List<PricePoint> sorted, Long latest) {
+        List<PricePoint> inserted = newTicks(stockId, sorted, latest);
+        priceHistoryRepository.append(stockId, sorted);
+        List<CandleAggregator> aggregators = newTierAggregators();
+        for (PricePoint tick : inserted) {
+            for (CandleAggregator aggregator : aggregators) {
+                aggregator.onTick(tick.getTimestamp(), tick.getPrice(), tick.getVolume());
+            }
+        }
+        mergeBars(stockId, aggregators);
+        return inserted;
+    }
+
+    private List<PricePoint> newTicks(Long stockId, List<PricePoint> sorted, Long latest) {
+        // Only ticks at or before the latest stored one can collide, so a live feed costs no lookup
+        if (latest == null || sorted.get(0).getTimestamp() > latest) {
+            return sorted;
+        }
+        List<Long> candidates = sorted.stream().map(PricePoint::getTimestamp).filter(ts -> ts <= latest).toList();
+        Set<Long> existing = priceHistoryRepository.findExistingTimestamps(stockId, candidates);
+        if (existing.isEmpty()) {
+            return sorted;
+        }
+        return sorted.stream().filter(tick -> !existing.contains(tick.getTimestamp())).toList();
+    }
+
+    private static List<CandleAggregator> newTierAggregators() {
+        return ChartInterval.rollupTiers().stream().map(CandleAggregator::new).toList();
+    }
+
+    private int mergeBars(Long stockId, List<CandleAggregator> aggregators) {
+        List<PriceBar> bars = new ArrayList<>();
+        for (CandleAggregator aggregator : aggregators) {
+            bars.addAll(aggregator.toBars(stockId));
+        }
+        if (!bars.isEmpty()) {
+            priceBarRepository.merge(bars);
+        }
+        return bars.size();
+    }
+}
@@ -0,0 +1,122 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.chart.CandleAggregator;
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.chart.PriceSeries;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.PriceSegmentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Moves cold rollup bars out of MySQL into immutable segment files.
+ * Bars older than the seal age are written to segments per stock and resolution and then
+ * deleted from price_bars. Each segment covers at most one seal window, so a first seal of a
+ * long history never holds more than a window of bars in memory. The cutoff and the windows
+ * are aligned to weeks so that no bar of any tier is split between a segment and the database.
+ * <p>
+ * Sealing is off by default. As sealed bars then exist only in the segment files, it may only be
+ * turned on with {@code stock.segments.dir} on durable storage shared by every instance.
+ */
+@Component
+public class PriceSegmentSealer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceSegmentSealer.class);
+
+    @Autowired
+    private PriceBarRepository priceBarRepository;
+
+    @Autowired
+    private PriceSegmentStore priceSegmentStore;
+
+    @Value("${stock.segments.enabled:false}")
+    private boolean enabled;
+
+    @Value("${stock.segments.seal-after-days:30}")
+    private long sealAfterDays;
+
+    @Value("${stock.segments.window-weeks:4}")
+    private int windowWeeks;
+
+    @PostConstruct
+    void checkSegmentDirectory() {
+        if (enabled && !priceSegmentStore.isConfigured()) {
+            throw new IllegalStateException(
+                    "stock.segments.enabled requires stock.segments.dir on durable storage shared by all instances");
+        }
+    }
+
+    /**
+     * Seals cold bars in the background.
+     */
+    @Scheduled(fixedDelayString = "${stock.segments.seal-interval-ms:3600000}",
+            initialDelayString = "${stock.segments.seal-interval-ms:3600000}")
+    public void scheduledSeal() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sealBefore(ChartInterval.ONE_WEEK.bucketStart(System.currentTimeMillis()
+                    - Duration.ofDays(sealAfterDays).toMillis()));
+        } catch (Exception e) {
+            logger.warn("Sealing price segments failed, cold bars stay in the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Seals every stock's bars that start before the cutoff.
+     *
+     * @param cutoff exclusive end of the range to seal, aligned to a week
+     * @return the number of bars sealed
+     * @throws IOException if a segment cannot be written
+     */
+    public long sealBefore(long cutoff) throws IOException {
+        long sealed = 0;
+        for (ChartInterval tier : ChartInterval.rollupTiers()) {
+            for (Long stockId : priceBarRepository.findStockIdsWithBarsBefore(tier.getCode(), cutoff)) {
+                sealed += seal(stockId, tier, cutoff);
+            }
+        }
+        if (sealed > 0) {
+            logger.info("Sealed {} price bars older than {}", sealed, cutoff);
+        }
+        return sealed;
+    }
+
+    private long seal(long stockId, ChartInterval tier, long cutoff) throws IOException {
+        long coveredFrom = priceSegmentStore.getSealedUntil(stockId, tier.getCode());
+        if (coveredFrom >= cutoff) {
+            return 0;
+        }
+        Long earliest = priceBarRepository.findEarliestBucketStart(stockId, tier.getCode(), coveredFrom, cutoff);
+        if (earliest == null) {
+            return 0;
+        }
+        long windowMillis = Math.max(1, windowWeeks) * ChartInterval.ONE_WEEK.getMillis();
+        long sealed = 0;
+        for (long windowStart = ChartInterval.ONE_WEEK.bucketStart(earliest); windowStart < cutoff; windowStart += windowMillis) {
+            long windowEnd = Math.min(windowStart + windowMillis, cutoff);
+            CandleAggregator aggregator = new CandleAggregator(tier);
+            priceBarRepository.streamRange(stockId, tier.getCode(), Math.max(coveredFrom, windowStart), windowEnd, aggregator);
+            PriceSeries bars = aggregator.toSeries();
+            if (bars.size() == 0) {
+                continue;
+            }
+            // Segments stay contiguous: an empty window is covered by the next segment written
+            priceSegmentStore.write(stockId, tier.getCode(), coveredFrom, windowEnd, bars);
+            // Rows below the sealed boundary are never read again, including late bars for sealed weeks
+            priceBarRepository.deleteBefore(stockId, tier.getCode(), windowEnd);
+            coveredFrom = windowEnd;
+            sealed += bars.size();
+        }
+        return sealed;
+    }
+}
@@ -0,0 +1,280 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.PriceUpdate;
+import com.cg.stock_service.exception.SubscriptionRejectedException;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes live stock prices to subscribed clients as Server-Sent Events.
+ * <p>
+ * Writers publish a price once and it is handed to every subscriber of that stock without
+ * blocking: each subscriber owns a buffer holding at most one pending update per stock, and a
+ * small sender pool drains the buffers onto the connections. A client that falls behind only
+ * ever receives the latest price of each stock, so a slow connection costs neither the writer
+ * nor other clients more than a bounded amount of memory.
+ * <p>
+ * Subscriber and conflation counts are published as {@code stock.stream.*} meters.
+ */
+@Service
+public class PriceStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceStreamService.class);
+
+    private static final String PRICE_EVENT = "price";
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stock.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${stock.stream.max-stocks-per-subscriber:200}")
+    private int maxStocksPerSubscriber;
+
+    @Value("${stock.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${stock.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${stock.stream.sender-queue-capacity:10000}")
+    private int senderQueueCapacity;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Set<Subscriber>> subscribersByStock = new ConcurrentHashMap<>();
+
+    private Executor sender;
+
+    private Counter conflated;
+
+    @PostConstruct
+    void start() {
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senderQueueCapacity), new CustomizableThreadFactory("stock-stream-"));
+        Gauge.builder("stock.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        conflated = meterRegistry.counter("stock.stream.updates.conflated");
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sender instanceof ThreadPoolExecutor executor) {
+            executor.shutdownNow();
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Opens an event stream of price updates for the given stocks. The current price of each
+     * stock is sent first, then every new price as it is committed.
+     *
+     * @param stockIds the IDs of the stocks to follow; unknown IDs are ignored
+     * @return the emitter the caller returns to the client
+     * @throws IllegalArgumentException if no stock or too many stocks are requested
+     * @throws SubscriptionRejectedException if the service already serves its maximum number of subscribers
+     */
+    public SseEmitter subscribe(Collection<Long> stockIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (stockIds != null) {
+            stockIds.stream().filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock ID is required");
+        }
+        if (ids.size() > maxStocksPerSubscriber) {
+            throw new IllegalArgumentException("At most " + maxStocksPerSubscriber + " stocks can be followed at once");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new SubscriptionRejectedException("Too many live price subscribers, try again later");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(ids, emitter);
+        return emitter;
+    }
+
+    Subscriber register(Set<Long> ids, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(ids, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        for (Long id : ids) {
+            subscribersByStock.compute(id, (key, set) -> {
+                Set<Subscriber> target = set != null ? set : ConcurrentHashMap.<Subscriber>newKeySet();
+                target.add(subscriber);
+                return target;
+            });
+        }
+        // Registered before the snapshot is read, so a price committed in between is not lost;
+        // it either overwrites the snapshot in the buffer or follows it
+        long now = System.currentTimeMillis();
+        for (Stock stock : stockRepository.findAllById(ids)) {
+            subscriber.pending.putIfAbsent(stock.getId(), new PriceUpdate(stock.getId(), now, stock.getPrice(), 0L));
+        }
+        schedule(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Publishes a new price of a stock to its subscribers. Inside a transaction the price is
+     * published after commit, so clients never see a price that is rolled back.
+     *
+     * @param stockId the ID of the stock
+     * @param tick    the new price
+     */
+    public void publish(Long stockId, PricePoint tick) {
+        PriceUpdate update = new PriceUpdate(stockId, tick.getTimestamp(), tick.getPrice(), tick.getVolume());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(update);
+                }
+            });
+        } else {
+            deliver(update);
+        }
+    }
+
+    /**
+     * Returns the number of open event streams.
+     *
+     * @return the subscriber count
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Queues a keep-alive comment on every stream, so that idle connections are not closed by
+     * proxies and connections whose client went away are detected and dropped.
+     */
+    @Scheduled(fixedDelayString = "${stock.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    private void deliver(PriceUpdate update) {
+        Set<Subscriber> targets = subscribersByStock.get(update.getStockId());
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            if (subscriber.pending.put(update.getStockId(), update) != null) {
+                conflated.increment();
+            }
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.closed || !subscriber.scheduled.compareAndSet(false, true)) {
+            return; // a drain is already queued or running and will pick up the new update
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // The update stays buffered and goes out with the next publish or heartbeat
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+                for (Long stockId : subscriber.pending.keySet()) {
+                    PriceUpdate update = subscriber.pending.remove(stockId);
+                    if (update != null) {
+                        subscriber.emitter.send(SseEmitter.event().name(PRICE_EVENT).data(update, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Dropping price stream subscriber: {}", e.getMessage());
+                remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+            subscriber.scheduled.set(false);
+            // An update that arrived after the buffer was read but before the flag was cleared found
+            // the drain still scheduled, so it has to be picked up here
+        } while ((!subscriber.pending.isEmpty() || subscriber.heartbeatDue) && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long id : subscriber.stockIds) {
+            subscribersByStock.computeIfPresent(id, (key, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        subscriber.pending.clear();
+    }
+
+    /**
+     * One open event stream and its conflating buffer, holding at most one update per followed stock.
+     */
+    static class Subscriber {
+
+        private final Set<Long> stockIds;
+        private final SseEmitter emitter;
+        private final Map<Long, PriceUpdate> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+
+        Subscriber(Set<Long> stockIds, SseEmitter emitter) {
+            this.stockIds = stockIds;
+            this.emitter = emitter;
+        }
+
+        int pendingCount() {
+            return pending.size();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.exception.InvalidExcelFileException;
+import org.apache.poi.UnsupportedFileFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Streams stock rows out of an .xlsx file using POI's event model.
+ * Rows are handed downstream as raw cell values in bounded chunks, so heap usage does not
+ * grow with the number of rows in the sheet. Mapping and validation happen in later stages.
+ */
+@Component
+public class StockExcelStreamReader {
+
+    public static final int NAME_COLUMN = 0;
+    public static final int PRICE_COLUMN = 1;
+    public static final int EXCHANGE_ID_COLUMN = 2;
+    private static final int COLUMN_COUNT = 3;
+
+    /**
+     * Header row of the upload template, indexed by column. Exports reuse it so that an exported
+     * sheet can be uploaded again.
+     */
+    public static final List<String> TEMPLATE_HEADERS = List.of("Stock Name", "Stock Price", "Stock Exchange ID");
+
+    @Value("${stock.upload.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Reads the first sheet of the given workbook and hands its rows downstream in chunks.
+     * The first row is treated as the template header and skipped. Each row is an array of
+     * cell values indexed by column, with {@code null} for empty cells. Numeric cells carry
+     * their stored value, not the text their number format would display.
+     *
+     * @param file          the .xlsx file on local disk
+     * @param chunkConsumer receives each chunk of at most {@code chunkSize} rows
+     * @return the number of stock rows read
+     * @throws IOException if the file cannot be read
+     * @throws InvalidExcelFileException if the file is not a readable workbook
+     */
+    public long readRows(Path file, Consumer<List<String[]>> chunkConsumer) throws IOException {
+        return readRows(file, chunkConsumer, expectedRows -> { });
+    }
+
+    /**
+     * Reads the first sheet of the given workbook and hands its rows downstream in chunks,
+     * reporting the number of data rows the sheet declares before the first row is read.
+     *
+     * @param file                 the .xlsx file on local disk
+     * @param chunkConsumer        receives each chunk of at most {@code chunkSize} rows
+     * @param expectedRowsListener receives the row count from the sheet's dimension, if present
+     * @return the number of stock rows read
+     * @throws IOException if the file cannot be read
+     * @throws InvalidExcelFileException if the file is not a readable workbook
+     */
+    public long readRows(Path file, Consumer<List<String[]>> chunkConsumer, LongConsumer expectedRowsListener)
+            throws IOException {
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            try (InputStream sheet = sheets.next()) {
+                StockRowHandler handler = new StockRowHandler(chunkConsumer);
+                XMLReader parser = new DimensionFilter(XMLHelper.newXMLReader(), expectedRowsListener);
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, handler, new RawNumberFormatter(), false));
+                parser.parse(new InputSource(sheet));
+                handler.flush();
+                return handler.getRowCount();
+            }
+        } catch (OpenXML4JException | UnsupportedFileFormatException | SAXException | ParserConfigurationException e) {
+            throw new InvalidExcelFileException("Unable to read Excel file: " + e.getMessage());
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows handed downstream per chunk.
+     *
+     * @return the configured chunk size
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Renders numeric cells as their stored value instead of applying the cell's number format.
+     * Display formats would otherwise round ({@code $#,##0}), scale ({@code 0%}), drop signs
+     * ({@code (#,##0.00)}) or use locale separators that no longer parse as the same number.
+     */
+    private static class RawNumberFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            return NumberToTextConverter.toText(value);
+        }
+    }
+
+    /**
+     * Passes sheet events through unchanged, picking up the declared sheet range on the way.
+     * The dimension element precedes the sheet data, so the hint arrives before any rows.
+     */
+    private static class DimensionFilter extends XMLFilterImpl {
+
+        private final LongConsumer expectedRowsListener;
+
+        DimensionFilter(XMLReader parent, LongConsumer expectedRowsListener) {
+            super(parent);
+            this.expectedRowsListener = expectedRowsListener;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if ("dimension".equals(localName) && atts.getValue("ref") != null) {
+                try {
+                    // Row 0 holds the template header, so the last row index is the data row count
+                    expectedRowsListener.accept(CellRangeAddress.valueOf(atts.getValue("ref")).getLastRow());
+                } catch (IllegalArgumentException e) {
+                    // A malformed dimension only costs us the progress estimate
+                }
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    /**
+     * SAX callback that collects the cells of each row and flushes full chunks downstream.
+     */
+    private class StockRowHandler implements SheetContentsHandler {
+
+        private final Consumer<List<String[]>> chunkConsumer;
+        private List<String[]> chunk = new ArrayList<>(chunkSize);
+        private String[] cells;
+        private int currentColumn;
+        private boolean rowHasData;
+        private long rowCount;
+
+        StockRowHandler(Consumer<List<String[]>> chunkConsumer) {
+            this.chunkConsumer = chunkConsumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new String[COLUMN_COUNT];
+            currentColumn = -1;
+            rowHasData = false;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            currentColumn = cellReference != null ? new CellReference(cellReference).getCol() : currentColumn + 1;
+            if (currentColumn < cells.length && formattedValue != null && !formattedValue.isBlank()) {
+                cells[currentColumn] = formattedValue.trim();
+                rowHasData = true;
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || !rowHasData) {
+                return; // header row or trailing formatted-but-empty row
+            }
+            chunk.add(cells);
+            rowCount++;
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+
+        long getRowCount() {
+            return rowCount;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.exception.ExportRejectedException;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Service class for exporting the full stock universe as NDJSON, JSON, CSV or Excel.
+ * Stocks are read through a forward-only database cursor and serialized straight to the
+ * response as they arrive, so memory use does not depend on the number of stocks exported.
+ * As each export holds a connection and a request thread until it finishes, only
+ * {@code maxConcurrent} exports run at once and each is aborted after {@code timeoutMillis}.
+ */
+@Service
+public class StockExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockExportService.class);
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stock.export.flush-interval:1000}")
+    private int flushInterval;
+
+    @Value("${stock.export.xlsx-window-size:100}")
+    private int xlsxWindowSize;
+
+    @Value("${stock.export.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${stock.export.timeout-ms:600000}")
+    private long timeoutMillis;
+
+    private Semaphore exportSlots;
+
+    private static final int ID_COLUMN = 3;
+
+    @PostConstruct
+    void createExportSlots() {
+        exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserves one of the {@code maxConcurrent} export slots without waiting. Every successful
+     * call must be paired with {@link #releaseExportSlot()}.
+     *
+     * @throws ExportRejectedException if all slots are taken
+     */
+    public void acquireExportSlot() {
+        if (!exportSlots.tryAcquire()) {
+            throw new ExportRejectedException("Too many exports in progress, please retry later");
+        }
+    }
+
+    /**
+     * Returns a slot reserved by {@link #acquireExportSlot()}.
+     */
+    public void releaseExportSlot() {
+        exportSlots.release();
+    }
+
+    /**
+     * Output formats of the stock export.
+     */
+    public enum Format {
+        NDJSON("ndjson", "application/x-ndjson"),
+        JSON("json", MediaType.APPLICATION_JSON_VALUE),
+        CSV("csv", "text/csv"),
+        XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+        private final String code;
+        private final String contentType;
+
+        Format(String code, String contentType) {
+            this.code = code;
+            this.contentType = contentType;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public MediaType getMediaType() {
+            return MediaType.parseMediaType(contentType);
+        }
+
+        /**
+         * Looks up a format by its code, e.g. {@code ndjson}.
+         *
+         * @param code the format code
+         * @return the matching format
+         * @throws IllegalArgumentException if no format has this code
+         */
+        public static Format fromCode(String code) {
+            for (Format format : values()) {
+                if (format.code.equalsIgnoreCase(code)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + code);
+        }
+    }
+
+    /**
+     * Writes every stock, optionally only those of one exchange, to the given stream.
+     * Output is flushed and the persistence context cleared every {@code flushInterval}
+     * stocks, so neither the response nor the session accumulates rows. An export still running
+     * after {@code timeoutMillis} is aborted, which closes its cursor and transaction.
+     *
+     * @param format     the output format
+     * @param exchangeId only export stocks of this exchange, or null for all
+     * @param out        the stream to write to; it is flushed but not closed
+     * @return the number of stocks written
+     * @throws IOException if writing to the stream fails, e.g. because the client went away,
+     *                     or the export took longer than {@code timeoutMillis}
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, Long exchangeId, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long deadline = start + timeoutMillis * 1_000_000;
+        long count;
+        try (Stream<Stock> stocks = stockRepository.streamAll(exchangeId)) {
+            Iterator<Stock> rows = stocks.iterator();
+            count = switch (format) {
+                case NDJSON, JSON -> writeJson(format, rows, out, deadline);
+                case CSV -> writeCsv(rows, out, deadline);
+                case XLSX -> writeXlsx(rows, out, deadline);
+            };
+        }
+        out.flush();
+        logger.info("Exported {} stocks as {} in {} ms", count, format.getCode(), (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+
+    /**
+     * Writes one JSON document per line for NDJSON, or a single JSON array.
+     */
+    private long writeJson(Format format, Iterator<Stock> rows, OutputStream out, long deadline) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Stock.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long count = 0;
+        try (SequenceWriter sequence = format == Format.JSON
+                ? writer.writeValuesAsArray(out)
+                : writer.withRootValueSeparator("\n").writeValues(out)) {
+            while (rows.hasNext()) {
+                Stock stock = rows.next();
+                sequence.write(stock);
+                if (release(stock, ++count, deadline)) {
+                    sequence.flush();
+                }
+            }
+        }
+        if (format == Format.NDJSON && count > 0) {
+            out.write('\n');
+        }
+        return count;
+    }
+
+    /**
+     * Writes RFC 4180 CSV with the template's columns followed by the stock ID.
+     */
+    private long writeCsv(Iterator<Stock> rows, OutputStream out, long deadline) throws IOException {
+        // Not closed, as that would close the response stream
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", headers()));
+        writer.write("\r\n");
+        long count = 0;
+        while (rows.hasNext()) {
+            Stock stock = rows.next();
+            writer.write(csvField(stock.getName()));
+            writer.write(',');
+            writer.write(BigDecimal.valueOf(stock.getPrice()).toPlainString());
+            writer.write(',');
+            writer.write(stock.getExchange() != null && stock.getExchange().getId() != null
+                    ? String.valueOf(stock.getExchange().getId()) : "");
+            writer.write(',');
+            writer.write(String.valueOf(stock.getId()));
+            writer.write("\r\n");
+            if (release(stock, ++count, deadline)) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Writes an .xlsx workbook through SXSSF. Only the last {@code xlsxWindowSize} rows are kept
+     * on the heap; older rows are spooled to a compressed temporary file until the workbook is
+     * written out. Stocks beyond the row limit of a sheet continue on a new sheet.
+     */
+    private long writeXlsx(Iterator<Stock> rows, OutputStream out, long deadline) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(xlsxWindowSize);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = newSheet(workbook);
+            int rowIndex = 1;
+            long count = 0;
+            while (rows.hasNext()) {
+                Stock stock = rows.next();
+                if (rowIndex > SpreadsheetVersion.EXCEL2007.getLastRowIndex()) {
+                    sheet = newSheet(workbook);
+                    rowIndex = 1;
+                }
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(StockExcelStreamReader.NAME_COLUMN).setCellValue(stock.getName());
+                row.createCell(StockExcelStreamReader.PRICE_COLUMN).setCellValue(stock.getPrice());
+                if (stock.getExchange() != null && stock.getExchange().getId() != null) {
+                    row.createCell(StockExcelStreamReader.EXCHANGE_ID_COLUMN).setCellValue(stock.getExchange().getId());
+                }
+                row.createCell(ID_COLUMN).setCellValue(stock.getId());
+                release(stock, ++count, deadline);
+            }
+            workbook.write(out);
+            return count;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Sheet newSheet(SXSSFWorkbook workbook) {
+        int number = workbook.getNumberOfSheets() + 1;
+        Sheet sheet = workbook.createSheet(number == 1 ? "Stocks" : "Stocks " + number);
+        Row header = sheet.createRow(0);
+        List<String> headers = headers();
+        for (int column = 0; column < headers.size(); column++) {
+            header.createCell(column).setCellValue(headers.get(column));
+        }
+        return sheet;
+    }
+
+    /**
+     * Detaches an exported stock and, every {@code flushInterval} stocks, clears the session.
+     *
+     * @return true if the caller should flush its output now
+     * @throws InterruptedIOException if the export has run past its deadline
+     */
+    private boolean release(Stock stock, long written, long deadline) throws InterruptedIOException {
+        entityManager.detach(stock);
+        if (written % flushInterval != 0) {
+            return false;
+        }
+        if (System.nanoTime() - deadline > 0) {
+            throw new InterruptedIOException("Export did not finish within " + timeoutMillis + " ms");
+        }
+        // Exchanges and users fetched with the stocks are not detached with them
+        entityManager.clear();
+        return true;
+    }
+
+    private static List<String> headers() {
+        List<String> headers = new ArrayList<>(StockExcelStreamReader.TEMPLATE_HEADERS);
+        headers.add(ID_COLUMN, "Stock ID");
+        return headers;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,376 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.dto.StageThroughput;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockBulkRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Staged import pipeline for Excel stock uploads.
+ * <p>
+ * The calling thread reads the sheet, a pool of validators maps raw rows to stocks and checks
+ * their exchange IDs against the {@link ExchangeCache}, and a pool of writers persists them.
+ * Stages are connected by bounded queues, so a slow stage applies backpressure to the ones
+ * before it instead of letting rows pile up in memory. Each writer persists a chunk in its own
+ * transaction, so a failure part-way through leaves the chunks already committed in place.
+ * <p>
+ * Writers of all running imports share one connection budget, so concurrent upload jobs hold
+ * at most {@code stock.import.max-connections} pooled connections between them and leave the
+ * rest of the pool to request handling.
+ */
+@Component
+public class StockImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockImportPipeline.class);
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    @Autowired
+    private StockExcelStreamReader stockExcelStreamReader;
+
+    @Autowired
+    private StockBulkRepository stockBulkRepository;
+
+    @Autowired
+    private ExchangeCache exchangeCache;
+
+    @Autowired
+    private StockSearchIndex stockSearchIndex;
+
+    @Value("${stock.import.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${stock.import.validator-threads:2}")
+    private int validatorThreads;
+
+    @Value("${stock.import.writer-threads:4}")
+    private int writerThreads;
+
+    @Value("${stock.import.max-connections:4}")
+    private int maxConnections;
+
+    private Semaphore connectionBudget;
+
+    @PostConstruct
+    void createConnectionBudget() {
+        connectionBudget = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Imports all stock rows from the given workbook.
+     *
+     * @param file the .xlsx file on local disk
+     * @return row counts and per-stage throughput
+     * @throws IOException if the file cannot be read
+     */
+    public ImportResult run(Path file) throws IOException {
+        return run(file, new ImportProgress());
+    }
+
+    /**
+     * Imports all stock rows from the given workbook, publishing live counters as it goes.
+     *
+     * @param file     the .xlsx file on local disk
+     * @param progress counters updated while the import runs
+     * @return row counts and per-stage throughput
+     * @throws IOException if the file cannot be read
+     */
+    public ImportResult run(Path file, ImportProgress progress) throws IOException {
+        ImportRun run = new ImportRun(progress);
+        ExecutorService workers = Executors.newFixedThreadPool(validatorThreads + writerThreads,
+                new CustomizableThreadFactory("stock-import-"));
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < validatorThreads; i++) {
+                workers.execute(run::validate);
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                workers.execute(run::write);
+            }
+
+            run.read.begin();
+            try {
+                stockExcelStreamReader.readRows(file, chunk -> {
+                    run.read.add(chunk.size());
+                    progress.addRead(chunk.size());
+                    run.offer(run.rawQueue, chunk);
+                }, progress::setExpectedRows);
+            } finally {
+                run.read.end();
+                for (int i = 0; i < validatorThreads; i++) {
+                    run.offer(run.rawQueue, Collections.emptyList());
+                }
+            }
+
+            workers.shutdown();
+            while (!workers.awaitTermination(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                run.checkFailure();
+            }
+            run.checkFailure();
+        } catch (PipelineAbortedException e) {
+            run.checkFailure();
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stock import interrupted", e);
+        } finally {
+            workers.shutdownNow();
+            // Chunks committed before a failure are searchable too
+            stockSearchIndex.markStale();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        ImportResult result = new ImportResult(run.read.rows(), run.write.rows(), run.rejected.sum(),
+                elapsed / 1_000_000L, perSecond(run.write.rows(), elapsed),
+                List.of(run.read.toThroughput(1), run.validate.toThroughput(validatorThreads),
+                        run.write.toThroughput(writerThreads)));
+        logger.info("Imported {} of {} stock rows ({} rejected) in {} ms", result.getRowsImported(),
+                result.getRowsRead(), result.getRowsRejected(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Maps one raw sheet row to a stock, or returns {@code null} if the row is rejected.
+     *
+     * @param cells the formatted cell values indexed by column
+     * @return the mapped stock, or null if the row is incomplete or invalid
+     */
+    static Stock mapRow(String[] cells) {
+        String name = cells[StockExcelStreamReader.NAME_COLUMN];
+        String price = cells[StockExcelStreamReader.PRICE_COLUMN];
+        String exchangeId = cells[StockExcelStreamReader.EXCHANGE_ID_COLUMN];
+        if (name == null || price == null || exchangeId == null) {
+            return null;
+        }
+        try {
+            Stock stock = new Stock();
+            stock.setName(name);
+            stock.setPrice(parseNumber(price));
+            if (stock.getPrice() < 0) {
+                return null;
+            }
+
+            Exchange exchangeDto = new Exchange();
+            exchangeDto.setId((long) parseNumber(exchangeId));
+            stock.setExchange(exchangeDto);
+            return stock;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private List<Stock> withKnownExchanges(List<Stock> stocks) {
+        Set<Long> unknown = exchangeCache.findUnknownIds(stocks.stream()
+                .map(stock -> stock.getExchange().getId())
+                .toList());
+        if (unknown.isEmpty()) {
+            return stocks;
+        }
+        return stocks.stream()
+                .filter(stock -> !unknown.contains(stock.getExchange().getId()))
+                .toList();
+    }
+
+    private static double parseNumber(String value) {
+        // Numeric cells arrive as their raw value; text that only looks like a number is not guessed at
+        double number = Double.parseDouble(value);
+        if (!Double.isFinite(number)) {
+            throw new NumberFormatException("Not a finite number: " + value);
+        }
+        return number;
+    }
+
+    private static double perSecond(long rows, long elapsedNanos) {
+        return rows / (Math.max(elapsedNanos, 1L) / 1_000_000_000.0);
+    }
+
+    /**
+     * Queues and counters shared by the stages of a single import.
+     * An empty chunk on a queue tells the consuming worker that its input is exhausted.
+     */
+    private class ImportRun {
+
+        private final BlockingQueue<List<String[]>> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<List<Stock>> stockQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicInteger activeValidators = new AtomicInteger(validatorThreads);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final LongAdder rejected = new LongAdder();
+        private final StageMetrics read = new StageMetrics("read");
+        private final StageMetrics validate = new StageMetrics("validate");
+        private final StageMetrics write = new StageMetrics("write");
+        private final ImportProgress progress;
+
+        ImportRun(ImportProgress progress) {
+            this.progress = progress;
+        }
+
+        void validate() {
+            validate.begin();
+            try {
+                List<String[]> rows;
+                while (!(rows = rawQueue.take()).isEmpty()) {
+                    List<Stock> mapped = new ArrayList<>(rows.size());
+                    for (String[] cells : rows) {
+                        Stock stock = mapRow(cells);
+                        if (stock != null) {
+                            mapped.add(stock);
+                        }
+                    }
+                    List<Stock> stocks = withKnownExchanges(mapped);
+                    rejected.add(rows.size() - stocks.size());
+                    progress.addRejected(rows.size() - stocks.size());
+                    validate.add(rows.size());
+                    if (!stocks.isEmpty()) {
+                        offer(stockQueue, stocks);
+                    }
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                validate.end();
+                if (activeValidators.decrementAndGet() == 0) {
+                    for (int i = 0; i < writerThreads; i++) {
+                        offerQuietly(stockQueue, Collections.emptyList());
+                    }
+                }
+            }
+        }
+
+        void write() {
+            write.begin();
+            try {
+                List<Stock> stocks;
+                while (!(stocks = stockQueue.take()).isEmpty()) {
+                    acquireConnection();
+                    try {
+                        stockBulkRepository.insertAll(stocks);
+                    } finally {
+                        connectionBudget.release();
+                    }
+                    write.add(stocks.size());
+                    progress.addImported(stocks.size());
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                write.end();
+            }
+        }
+
+        <T> void offer(BlockingQueue<T> queue, T item) {
+            try {
+                while (!queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (failure.get() != null) {
+                        throw new PipelineAbortedException();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PipelineAbortedException();
+            }
+        }
+
+        private void acquireConnection() throws InterruptedException {
+            while (!connectionBudget.tryAcquire(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new PipelineAbortedException();
+                }
+            }
+        }
+
+        private <T> void offerQuietly(BlockingQueue<T> queue, T item) {
+            try {
+                offer(queue, item);
+            } catch (PipelineAbortedException e) {
+                // writers are already shutting down
+            }
+        }
+
+        private void fail(Throwable t) {
+            if (!(t instanceof PipelineAbortedException) && !(t instanceof InterruptedException)) {
+                failure.compareAndSet(null, t);
+            }
+        }
+
+        void checkFailure() {
+            Throwable t = failure.get();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else if (t != null) {
+                throw new IllegalStateException("Stock import failed", t);
+            }
+        }
+    }
+
+    /**
+     * Row count and active time window of one pipeline stage across all of its workers.
+     */
+    private static class StageMetrics {
+
+        private final String stage;
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong();
+
+        StageMetrics(String stage) {
+            this.stage = stage;
+        }
+
+        void begin() {
+            firstStart.accumulateAndGet(System.nanoTime(), Math::min);
+        }
+
+        void end() {
+            lastEnd.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+
+        void add(long count) {
+            rows.add(count);
+        }
+
+        long rows() {
+            return rows.sum();
+        }
+
+        StageThroughput toThroughput(int workers) {
+            long elapsed = Math.max(lastEnd.get() - firstStart.get(), 0L);
+            return new StageThroughput(stage, workers, rows(), elapsed / 1_000_000L, perSecond(rows(), elapsed));
+        }
+    }
+
+    /**
+     * Thrown inside a stage when another stage has failed and the import is being abandoned.
+     */
+    private static class PipelineAbortedException extends RuntimeException {
+        PipelineAbortedException() {
+            super("Stock import aborted", null, false, false);
+        }
+    }
+}
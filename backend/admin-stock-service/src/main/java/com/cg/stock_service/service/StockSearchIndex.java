@@ -0,0 +1,416 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.dto.StockSuggestion;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Typeahead search over stock names and exchange names.
+ * <p>
+ * Names are split into lowercase words, and every word of every stock is kept in one sorted map
+ * keyed by the word followed by the stock ID. All stocks with a word starting with a prefix are
+ * then one contiguous range of that map, found in O(log n), which makes the map an edge n-gram
+ * index without storing the n-grams. A query matches a stock when each of its words is a prefix
+ * of a word of the stock's name or of its exchange's name. Candidates are read from the range of
+ * one query word, at most a configured number of them, and ranked: exact name first, then names
+ * starting with the query, then names whose first word starts with the first query word, then
+ * the rest; shorter names first within each group.
+ * <p>
+ * The index is loaded from the stocks at startup and kept in sync by the single-stock writes in
+ * {@link StockService}. Bulk inserts and imports mark it stale instead, and it is reloaded in the
+ * background.
+ */
+@Component
+public class StockSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockSearchIndex.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final IndexedExchange NO_EXCHANGE = new IndexedExchange(null, new String[0]);
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::rank)
+            .thenComparingInt((Match match) -> match.stock().normalizedName().length())
+            .thenComparing(match -> match.stock().normalizedName())
+            .thenComparingLong(match -> match.stock().stockId());
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ExchangeCache exchangeCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${stock.search.max-results:50}")
+    private int maxResults;
+
+    @Value("${stock.search.max-candidates:2000}")
+    private int maxCandidates;
+
+    @Value("${stock.search.max-query-length:100}")
+    private int maxQueryLength;
+
+    private volatile Postings postings = new Postings();
+
+    private final Map<Long, IndexedExchange> exchanges = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Single-stock writes made while a rebuild runs, replayed onto the rebuilt index; a null value
+     * is a removal. Null when no rebuild runs. Guarded by this.
+     */
+    private Map<Long, IndexedStock> writesDuringRebuild;
+
+    /**
+     * A stock as indexed: its name split into words and its exchange.
+     */
+    record IndexedStock(long stockId, String name, String normalizedName, String[] words, Long exchangeId,
+                        IndexedExchange exchange) {
+
+        StockSuggestion toSuggestion() {
+            return new StockSuggestion(stockId, name, exchangeId, exchange.name());
+        }
+    }
+
+    /**
+     * An exchange name and its words.
+     */
+    record IndexedExchange(String name, String[] words) {
+    }
+
+    private record Match(IndexedStock stock, int rank) {
+    }
+
+    /**
+     * Loads every stock once the application is ready to serve requests.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            stale.set(true);
+            logger.warn("Could not load stock search index, retrying in the background: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads the index if bulk writes have marked it stale since the last load.
+     */
+    @Scheduled(fixedDelayString = "${stock.search.refresh-check-ms:5000}")
+    @Transactional(readOnly = true)
+    public void refreshIfStale() {
+        if (!stale.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            stale.set(true);
+            logger.warn("Stock search index reload failed, keeping the current index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the index from all stocks and swaps it in; searches keep using the old index until
+     * then. Must run inside a transaction, because the stocks are streamed.
+     */
+    void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                writesDuringRebuild = new HashMap<>();
+            }
+            Postings rebuilt = new Postings();
+            try {
+                // Exchange names are re-read so that renamed exchanges are picked up
+                exchanges.clear();
+                try (Stream<Stock> stocks = stockRepository.streamAll(null)) {
+                    stocks.forEach(stock -> {
+                        if (stock.getId() != null && stock.getName() != null) {
+                            rebuilt.add(toIndexed(stock));
+                        }
+                        entityManager.detach(stock);
+                    });
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    writesDuringRebuild = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                writesDuringRebuild.forEach((stockId, stock) -> {
+                    rebuilt.remove(stockId);
+                    if (stock != null) {
+                        rebuilt.add(stock);
+                    }
+                });
+                writesDuringRebuild = null;
+                postings = rebuilt;
+            }
+            logger.info("Stock search index loaded {} stocks", rebuilt.size());
+        }
+    }
+
+    /**
+     * Indexes a new stock, or re-indexes a known one under its current name and exchange.
+     *
+     * @param stock the saved stock
+     */
+    public void put(Stock stock) {
+        if (stock == null || stock.getId() == null || stock.getName() == null) {
+            return;
+        }
+        IndexedStock indexed = toIndexed(stock);
+        synchronized (this) {
+            postings.remove(indexed.stockId());
+            postings.add(indexed);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(indexed.stockId(), indexed);
+            }
+        }
+    }
+
+    /**
+     * Drops a deleted stock from the index.
+     *
+     * @param stockId the ID of the stock
+     */
+    public synchronized void remove(Long stockId) {
+        if (stockId == null) {
+            return;
+        }
+        postings.remove(stockId);
+        if (writesDuringRebuild != null) {
+            writesDuringRebuild.put(stockId, null);
+        }
+    }
+
+    /**
+     * Schedules a reload of the index, e.g. after stocks were written in bulk without IDs being
+     * known here.
+     */
+    public void markStale() {
+        stale.set(true);
+    }
+
+    /**
+     * Returns the number of indexed stocks.
+     *
+     * @return the stock count
+     */
+    public int size() {
+        return postings.size();
+    }
+
+    /**
+     * Finds the stocks best matching a typed query.
+     *
+     * @param query      the typed text; each word is matched as a prefix of a word of the stock
+     *                   or exchange name, ignoring case and punctuation
+     * @param exchangeId only return stocks of this exchange, or null for the whole market
+     * @param limit      the number of stocks to return, at most the configured maximum
+     * @return the best matches, best first
+     * @throws IllegalArgumentException if the query has no letter or digit or is too long, or the
+     *                                  limit is not between 1 and the configured maximum
+     */
+    public List<StockSuggestion> search(String query, Long exchangeId, int limit) {
+        if (limit < 1 || limit > maxResults) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxResults);
+        }
+        if (query == null || query.length() > maxQueryLength) {
+            throw new IllegalArgumentException("Query must be at most " + maxQueryLength + " characters");
+        }
+        String[] terms = words(query);
+        if (terms.length == 0) {
+            throw new IllegalArgumentException("Query must contain a letter or digit");
+        }
+        String normalizedQuery = String.join(" ", terms);
+        List<Match> matches = new ArrayList<>();
+        Predicate<IndexedStock> inExchange = stock -> exchangeId == null || exchangeId.equals(stock.exchangeId());
+        for (IndexedStock stock : postings.candidates(seedTerm(terms), inExchange, maxCandidates)) {
+            int rank = rank(stock, terms, normalizedQuery);
+            if (rank >= 0) {
+                matches.add(new Match(stock, rank));
+            }
+        }
+        matches.sort(RANKING);
+        return matches.stream().limit(limit).map(match -> match.stock().toSuggestion()).toList();
+    }
+
+    /**
+     * Picks the query word whose range is read for candidates. A word that matches no exchange
+     * name is preferred, because then its range holds every match; among those the longest word,
+     * because its range is the narrowest.
+     */
+    private String seedTerm(String[] terms) {
+        String seed = null;
+        boolean seedNameOnly = false;
+        for (String term : terms) {
+            boolean nameOnly = exchanges.values().stream().noneMatch(exchange -> startsAny(exchange.words(), term));
+            if (seed == null || nameOnly && !seedNameOnly
+                    || nameOnly == seedNameOnly && term.length() > seed.length()) {
+                seed = term;
+                seedNameOnly = nameOnly;
+            }
+        }
+        return seed;
+    }
+
+    /**
+     * Ranks a candidate against the query, lower is better, or returns -1 if it does not match.
+     */
+    private static int rank(IndexedStock stock, String[] terms, String normalizedQuery) {
+        boolean allInName = true;
+        for (String term : terms) {
+            if (!startsAny(stock.words(), term)) {
+                if (!startsAny(stock.exchange().words(), term)) {
+                    return -1;
+                }
+                allInName = false;
+            }
+        }
+        if (stock.normalizedName().equals(normalizedQuery)) {
+            return 0;
+        }
+        if (stock.normalizedName().startsWith(normalizedQuery)) {
+            return 1;
+        }
+        return allInName && stock.words()[0].startsWith(terms[0]) ? 2 : 3;
+    }
+
+    private static boolean startsAny(String[] words, String prefix) {
+        for (String word : words) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private IndexedStock toIndexed(Stock stock) {
+        String[] words = words(stock.getName());
+        Long exchangeId = stock.getExchange() != null ? stock.getExchange().getId() : null;
+        return new IndexedStock(stock.getId(), stock.getName(), String.join(" ", words), words, exchangeId,
+                exchangeOf(exchangeId));
+    }
+
+    private IndexedExchange exchangeOf(Long exchangeId) {
+        if (exchangeId == null) {
+            return NO_EXCHANGE;
+        }
+        IndexedExchange cached = exchanges.get(exchangeId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Exchange exchange = exchangeCache.getExchange(exchangeId);
+            if (exchange != null && exchange.getName() != null) {
+                IndexedExchange indexed = new IndexedExchange(exchange.getName(), words(exchange.getName()));
+                exchanges.put(exchangeId, indexed);
+                return indexed;
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Could not resolve exchange {} for the search index: {}", exchangeId, e.getMessage());
+        }
+        return NO_EXCHANGE;
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits.
+     */
+    static String[] words(String text) {
+        return NON_WORD.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * The indexed stocks and their words. Updated in place by single-stock writes and replaced
+     * as a whole by rebuilds.
+     */
+    private static class Postings {
+
+        private final Map<Long, IndexedStock> stocks = new ConcurrentHashMap<>();
+
+        private final ConcurrentSkipListMap<String, Long> words = new ConcurrentSkipListMap<>();
+
+        void add(IndexedStock stock) {
+            stocks.put(stock.stockId(), stock);
+            Arrays.stream(stock.words()).distinct().forEach(word -> words.put(key(word, stock.stockId()), stock.stockId()));
+        }
+
+        void remove(long stockId) {
+            IndexedStock removed = stocks.remove(stockId);
+            if (removed != null) {
+                Arrays.stream(removed.words()).distinct().forEach(word -> words.remove(key(word, stockId)));
+            }
+        }
+
+        int size() {
+            return stocks.size();
+        }
+
+        /**
+         * Returns the stocks accepted by the filter with a word starting with the prefix, reading
+         * at most {@code max} words of accepted stocks; words of other stocks are skipped without
+         * counting. The separator sorts before every letter and digit, so stocks with the prefix
+         * as a whole word are read first.
+         */
+        Collection<IndexedStock> candidates(String prefix, Predicate<IndexedStock> filter, int max) {
+            Map<Long, IndexedStock> found = new LinkedHashMap<>();
+            int read = 0;
+            for (Long stockId : words.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                IndexedStock stock = stocks.get(stockId);
+                if (stock == null || !filter.test(stock)) {
+                    continue;
+                }
+                if (++read > max) {
+                    break;
+                }
+                found.putIfAbsent(stockId, stock);
+            }
+            return found.values();
+        }
+
+        private static String key(String word, long stockId) {
+            return word + KEY_SEPARATOR + stockId;
+        }
+    }
+}
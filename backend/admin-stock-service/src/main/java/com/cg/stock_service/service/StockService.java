@@ -1,27 +1,51 @@
 package com.cg.stock_service.service;
 
-import com.cg.stock_service.client.AdminExchangeFeignClient;
+import com.cg.stock_service.chart.CandleAggregator;
+import com.cg.stock_service.chart.ChartDownsampler;
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.chart.PriceSeries;
+import com.cg.stock_service.chart.SeriesAligner;
+import com.cg.stock_service.dto.BulkWriteResult;
+import com.cg.stock_service.dto.ChartOverlay;
+import com.cg.stock_service.dto.ComparisonSeries;
 import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.dto.KeysetPage;
+import com.cg.stock_service.dto.StockChart;
+import com.cg.stock_service.dto.StockComparison;
 import com.cg.stock_service.exception.InvalidExchangeIdException;
 import com.cg.stock_service.exception.StockNotFoundException;
-import com.cg.stock_service.exception.TemplateGenerationException;
+import com.cg.stock_service.indicator.Indicator;
+import com.cg.stock_service.indicator.Indicators;
 import com.cg.stock_service.model.Stock;
-import com.cg.stock_service.dto.StockPerformance;
+import com.cg.stock_service.repository.PriceHistoryRepository;
+import com.cg.stock_service.repository.StockBulkRepository;
 import com.cg.stock_service.repository.StockRepository;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service class for managing stock data.
@@ -35,26 +59,149 @@ public class StockService {
     private StockRepository stockRepository;
 
     @Autowired
-    private AdminExchangeFeignClient adminExchangeFeignClient;
+    private ExchangeCache exchangeCache;
+
+    @Autowired
+    private StockBulkRepository stockBulkRepository;
+
+    @Autowired
+    private StockImportPipeline stockImportPipeline;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Autowired
+    private ChartCache chartCache;
+
+    @Autowired
+    private MarketScreener marketScreener;
+
+    @Autowired
+    private StockSearchIndex stockSearchIndex;
+
+    @Value("${stock.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${stock.listing.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${stock.compare.max-stocks:50}")
+    private int maxCompareStocks;
 
     /**
-     * Retrieves all stocks from the repository.
+     * Retrieves one page of stocks in ID order, optionally filtered.
+     * Pages are read by seeking past the cursor on the primary key rather than with an offset,
+     * so every page costs the same and rows inserted meanwhile do not shift later pages.
      *
-     * @return a list of all stocks
+     * @param cursor     the ID after which the page starts, or null for the first page
+     * @param limit      the page size, or null for the default; capped at the configured maximum
+     * @param exchangeId only return stocks of this exchange, or null for all
+     * @param minPrice   only return stocks priced at least this, or null
+     * @param maxPrice   only return stocks priced at most this, or null
+     * @param namePrefix only return stocks whose name starts with this, or null
+     * @return the stocks of the page and the cursor of the next one
+     * @throws IllegalArgumentException if the limit is not positive or the price range is empty
      */
-    public List<Stock> getAllStocks() {
-        return stockRepository.findAll();
+    public KeysetPage<Stock> getStocksPage(Long cursor, Integer limit, Long exchangeId, Double minPrice,
+                                           Double maxPrice, String namePrefix) {
+        int pageSize = limit != null ? Math.min(limit, maxPageSize) : defaultPageSize;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice must not exceed maxPrice");
+        }
+        List<Stock> rows = stockRepository.findPage(cursor, exchangeId, minPrice, maxPrice,
+                prefixPattern(namePrefix), PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, Stock::getId);
+    }
+
+    private static String prefixPattern(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
     }
 
     /**
-     * Saves a list of stocks to the repository.
+     * Returns a weak entity tag for one page of stocks. It is a digest of the IDs and versions
+     * on the page and of its next cursor, so it costs nothing beyond reading the page and only
+     * changes when a row enters, leaves or is updated within it, not on writes elsewhere.
+     *
+     * @param page the page returned by {@link #getStocksPage}
+     * @return the entity tag of the page
+     */
+    public String getStocksPageETag(KeysetPage<Stock> page) {
+        StringBuilder validator = new StringBuilder();
+        for (Stock stock : page.getItems()) {
+            validator.append(stock.getId()).append(':').append(stock.getVersion()).append(',');
+        }
+        validator.append(page.getNextCursor());
+        return weakETag(DigestUtils.md5DigestAsHex(validator.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns a weak entity tag for a single stock, computed from its version column alone.
+     *
+     * @param id the ID of the stock
+     * @return the entity tag, or empty if the stock does not exist
+     */
+    public Optional<String> getStockETag(Long id) {
+        return stockRepository.findVersionById(id).map(version -> weakETag(id + "-" + version));
+    }
+
+    /**
+     * Returns a weak entity tag for a chart request, built from persisted data only so that every
+     * instance agrees on it: the stock's version, which every price write bumps, and the time of
+     * its latest tick. For the default range ending now it also changes whenever the range moves
+     * to a new bucket.
+     *
+     * @param stockId  the ID of the stock
+     * @param interval the candle width code
+     * @param from     inclusive start in epoch milliseconds, or null for the interval's default range
+     * @param to       exclusive end in epoch milliseconds, or null for now
+     * @return the entity tag of the chart
+     * @throws IllegalArgumentException if the interval is invalid
+     */
+    public String getChartETag(Long stockId, String interval, Long from, Long to) {
+        ChartInterval chartInterval = ChartInterval.fromCode(interval);
+        String tag = stockId + "-" + stockRepository.findVersionById(stockId).orElse(0L)
+                + "-" + priceHistoryRepository.findLatestTimestamp(stockId);
+        if (from == null && to == null) {
+            long start = System.currentTimeMillis() - chartInterval.getDefaultSpanMillis();
+            tag += "-" + chartInterval.bucketStart(start);
+        }
+        return weakETag(tag);
+    }
+
+    private static String weakETag(String value) {
+        return "W/\"" + value + "\"";
+    }
+
+    /**
+     * Saves a list of stocks to the repository using batched JDBC inserts.
      *
      * @param stockList the list of stocks to save
+     * @return the number of rows written and the achieved throughput
      * @throws IllegalArgumentException if the stock list is empty or null
+     * @throws InvalidExchangeIdException if any stock references an unknown exchange
      */
-    public void saveAll(List<Stock> stockList) {
+    public BulkWriteResult saveAll(List<Stock> stockList) {
         if (stockList != null && !stockList.isEmpty()) {
-            stockRepository.saveAll(stockList);
+            Set<Long> unknownExchangeIds = exchangeCache.findUnknownIds(stockList.stream()
+                    .map(stock -> stock.getExchange() != null ? stock.getExchange().getId() : null)
+                    .toList());
+            if (!unknownExchangeIds.isEmpty()) {
+                throw new InvalidExchangeIdException("Invalid Exchange ID(s): " + unknownExchangeIds);
+            }
+            BulkWriteResult result = stockBulkRepository.insertAll(stockList);
+            stockSearchIndex.markStale();
+            logger.info("Bulk saved {} stocks in {} ms ({} rows/sec)",
+                    result.getRowsWritten(), result.getElapsedMillis(), Math.round(result.getRowsPerSecond()));
+            return result;
         } else {
             throw new IllegalArgumentException("Stock list is empty or null");
         }
@@ -70,6 +217,20 @@ public class StockService {
         return stockRepository.findById(id);
     }
 
+    /**
+     * Retrieves many stocks by their IDs.
+     *
+     * @param ids the IDs of the stocks to retrieve
+     * @return a map of stock ID to stock; IDs that do not exist are omitted
+     */
+    public Map<Long, Stock> getStocksByIds(Collection<Long> ids) {
+        Map<Long, Stock> stocks = new LinkedHashMap<>();
+        for (Stock stock : stockRepository.findAllById(ids)) {
+            stocks.put(stock.getId(), stock);
+        }
+        return stocks;
+    }
+
     /**
      * Adds a new stock to the repository.
      *
@@ -78,9 +239,13 @@ public class StockService {
      * @throws InvalidExchangeIdException if the exchange ID is invalid
      */
     public Stock addStock(Stock stock) {
-        Exchange exchange = adminExchangeFeignClient.getExchangeById(stock.getExchange().getId());
+        Exchange exchange = exchangeCache.getExchange(stock.getExchange().getId());
         if (exchange != null) {
             Stock newStock = stockRepository.save(stock);
+            chartCache.invalidate(newStock.getId());
+            marketScreener.track(newStock);
+            stockSearchIndex.put(newStock);
+            recordPrice(newStock);
             return newStock;
         } else {
             throw new InvalidExchangeIdException("Invalid Exchange ID: " + stock.getExchange().getId());
@@ -89,19 +254,34 @@ public class StockService {
 
     /**
      * Updates an existing stock in the repository.
+     * A stock sent with a version is only written if that version is still current; without one,
+     * the update applies to whatever version is stored. A new price is appended to the price
+     * history; edits that leave the price as it was record no tick.
      *
      * @param id    the ID of the stock to update
      * @param stock the stock data to update
      * @return the updated stock
      * @throws StockNotFoundException if the stock does not exist
      * @throws InvalidExchangeIdException if the exchange ID is invalid
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the sent version is stale
      */
     public Stock updateStock(Long id, Stock stock) {
         if (stockRepository.existsById(id)) {
-            Exchange exchange = adminExchangeFeignClient.getExchangeById(stock.getExchange().getId());
+            Exchange exchange = exchangeCache.getExchange(stock.getExchange().getId());
             if (exchange != null) {
                 stock.setId(id);
-                return stockRepository.save(stock);
+                if (stock.getVersion() == null) {
+                    stockRepository.findVersionById(id).ifPresent(stock::setVersion);
+                }
+                Double previousPrice = stockRepository.findPriceById(id).orElse(null);
+                Stock updatedStock = stockRepository.save(stock);
+                chartCache.invalidate(id);
+                marketScreener.track(updatedStock);
+                stockSearchIndex.put(updatedStock);
+                if (previousPrice == null || Double.compare(previousPrice, updatedStock.getPrice()) != 0) {
+                    recordPrice(updatedStock);
+                }
+                return updatedStock;
             } else {
                 throw new InvalidExchangeIdException("Invalid Exchange ID: " + stock.getExchange().getId());
             }
@@ -111,7 +291,18 @@ public class StockService {
     }
 
     /**
-     * Deletes a stock from the repository by its ID.
+     * Appends the price of a freshly written stock to its price history.
+     *
+     * @param stock the saved stock
+     */
+    private void recordPrice(Stock stock) {
+        if (stock != null && stock.getId() != null) {
+            priceHistoryService.recordCurrentPrice(stock.getId(), stock.getPrice());
+        }
+    }
+
+    /**
+     * Deletes a stock from the repository by its ID, together with its price history.
      *
      * @param id the ID of the stock to delete
      * @throws StockNotFoundException if the stock does not exist
@@ -119,6 +310,10 @@ public class StockService {
     public void deleteStock(Long id) {
         if (stockRepository.existsById(id)) {
             stockRepository.deleteById(id);
+            priceHistoryService.deleteHistory(id);
+            chartCache.invalidate(id);
+            marketScreener.untrack(id);
+            stockSearchIndex.remove(id);
         } else {
             throw new StockNotFoundException("Stock not found with ID: " + id);
         }
@@ -136,13 +331,21 @@ public class StockService {
 
     /**
      * Saves stock data from an Excel file.
+     * The upload is spooled to a temporary file and fed through the staged import pipeline,
+     * so parsing, validation and inserts overlap and only a few chunks are in memory at once.
      *
      * @param file the Excel file containing stock data
+     * @return row counts and per-stage throughput of the import
      * @throws IOException if an error occurs while processing the file
      */
-    public void saveExcelData(MultipartFile file) throws IOException {
-        List<Stock> stockList = extractStocksFromExcel(file);
-        stockRepository.saveAll(stockList);
+    public ImportResult saveExcelData(MultipartFile file) throws IOException {
+        Path spooled = Files.createTempFile("stock-upload-", ".xlsx");
+        try {
+            file.transferTo(spooled);
+            return stockImportPipeline.run(spooled);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
     }
 
     /**
@@ -156,72 +359,144 @@ public class StockService {
     }
 
     /**
-     * Generates an Excel template for stock data.
+     * Writes an Excel template for stock data straight to the given stream.
      *
-     * @return a ByteArrayInputStream containing the Excel template
-     * @throws TemplateGenerationException if an error occurs while creating the template
+     * @param out the stream to write the workbook to; it is not closed
+     * @throws IOException if writing to the stream fails
      */
-    public ByteArrayInputStream getTemplateExcelFile() {
+    public void writeTemplateExcelFile(OutputStream out) throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Stock Template");
 
             Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("Stock Name");
-            headerRow.createCell(1).setCellValue("Stock Price");
-            headerRow.createCell(2).setCellValue("Stock Exchange ID");
-
-            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-                workbook.write(out);
-                return new ByteArrayInputStream(out.toByteArray());
+            for (int column = 0; column < StockExcelStreamReader.TEMPLATE_HEADERS.size(); column++) {
+                headerRow.createCell(column).setCellValue(StockExcelStreamReader.TEMPLATE_HEADERS.get(column));
             }
-        } catch (IOException e) {
-            throw new TemplateGenerationException("Error creating Excel template");
+            workbook.write(out);
         }
     }
 
     /**
-     * Extracts stock data from an uploaded Excel file.
+     * Builds OHLCV candles for a stock from the coarsest rollup tier that divides the
+     * requested interval, e.g. weekly candles from daily bars and 5-minute candles from
+     * minute bars.
+     * <p>
+     * Requested indicators are computed over the candle closes in one pass each. Enough
+     * candles before the range are read to warm the indicators up, so the overlays are
+     * defined from the first displayed candle whenever that much history exists. Ranges with
+     * more candles than the client can draw are then reduced on the server with
+     * Largest-Triangle-Three-Buckets downsampling. Results are cached until the stock or its
+     * prices change.
      *
-     * @param file the Excel file containing stock data
-     * @return a list of stocks extracted from the file
-     * @throws IOException if an error occurs while reading the file
-     */
-    private List<Stock> extractStocksFromExcel(MultipartFile file) throws IOException {
-        List<Stock> stockList = new ArrayList<>();
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                Stock stock = new Stock();
-                stock.setName(row.getCell(0).getStringCellValue());
-                stock.setPrice(row.getCell(1).getNumericCellValue());
-
-                // Create Exchange DTO and set exchange ID from the Excel sheet
-                Exchange exchangeDto = new Exchange();
-                exchangeDto.setId((long) row.getCell(2).getNumericCellValue());
-
-                // Map the Exchange DTO to the Stock entity
-                stock.setExchange(exchangeDto);  // Assuming your Stock entity accepts an Exchange DTO
-
-                stockList.add(stock);
-            }
-        }
-        return stockList;
+     * @param stockId    the ID of the stock to chart
+     * @param interval   the candle width code, e.g. {@code 1m}, {@code 1h}, {@code 1d}
+     * @param from       inclusive start in epoch milliseconds, or null for the interval's default range
+     * @param to         exclusive end in epoch milliseconds, or null for now
+     * @param maxPoints  the maximum number of candles to return, or null for all of them
+     * @param indicators indicator specifications such as {@code sma(20),rsi(14)}, or null for none
+     * @return the candles of the stock within the range
+     * @throws StockNotFoundException if the stock does not exist
+     * @throws IllegalArgumentException if the interval, range, point limit or indicators are invalid
+     */
+    public StockChart generateStockChart(Long stockId, String interval, Long from, Long to, Integer maxPoints,
+                                         String indicators) {
+        return chartCache.get(stockId, interval, from, to, maxPoints, indicators,
+                () -> buildStockChart(stockId, interval, from, to, maxPoints, indicators));
     }
 
+    private StockChart buildStockChart(Long stockId, String interval, Long from, Long to, Integer maxPoints,
+                                       String indicators) {
+        Stock stock = stockRepository.findById(stockId).orElseThrow(() ->
+                new StockNotFoundException("Stock not found with ID: " + stockId));
+
+        ChartInterval chartInterval = ChartInterval.fromCode(interval);
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - chartInterval.getDefaultSpanMillis();
+        if (start >= end) {
+            throw new IllegalArgumentException("Chart range start must be before its end");
+        }
+        if (maxPoints != null && maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints must be at least 3");
+        }
+        List<Indicator> overlays = Indicators.parse(indicators);
+
+        // Candles always cover whole buckets, so the range is widened to the first bucket boundary
+        long firstBucket = chartInterval.bucketStart(start);
+        int warmup = overlays.stream().mapToInt(Indicator::getWarmup).max().orElse(0);
+        long readFrom = firstBucket - warmup * chartInterval.getMillis();
+
+        CandleAggregator aggregator = new CandleAggregator(chartInterval);
+        priceHistoryService.streamBars(stockId, chartInterval.rollupTier(), readFrom, end, aggregator);
+        PriceSeries series = aggregator.toSeries();
+
+        int first = series.indexAtOrAfter(firstBucket);
+        List<ChartOverlay> lines = new ArrayList<>();
+        for (Indicator indicator : overlays) {
+            lines.addAll(Indicators.run(indicator, series, first));
+        }
+        PriceSeries visible = series.slice(first, series.size());
+
+        int[] kept = maxPoints != null ? ChartDownsampler.downsample(visible, maxPoints) : null;
+        if (kept != null) {
+            visible = visible.select(kept);
+            lines = lines.stream().map(line -> ChartDownsampler.select(line, kept)).toList();
+        }
+        return visible.toChart(stockId, stock.getName(), chartInterval.getCode(), lines);
+    }
 
     /**
-     * Generates stock performance data for charting based on a stock's ID.
+     * Charts several stocks on a common time axis as percent change against each stock's first
+     * close in the range, for comparing their performance.
+     * <p>
+     * The stocks are loaded with one query and the bars of all of them are read with one range
+     * query, so the cost stays close to that of a single chart rather than one chart per stock.
+     * The candles are then aligned on the union of their timestamps with a k-way merge.
      *
-     * @param stockId the ID of the stock for which to generate performance data
-     * @return a StockPerformance object containing the performance data
-     * @throws StockNotFoundException if the stock does not exist
+     * @param stockIds the IDs of the stocks to compare, in the order to return them
+     * @param interval the candle width code, e.g. {@code 1h}, {@code 1d}
+     * @param from     inclusive start in epoch milliseconds, or null for the interval's default range
+     * @param to       exclusive end in epoch milliseconds, or null for now
+     * @return the aligned series of the stocks
+     * @throws StockNotFoundException if any of the stocks does not exist
+     * @throws IllegalArgumentException if no or too many stocks are given, or the interval or range is invalid
      */
-    public StockPerformance generateStockChart(Long stockId) {
-        Stock stock = stockRepository.findById(stockId).orElseThrow(() ->
-                new StockNotFoundException("Stock not found with ID: " + stockId));
+    public StockComparison compareStocks(List<Long> stockIds, String interval, Long from, Long to) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (stockIds != null) {
+            stockIds.stream().filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock ID is required");
+        }
+        if (ids.size() > maxCompareStocks) {
+            throw new IllegalArgumentException("At most " + maxCompareStocks + " stocks can be compared at once");
+        }
+        ChartInterval chartInterval = ChartInterval.fromCode(interval);
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - chartInterval.getDefaultSpanMillis();
+        if (start >= end) {
+            throw new IllegalArgumentException("Chart range start must be before its end");
+        }
 
-        // Creating StockPerformance for chart generation based on stock details
-        return new StockPerformance(stockId, stock.getName(), stock.getPrice(), stock.getPrice()); // Using the same price for both opening and closing price
+        Map<Long, Stock> stocks = getStocksByIds(ids);
+        if (stocks.size() < ids.size()) {
+            List<Long> missing = ids.stream().filter(id -> !stocks.containsKey(id)).toList();
+            throw new StockNotFoundException("Stocks not found with IDs: " + missing);
+        }
+
+        Map<Long, CandleAggregator> aggregators = new LinkedHashMap<>();
+        for (Long id : ids) {
+            aggregators.put(id, new CandleAggregator(chartInterval));
+        }
+        priceHistoryService.streamBars(ids, chartInterval.rollupTier(), chartInterval.bucketStart(start), end, aggregators);
+
+        List<PriceSeries> series = aggregators.values().stream().map(CandleAggregator::toSeries).toList();
+        long[] axis = SeriesAligner.mergeTimestamps(series);
+        List<ComparisonSeries> aligned = new ArrayList<>(ids.size());
+        int i = 0;
+        for (Long id : ids) {
+            aligned.add(SeriesAligner.percentChange(id, stocks.get(id).getName(), series.get(i++), axis));
+        }
+        return new StockComparison(chartInterval.getCode(), axis, aligned);
     }
 }
@@ -0,0 +1,198 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.dto.UploadJobStatus;
+import com.cg.stock_service.exception.UploadJobNotFoundException;
+import com.cg.stock_service.exception.UploadRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for running Excel uploads in the background.
+ * Uploads are spooled to local disk and imported on a bounded executor, so large files do not
+ * hold a request thread for the duration of the import.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobService.class);
+
+    @Autowired
+    private StockImportPipeline stockImportPipeline;
+
+    @Value("${stock.upload.jobs.max-concurrent:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${stock.upload.jobs.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${stock.upload.jobs.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
+    @Value("${stock.upload.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void startExecutor() {
+        executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("stock-upload-job-"));
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spools the uploaded file to disk and queues it for import.
+     *
+     * @param file the Excel file containing stock data
+     * @return the initial status of the queued job
+     * @throws IOException if the file cannot be spooled to disk
+     * @throws UploadRejectedException if the job queue is full
+     */
+    public UploadJobStatus submit(MultipartFile file) throws IOException {
+        evictExpiredJobs();
+
+        String jobId = UUID.randomUUID().toString();
+        Path spooled = Files.createDirectories(Paths.get(spoolDir)).resolve("stock-upload-" + jobId + ".xlsx");
+        file.transferTo(spooled);
+
+        UploadJob job = new UploadJob(jobId, file.getOriginalFilename(), spooled);
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            Files.deleteIfExists(spooled);
+            throw new UploadRejectedException("Too many uploads in progress, try again later");
+        }
+        return job.toStatus();
+    }
+
+    /**
+     * Retrieves the current status of an upload job.
+     *
+     * @param jobId the ID of the job
+     * @return the job's progress, throughput and ETA
+     * @throws UploadJobNotFoundException if no such job exists or it has expired
+     */
+    public UploadJobStatus getStatus(String jobId) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new UploadJobNotFoundException("Upload job not found with ID: " + jobId);
+        }
+        return job.toStatus();
+    }
+
+    private void runJob(UploadJob job) {
+        job.start();
+        try {
+            job.complete(stockImportPipeline.run(job.spooledFile, job.progress));
+        } catch (Exception e) {
+            logger.error("Upload job {} failed", job.id, e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(job.spooledFile);
+            } catch (IOException e) {
+                logger.warn("Could not delete spooled upload {}", job.spooledFile, e);
+            }
+        }
+    }
+
+    private void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Mutable state of one upload job, written by its worker and read by status requests.
+     */
+    private static class UploadJob {
+
+        private final String id;
+        private final String fileName;
+        private final Path spooledFile;
+        private final Instant submittedAt = Instant.now();
+        private final ImportProgress progress = new ImportProgress();
+        private volatile String state = "QUEUED";
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile Instant finishedAt;
+        private volatile String message;
+        private volatile ImportResult result;
+
+        UploadJob(String id, String fileName, Path spooledFile) {
+            this.id = id;
+            this.fileName = fileName;
+            this.spooledFile = spooledFile;
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            state = "RUNNING";
+        }
+
+        void complete(ImportResult result) {
+            this.result = result;
+            finish("COMPLETED", "Imported " + result.getRowsImported() + " stocks");
+        }
+
+        void fail(String message) {
+            finish("FAILED", message);
+        }
+
+        private void finish(String state, String message) {
+            endNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            this.message = message;
+            this.state = state;
+        }
+
+        UploadJobStatus toStatus() {
+            long processed = progress.getRowsImported();
+            long rejected = progress.getRowsRejected();
+            double rowsPerSecond = 0;
+            long etaSeconds = -1;
+            if (startNanos != 0) {
+                long elapsed = (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+                rowsPerSecond = processed / (Math.max(elapsed, 1L) / 1_000_000_000.0);
+                long remaining = progress.getExpectedRows() - processed - rejected;
+                if (endNanos != 0) {
+                    etaSeconds = 0;
+                } else if (progress.getExpectedRows() >= 0 && rowsPerSecond > 0) {
+                    etaSeconds = (long) Math.ceil(Math.max(remaining, 0) / rowsPerSecond);
+                }
+            }
+            return new UploadJobStatus(id, fileName, state, submittedAt, progress.getExpectedRows(),
+                    progress.getRowsRead(), processed, rejected, rowsPerSecond, etaSeconds, message,
+                    result != null ? result.getStages() : null);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.StockChart;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CandleAggregatorTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    @Test
+    public void testAggregatesTicksIntoCandles() {
+        CandleAggregator aggregator = new CandleAggregator(ChartInterval.FIVE_MINUTES);
+        aggregator.onTick(0L, 10.0, 1L);
+        aggregator.onTick(MINUTE, 12.0, 2L);
+        aggregator.onTick(2 * MINUTE, 9.0, 3L);
+        aggregator.onTick(4 * MINUTE, 11.0, 4L);
+        // gap: the 5-10 minute bucket has no ticks and yields no candle
+        aggregator.onTick(11 * MINUTE, 20.0, 5L);
+
+        StockChart chart = aggregator.toChart(1L, "AAPL");
+
+        assertEquals("5m", chart.getInterval());
+        assertArrayEquals(new long[]{0L, 10 * MINUTE}, chart.getTimestamps());
+        assertArrayEquals(new double[]{10.0, 20.0}, chart.getOpen());
+        assertArrayEquals(new double[]{12.0, 20.0}, chart.getHigh());
+        assertArrayEquals(new double[]{9.0, 20.0}, chart.getLow());
+        assertArrayEquals(new double[]{11.0, 20.0}, chart.getClose());
+        assertArrayEquals(new long[]{10L, 5L}, chart.getVolume());
+    }
+
+    @Test
+    public void testEmptyStreamYieldsEmptyChart() {
+        StockChart chart = new CandleAggregator(ChartInterval.ONE_DAY).toChart(1L, "AAPL");
+
+        assertEquals(0, chart.getTimestamps().length);
+        assertEquals(0, chart.getClose().length);
+    }
+
+    @Test
+    public void testOutOfOrderTickRejected() {
+        CandleAggregator aggregator = new CandleAggregator(ChartInterval.ONE_MINUTE);
+        aggregator.onTick(2 * MINUTE, 10.0, 1L);
+
+        assertThrows(IllegalStateException.class, () -> aggregator.onTick(MINUTE, 11.0, 1L));
+    }
+
+    @Test
+    public void testWeeksStartOnMonday() {
+        // 1970-01-05 was the first Monday after the epoch
+        long monday = 4 * DAY;
+        assertEquals(monday, ChartInterval.ONE_WEEK.bucketStart(monday + 3 * DAY));
+        assertEquals(monday - 7 * DAY, ChartInterval.ONE_WEEK.bucketStart(monday - 1));
+    }
+
+    @Test
+    public void testRollupTierIsCoarsestDivisor() {
+        assertEquals(ChartInterval.ONE_MINUTE, ChartInterval.FIVE_MINUTES.rollupTier());
+        assertEquals(ChartInterval.ONE_HOUR, ChartInterval.ONE_HOUR.rollupTier());
+        assertEquals(ChartInterval.ONE_WEEK, ChartInterval.ONE_WEEK.rollupTier());
+    }
+
+    @Test
+    public void testCombinesFinerBars() {
+        CandleAggregator aggregator = new CandleAggregator(ChartInterval.ONE_HOUR);
+        aggregator.onBar(0L, 10.0, 12.0, 9.0, 11.0, 4L);
+        aggregator.onBar(MINUTE, 11.0, 15.0, 10.0, 14.0, 6L);
+
+        StockChart chart = aggregator.toChart(1L, "AAPL");
+
+        assertArrayEquals(new double[]{10.0}, chart.getOpen());
+        assertArrayEquals(new double[]{15.0}, chart.getHigh());
+        assertArrayEquals(new double[]{9.0}, chart.getLow());
+        assertArrayEquals(new double[]{14.0}, chart.getClose());
+        assertArrayEquals(new long[]{10L}, chart.getVolume());
+    }
+
+    @Test
+    public void testFromCode() {
+        assertEquals(ChartInterval.ONE_HOUR, ChartInterval.fromCode("1h"));
+        assertThrows(IllegalArgumentException.class, () -> ChartInterval.fromCode("2m"));
+    }
+
+    @Test
+    public void testYearOfMinuteTicks() {
+        CandleAggregator aggregator = new CandleAggregator(ChartInterval.ONE_DAY);
+        int minutes = 365 * 24 * 60;
+        for (int i = 0; i < minutes; i++) {
+            aggregator.onTick(i * MINUTE, 100.0 + (i % 1440), 1L);
+        }
+
+        StockChart chart = aggregator.toChart(1L, "AAPL");
+
+        assertEquals(365, chart.getTimestamps().length);
+        assertEquals(100.0, chart.getLow()[0]);
+        assertEquals(1539.0, chart.getHigh()[364]);
+        assertEquals(1440L, chart.getVolume()[100]);
+    }
+}
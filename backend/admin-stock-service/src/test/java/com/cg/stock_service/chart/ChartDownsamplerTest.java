@@ -0,0 +1,85 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.ChartOverlay;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChartDownsamplerTest {
+
+    private static PriceSeries sineSeries(int size, int spikeAt) {
+        long[] timestamps = new long[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 60_000L;
+            close[i] = i == spikeAt ? 500.0 : 100.0 + Math.sin(i / 50.0);
+            volume[i] = i;
+        }
+        return PriceSeries.of(timestamps, close.clone(), close.clone(), close.clone(), close, volume);
+    }
+
+    @Test
+    public void testDownsampleKeepsEndpointsAndLimit() {
+        PriceSeries series = sineSeries(10_000, -1);
+
+        int[] kept = ChartDownsampler.downsample(series, 500);
+
+        assertEquals(500, kept.length);
+        assertEquals(0, kept[0]);
+        assertEquals(9_999, kept[499]);
+        for (int i = 1; i < 500; i++) {
+            assertTrue(kept[i] > kept[i - 1]);
+        }
+    }
+
+    @Test
+    public void testDownsampleKeepsSpike() {
+        PriceSeries series = sineSeries(10_000, 4_321);
+
+        int[] kept = ChartDownsampler.downsample(series, 100);
+
+        assertTrue(Arrays.stream(kept).anyMatch(index -> index == 4_321));
+    }
+
+    @Test
+    public void testDownsampleOfSlice() {
+        PriceSeries slice = sineSeries(10_000, 6_000).slice(5_000, 10_000);
+
+        int[] kept = ChartDownsampler.downsample(slice, 100);
+
+        assertEquals(4_999, kept[99]);
+        assertTrue(Arrays.stream(kept).anyMatch(index -> index == 1_000));
+    }
+
+    @Test
+    public void testOverlaysFollowSelectedCandles() {
+        double[] values = new double[999];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        ChartOverlay overlay = new ChartOverlay("sma(2)", "sma", 1, values);
+        int[] kept = ChartDownsampler.downsample(sineSeries(1_000, -1), 50);
+
+        ChartOverlay selected = ChartDownsampler.select(overlay, kept);
+
+        assertEquals(1, selected.getOffset());
+        assertEquals(49, selected.getValues().length);
+        // Each overlay value is the candle index it was computed at
+        for (int i = 0; i < selected.getValues().length; i++) {
+            assertEquals(kept[i + 1], (int) selected.getValues()[i]);
+        }
+    }
+
+    @Test
+    public void testSmallSeriesNotDownsampled() {
+        assertNull(ChartDownsampler.downsample(sineSeries(50, -1), 100));
+    }
+
+    @Test
+    public void testTooFewPointsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ChartDownsampler.downsample(sineSeries(50, -1), 2));
+    }
+}
@@ -0,0 +1,85 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.StockChart;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceSeriesTest {
+
+    private static PriceSeries series(int size) {
+        long[] timestamps = new long[size];
+        double[] prices = new double[size];
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = i * 1_000L;
+            prices[i] = i;
+            volume[i] = i * 10L;
+        }
+        return PriceSeries.of(timestamps, prices, prices, prices, prices, volume);
+    }
+
+    @Test
+    public void testSliceByTimeSharesWindow() {
+        PriceSeries slice = series(100).sliceByTime(10_500L, 20_000L);
+
+        assertEquals(9, slice.size());
+        assertEquals(11_000L, slice.timestamp(0));
+        assertEquals(19.0, slice.close(8));
+        assertEquals(190L, slice.volume(8));
+    }
+
+    @Test
+    public void testNestedSlices() {
+        PriceSeries slice = series(100).slice(10, 90).slice(5, 10);
+
+        assertEquals(5, slice.size());
+        assertEquals(15.0, slice.open(0));
+        assertEquals(2, slice.indexAtOrAfter(17_000L));
+        assertEquals(5, slice.indexAtOrAfter(99_000L));
+        assertEquals(0, slice.indexAtOrAfter(0L));
+    }
+
+    @Test
+    public void testSliceOutOfRange() {
+        PriceSeries series = series(10);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> series.slice(5, 11));
+        assertThrows(IndexOutOfBoundsException.class, () -> series.slice(6, 5));
+    }
+
+    @Test
+    public void testSelectAndToChartCopyOnlyTheWindow() {
+        PriceSeries slice = series(100).slice(50, 60);
+
+        StockChart chart = slice.select(new int[]{0, 4, 9}).toChart(1L, "AAPL", "1m", List.of());
+
+        assertArrayEquals(new long[]{50_000L, 54_000L, 59_000L}, chart.getTimestamps());
+        assertArrayEquals(new long[]{500L, 540L, 590L}, chart.getVolume());
+        assertEquals(10, slice.toChart(1L, "AAPL", "1m", List.of()).getClose().length);
+    }
+
+    @Test
+    public void testMismatchedColumnsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PriceSeries.of(new long[2], new double[2], new double[2],
+                new double[2], new double[1], new long[2]));
+    }
+
+    @Test
+    public void testAggregatorSeriesSurvivesFurtherTicks() {
+        CandleAggregator aggregator = new CandleAggregator(ChartInterval.ONE_MINUTE);
+        for (int i = 0; i < 300; i++) {
+            aggregator.onTick(i * 60_000L, i, 1L);
+        }
+        PriceSeries snapshot = aggregator.toSeries();
+        for (int i = 300; i < 600; i++) {
+            aggregator.onTick(i * 60_000L, i, 1L);
+        }
+
+        assertEquals(300, snapshot.size());
+        assertEquals(299.0, snapshot.close(299));
+        assertEquals(600, aggregator.toSeries().size());
+    }
+}
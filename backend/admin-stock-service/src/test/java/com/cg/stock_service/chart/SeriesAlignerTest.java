@@ -0,0 +1,47 @@
+package com.cg.stock_service.chart;
+
+import com.cg.stock_service.dto.ComparisonSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeriesAlignerTest {
+
+    private static PriceSeries closes(long[] timestamps, double... close) {
+        return PriceSeries.of(timestamps, close.clone(), close.clone(), close.clone(), close, new long[close.length]);
+    }
+
+    @Test
+    public void testMergeTimestampsBuildsSortedUnionWithoutDuplicates() {
+        PriceSeries a = closes(new long[]{1L, 3L, 5L}, 1, 1, 1);
+        PriceSeries b = closes(new long[]{2L, 3L, 6L}, 1, 1, 1);
+        PriceSeries c = closes(new long[]{}, new double[0]);
+        PriceSeries d = closes(new long[]{0L, 7L}, 1, 1);
+
+        long[] axis = SeriesAligner.mergeTimestamps(List.of(a, b, c, d));
+
+        assertArrayEquals(new long[]{0L, 1L, 2L, 3L, 5L, 6L, 7L}, axis);
+    }
+
+    @Test
+    public void testPercentChangeFillsGapsWithPreviousValue() {
+        long[] axis = {1L, 2L, 3L, 4L, 5L};
+        PriceSeries series = closes(new long[]{2L, 4L}, 50.0, 60.0);
+
+        ComparisonSeries aligned = SeriesAligner.percentChange(7L, "ACME", series, axis);
+
+        assertEquals(50.0, aligned.getBasePrice());
+        assertEquals(1, aligned.getOffset());
+        assertArrayEquals(new double[]{0.0, 0.0, 20.0, 20.0}, aligned.getChanges(), 1e-9);
+    }
+
+    @Test
+    public void testPercentChangeOfEmptySeries() {
+        ComparisonSeries aligned = SeriesAligner.percentChange(7L, "ACME", PriceSeries.empty(), new long[]{1L, 2L});
+
+        assertEquals(2, aligned.getOffset());
+        assertEquals(0, aligned.getChanges().length);
+    }
+}
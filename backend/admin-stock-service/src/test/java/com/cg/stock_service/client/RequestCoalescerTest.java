@@ -0,0 +1,67 @@
+package com.cg.stock_service.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestCoalescerTest {
+
+    private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+
+    private RequestCoalescer<Long, String> coalescer;
+
+    private Map<Long, String> loadEvenIds(Set<Long> ids) {
+        batches.add(Set.copyOf(ids));
+        Map<Long, String> values = new HashMap<>();
+        ids.stream().filter(id -> id % 2 == 0).forEach(id -> values.put(id, "value-" + id));
+        return values;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        coalescer.close();
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneBatch() {
+        coalescer = new RequestCoalescer<>(this::loadEvenIds, 50, 1000, "test-batch-");
+
+        List<CompletableFuture<String>> futures = IntStream.range(0, 20)
+                .mapToObj(i -> coalescer.submit((long) (i % 10)))
+                .collect(Collectors.toList());
+
+        assertEquals("value-4", futures.get(4).join());
+        assertNull(futures.get(3).join());
+        assertEquals(1, batches.size());
+        assertEquals(10, batches.get(0).size());
+    }
+
+    @Test
+    public void testFullBatchIsFlushedImmediately() {
+        coalescer = new RequestCoalescer<>(this::loadEvenIds, 60_000, 3, "test-batch-");
+
+        coalescer.submit(1L);
+        coalescer.submit(2L);
+        assertEquals("value-4", coalescer.submit(4L).join());
+        assertEquals(List.of(Set.of(1L, 2L, 4L)), batches);
+    }
+
+    @Test
+    public void testLoaderFailureIsPropagated() {
+        coalescer = new RequestCoalescer<>(ids -> {
+            throw new IllegalStateException("service down");
+        }, 1, 10, "test-batch-");
+
+        assertThrows(IllegalStateException.class, () -> coalescer.load(1L));
+    }
+}
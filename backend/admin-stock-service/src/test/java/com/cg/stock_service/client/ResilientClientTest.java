@@ -0,0 +1,208 @@
+package com.cg.stock_service.client;
+
+import com.cg.stock_service.exception.DependencyUnavailableException;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResilientClientTest {
+
+    private static final String SERVICE = "admin-exchange-service";
+
+    private static final Request.Options OPTIONS = new Request.Options(1, TimeUnit.SECONDS, 5, TimeUnit.SECONDS, true);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Request get() {
+        return Request.create(Request.HttpMethod.GET, "http://" + SERVICE + "/exchanges/1", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+    }
+
+    private static Response response(Request request, int status, String reason) {
+        return Response.builder().request(request).status(status).reason(reason).headers(Map.of()).build();
+    }
+
+    private static ResilientClient.Settings settings(int maxConcurrentCalls, long minTimeoutMillis, boolean hedgeEnabled) {
+        return new ResilientClient.Settings(maxConcurrentCalls, 0L, minTimeoutMillis, 5000L, 4, 4, 0.5, 50L,
+                hedgeEnabled, 10L);
+    }
+
+    @Test
+    public void testCircuitOpensOnFailuresAndClosesAfterTrialCall() throws Exception {
+        AtomicInteger status = new AtomicInteger(503);
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            calls.incrementAndGet();
+            return response(request, status.get(), "");
+        };
+        ResilientClient client = new ResilientClient(delegate, settings(10, 100L, false), executor);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(503, client.execute(get(), OPTIONS).status());
+        }
+
+        assertEquals(ResilientClient.CircuitState.OPEN, client.circuitState(SERVICE));
+        assertThrows(DependencyUnavailableException.class, () -> client.execute(get(), OPTIONS));
+        assertEquals(4, calls.get());
+
+        Thread.sleep(60);
+        status.set(200);
+
+        assertEquals(200, client.execute(get(), OPTIONS).status());
+        assertEquals(ResilientClient.CircuitState.CLOSED, client.circuitState(SERVICE));
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void testBulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Client delegate = (request, options) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(request, 200, "");
+        };
+        ResilientClient client = new ResilientClient(delegate, settings(1, 100L, false), executor);
+
+        Future<Response> first = executor.submit(() -> client.execute(get(), OPTIONS));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(DependencyUnavailableException.class, () -> client.execute(get(), OPTIONS));
+        release.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).status());
+        assertEquals(200, client.execute(get(), OPTIONS).status());
+    }
+
+    @Test
+    public void testReadTimeoutFollowsLatency() throws Exception {
+        List<Integer> timeouts = new CopyOnWriteArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            timeouts.add(options.readTimeoutMillis());
+            if (calls.incrementAndGet() == 2) {
+                throw new SocketTimeoutException("Read timed out");
+            }
+            return response(request, 200, "");
+        };
+        ResilientClient client = new ResilientClient(delegate, settings(10, 100L, false), executor);
+
+        client.execute(get(), OPTIONS);
+        assertThrows(SocketTimeoutException.class, () -> client.execute(get(), OPTIONS));
+        client.execute(get(), OPTIONS);
+
+        // Unknown latency: the client's own timeout; fast answers: the lower bound; after a timeout: longer
+        assertEquals(5000, timeouts.get(0));
+        assertEquals(100, timeouts.get(1));
+        assertTrue(timeouts.get(2) > 100);
+    }
+
+    @Test
+    public void testSlowGetIsHedged() throws Exception {
+        CountDownLatch slow = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            int call = calls.incrementAndGet();
+            if (call == 2) {
+                try {
+                    slow.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response(request, 200, "primary");
+            }
+            return response(request, 200, call == 3 ? "hedge" : "");
+        };
+        ResilientClient client = new ResilientClient(delegate, settings(10, 1000L, true), executor);
+        client.execute(get(), OPTIONS);
+
+        Response response = client.execute(get(), OPTIONS);
+
+        assertEquals("hedge", response.reason());
+        assertEquals(3, calls.get());
+        slow.countDown();
+    }
+
+    @Test
+    public void testHedgeIsNotSentWithoutAPermit() throws Exception {
+        CountDownLatch slow = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            int call = calls.incrementAndGet();
+            if (call == 2) {
+                try {
+                    slow.await(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response(request, 200, "primary");
+            }
+            return response(request, 200, "");
+        };
+        ResilientClient client = new ResilientClient(delegate, settings(1, 1000L, true), executor);
+        client.execute(get(), OPTIONS);
+
+        Response response = client.execute(get(), OPTIONS);
+
+        assertEquals("primary", response.reason());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testSlowPrimaryKeepsItsPermitAfterTheHedgeAnswers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch postStarted = new CountDownLatch(1);
+        AtomicInteger gets = new AtomicInteger();
+        Client delegate = (request, options) -> {
+            boolean slow = request.httpMethod() == Request.HttpMethod.POST || gets.incrementAndGet() == 2;
+            if (request.httpMethod() == Request.HttpMethod.POST) {
+                postStarted.countDown();
+            }
+            if (slow) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return response(request, 200, slow ? "slow" : "fast");
+        };
+        ResilientClient client = new ResilientClient(delegate, settings(2, 1000L, true), executor);
+        Request post = Request.create(Request.HttpMethod.POST, "http://" + SERVICE + "/exchanges", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        client.execute(get(), OPTIONS);
+
+        assertEquals("fast", client.execute(get(), OPTIONS).reason());
+
+        // The hedge's permit is back, the slow primary still holds the caller's
+        Future<Response> blocked = executor.submit(() -> client.execute(post, OPTIONS));
+        assertTrue(postStarted.await(5, TimeUnit.SECONDS));
+        assertThrows(DependencyUnavailableException.class, () -> client.execute(post, OPTIONS));
+        release.countDown();
+        assertEquals(200, blocked.get(5, TimeUnit.SECONDS).status());
+    }
+}
@@ -0,0 +1,49 @@
+package com.cg.stock_service.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.openfeign.FeignAutoConfiguration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class FeignTransportConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(FeignAutoConfiguration.class))
+            .withUserConfiguration(FeignTransportConfig.class);
+
+    @Test
+    public void testPublishesMetersOfTheOpenFeignConnectionPool() {
+        contextRunner.withPropertyValues("spring.cloud.openfeign.httpclient.hc5.enabled=true",
+                "spring.cloud.openfeign.httpclient.max-connections=200").run(context -> {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+            context.getBean("feignConnectionPoolMetrics", MeterBinder.class).bindTo(registry);
+
+            assertEquals(200.0, registry.get("httpcomponents.httpclient.pool.total.max")
+                    .tag("httpclient", "feign").gauge().value());
+            assertEquals(0.0, registry.get("httpcomponents.httpclient.pool.total.connections")
+                    .tag("httpclient", "feign").tag("state", "leased").gauge().value());
+        });
+    }
+
+    @Test
+    public void testSkipsConnectionManagersThatDoNotPool() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(FeignTransportConfig.class)
+                .withBean(HttpClientConnectionManager.class, () -> mock(HttpClientConnectionManager.class))
+                .run(context -> {
+                    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+                    context.getBean("feignConnectionPoolMetrics", MeterBinder.class).bindTo(registry);
+
+                    assertTrue(registry.getMeters().isEmpty());
+                });
+    }
+}
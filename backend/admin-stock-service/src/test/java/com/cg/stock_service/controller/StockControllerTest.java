@@ -1,9 +1,28 @@
 package com.cg.stock_service.controller;
 
+import com.cg.stock_service.dto.BulkWriteResult;
+import com.cg.stock_service.dto.ChartOverlay;
+import com.cg.stock_service.dto.ComparisonSeries;
+import com.cg.stock_service.dto.Exchange;
 import com.cg.stock_service.dto.FileUploadResponse;
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.dto.KeysetPage;
+import com.cg.stock_service.dto.ScreenerEntry;
+import com.cg.stock_service.dto.StageThroughput;
+import com.cg.stock_service.dto.UploadJobStatus;
 import com.cg.stock_service.model.Stock;
-import com.cg.stock_service.dto.StockPerformance;
+import com.cg.stock_service.dto.StockChart;
+import com.cg.stock_service.dto.StockComparison;
+import com.cg.stock_service.dto.StockSuggestion;
+import com.cg.stock_service.exception.ExportRejectedException;
+import com.cg.stock_service.exception.SubscriptionRejectedException;
+import com.cg.stock_service.service.MarketScreener;
+import com.cg.stock_service.service.PriceHistoryService;
+import com.cg.stock_service.service.PriceStreamService;
+import com.cg.stock_service.service.StockExportService;
+import com.cg.stock_service.service.StockSearchIndex;
 import com.cg.stock_service.service.StockService;
+import com.cg.stock_service.service.UploadJobService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -11,15 +30,20 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(StockController.class)
@@ -31,20 +55,141 @@ public class StockControllerTest {
     @MockBean
     private StockService stockService;
 
+    @MockBean
+    private UploadJobService uploadJobService;
+
+    @MockBean
+    private PriceHistoryService priceHistoryService;
+
+    @MockBean
+    private StockExportService stockExportService;
+
+    @MockBean
+    private PriceStreamService priceStreamService;
+
+    @MockBean
+    private MarketScreener marketScreener;
+
+    @MockBean
+    private StockSearchIndex stockSearchIndex;
+
+    private static Stock stock(Long id, String name, double price, Long exchangeId) {
+        return new Stock(id, name, price, new Exchange(exchangeId, null), null, null);
+    }
+
     @Test
     public void testGetAllStocks() throws Exception {
-        when(stockService.getAllStocks()).thenReturn(List.of(new Stock(1L, "AAPL", 150.0, 1L)));
+        when(stockService.getStocksPageETag(any())).thenReturn("W/\"1-1-0\"");
+        when(stockService.getStocksPage(null, null, null, null, null, null))
+                .thenReturn(new KeysetPage<>(List.of(stock(1L, "AAPL", 150.0, 1L)), null));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/stocks")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "W/\"1-1-0\""))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$[0].name").value("AAPL"));
     }
 
+    @Test
+    public void testGetAllStocksFilteredPage() throws Exception {
+        when(stockService.getStocksPageETag(any())).thenReturn("W/\"3-6-0\"");
+        when(stockService.getStocksPage(10L, 2, 1L, 100.0, 200.0, "AA"))
+                .thenReturn(new KeysetPage<>(List.of(stock(11L, "AAPL", 150.0, 1L), stock(12L, "AAL", 110.0, 1L)), 12L));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks")
+                        .param("cursor", "10")
+                        .param("limit", "2")
+                        .param("exchangeId", "1")
+                        .param("minPrice", "100")
+                        .param("maxPrice", "200")
+                        .param("namePrefix", "AA")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "12"))
+                .andExpect(jsonPath("$[1].name").value("AAL"));
+    }
+
+    @Test
+    public void testGetAllStocksInvalidLimit() throws Exception {
+        when(stockService.getStocksPage(any(), eq(0), any(), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("limit must be at least 1"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetAllStocksNotModified() throws Exception {
+        KeysetPage<Stock> page = new KeysetPage<>(List.of(stock(1L, "AAPL", 150.0, 1L)), null);
+        when(stockService.getStocksPage(null, null, null, null, null, null)).thenReturn(page);
+        when(stockService.getStocksPageETag(page)).thenReturn("W/\"1-1-0\"");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks")
+                        .header("If-None-Match", "W/\"1-1-0\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testExportStocksStreamsNdjson() throws Exception {
+        when(stockExportService.export(eq(StockExportService.Format.NDJSON), isNull(), any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("{\"id\":1}\n".getBytes());
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/stocks/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=stocks.ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+        verify(stockExportService).acquireExportSlot();
+        verify(stockExportService).releaseExportSlot();
+    }
+
+    @Test
+    public void testExportStocksRejectedWhenTooManyRunning() throws Exception {
+        doThrow(new ExportRejectedException("busy")).when(stockExportService).acquireExportSlot();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/export"))
+                .andExpect(status().isServiceUnavailable());
+
+        verify(stockExportService, never()).export(any(), any(), any());
+        verify(stockExportService, never()).releaseExportSlot();
+    }
+
+    @Test
+    public void testExportStocksAsCsvForExchange() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/stocks/export")
+                        .param("format", "csv")
+                        .param("exchangeId", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=stocks.csv"));
+        verify(stockExportService).export(eq(StockExportService.Format.CSV), eq(7L), any());
+    }
+
+    @Test
+    public void testExportStocksUnknownFormat() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(stockExportService);
+    }
+
     @Test
     public void testGetStockById() throws Exception {
-        Stock stock = new Stock(1L, "AAPL", 150.0, 1L);
+        Stock stock = stock(1L, "AAPL", 150.0, 1L);
         when(stockService.getStockById(anyLong())).thenReturn(Optional.of(stock));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/stocks/1")
@@ -54,9 +199,46 @@ public class StockControllerTest {
                 .andExpect(jsonPath("$.name").value("AAPL"));
     }
 
+    @Test
+    public void testGetStockByIdNotModified() throws Exception {
+        when(stockService.getStockETag(1L)).thenReturn(Optional.of("W/\"1-3\""));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/1")
+                        .header("If-None-Match", "W/\"1-3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        verify(stockService, never()).getStockById(anyLong());
+    }
+
+    @Test
+    public void testGetStockByIdModified() throws Exception {
+        when(stockService.getStockETag(1L)).thenReturn(Optional.of("W/\"1-4\""));
+        when(stockService.getStockById(1L)).thenReturn(Optional.of(stock(1L, "AAPL", 150.0, 1L)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/1")
+                        .header("If-None-Match", "W/\"1-3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1-4\""))
+                .andExpect(jsonPath("$.name").value("AAPL"));
+    }
+
+    @Test
+    public void testGetStocksByIds() throws Exception {
+        when(stockService.getStocksByIds(anyList())).thenReturn(Map.of(1L, stock(1L, "AAPL", 150.0, 1L)));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/stocks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1'].name").value("AAPL"));
+    }
+
     @Test
     public void testAddStock() throws Exception {
-        Stock stock = new Stock(1L, "AAPL", 150.0, 1L);
+        Stock stock = stock(1L, "AAPL", 150.0, 1L);
         when(stockService.addStock(any())).thenReturn(stock);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/stocks")
@@ -70,7 +252,7 @@ public class StockControllerTest {
 
     @Test
     public void testUpdateStock() throws Exception {
-        Stock stock = new Stock(1L, "AAPL", 150.0, 1L);
+        Stock stock = stock(1L, "AAPL", 150.0, 1L);
         when(stockService.updateStock(anyLong(), any())).thenReturn(stock);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/stocks/1")
@@ -84,7 +266,7 @@ public class StockControllerTest {
 
     @Test
     public void testDeleteStock() throws Exception {
-        when(stockService.getStockById(1L)).thenReturn(Optional.of(new Stock(1L, "AAPL", 150.0, 1L)));
+        when(stockService.getStockById(1L)).thenReturn(Optional.of(stock(1L, "AAPL", 150.0, 1L)));
         doNothing().when(stockService).deleteStock(1L);
 
         mockMvc.perform(MockMvcRequestBuilders.delete("/stocks/1"))
@@ -101,7 +283,7 @@ public class StockControllerTest {
 
     @Test
     public void testGetStocksByExchangeId() throws Exception {
-        when(stockService.getStocksByExchangeId(anyLong())).thenReturn(List.of(new Stock(1L, "AAPL", 150.0, 1L)));
+        when(stockService.getStocksByExchangeId(anyLong())).thenReturn(List.of(stock(1L, "AAPL", 150.0, 1L)));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/stocks/exchange/1")
                         .accept(MediaType.APPLICATION_JSON))
@@ -116,32 +298,139 @@ public class StockControllerTest {
         FileUploadResponse response = new FileUploadResponse("File uploaded successfully", 100L);
 
         when(stockService.isValidExcelFile(any())).thenReturn(true);
-        doNothing().when(stockService).saveExcelData(any());
+        ImportResult result = new ImportResult(101L, 100L, 1L, 10L, 10000.0,
+                List.of(new StageThroughput("read", 1, 101L, 5L, 20200.0)));
+        when(stockService.saveExcelData(any())).thenReturn(result);
 
         mockMvc.perform(MockMvcRequestBuilders.multipart("/stocks/upload")
                         .file(file))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("File uploaded successfully"));
+                .andExpect(jsonPath("$.message").value("File uploaded successfully"))
+                .andExpect(jsonPath("$.rowsWritten").value(100))
+                .andExpect(jsonPath("$.rowsRejected").value(1))
+                .andExpect(jsonPath("$.stages[0].stage").value("read"));
+    }
+
+    @Test
+    public void testUploadFileAsync() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "stocks.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "dummy content".getBytes());
+        UploadJobStatus job = new UploadJobStatus();
+        job.setJobId("job-1");
+        job.setState("QUEUED");
+
+        when(stockService.isValidExcelFile(any())).thenReturn(true);
+        when(uploadJobService.submit(any())).thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/stocks/upload")
+                        .file(file)
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("job-1"));
+
+        verify(stockService, never()).saveExcelData(any());
+    }
+
+    @Test
+    public void testRecordPrices() throws Exception {
+        when(priceHistoryService.recordPrices(eq(1L), anyList())).thenReturn(new BulkWriteResult(2L, 1L, 2000.0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/stocks/1/prices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"timestamp\":1700000000000,\"price\":150.0,\"volume\":100},{\"timestamp\":1700000060000,\"price\":151.0,\"volume\":50}]")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsWritten").value(2));
+
+        verify(priceHistoryService).recordPrices(eq(1L), argThat(prices ->
+                prices.size() == 2 && prices.get(1).getPrice() == 151.0));
+    }
+
+    @Test
+    public void testRebuildRollups() throws Exception {
+        when(priceHistoryService.rebuildRollups(1L)).thenReturn(new BulkWriteResult(40L, 3L, 13333.3));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/stocks/1/prices/rollups")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsWritten").value(40));
+    }
+
+    @Test
+    public void testGetUploadJobStatus() throws Exception {
+        UploadJobStatus job = new UploadJobStatus();
+        job.setJobId("job-1");
+        job.setState("RUNNING");
+        job.setRowsProcessed(5000L);
+        when(uploadJobService.getStatus("job-1")).thenReturn(job);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/upload/job-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andExpect(jsonPath("$.rowsProcessed").value(5000));
     }
 
     @Test
     public void testGenerateStockChart() throws Exception {
-        StockPerformance performance = new StockPerformance("AAPL", List.of(150.0, 152.0, 153.5));
-        when(stockService.generateStockChart(anyLong())).thenReturn(performance);
+        StockChart chart = new StockChart(1L, "AAPL", "1h", new long[]{0L, 3_600_000L},
+                new double[]{150.0, 152.0}, new double[]{153.0, 154.0}, new double[]{149.0, 151.5},
+                new double[]{152.0, 153.5}, new long[]{100L, 80L},
+                List.of(new ChartOverlay("sma(2)", "sma", 1, new double[]{152.75})));
+        when(stockService.generateStockChart(1L, "1h", 0L, 7_200_000L, 500, "sma(2)")).thenReturn(chart);
 
         mockMvc.perform(MockMvcRequestBuilders.get("/stocks/1/chart")
+                        .param("interval", "1h")
+                        .param("from", "0")
+                        .param("to", "7200000")
+                        .param("maxPoints", "500")
+                        .param("indicators", "sma(2)")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.stockName").value("AAPL"));
+                .andExpect(jsonPath("$.stockName").value("AAPL"))
+                .andExpect(jsonPath("$.close[1]").value(153.5))
+                .andExpect(jsonPath("$.overlays[0].offset").value(1));
+    }
+
+    @Test
+    public void testGenerateStockChartNotModified() throws Exception {
+        when(stockService.getChartETag(1L, "1h", 0L, 7_200_000L)).thenReturn("W/\"1-4-1700000000000\"");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/1/chart")
+                        .param("interval", "1h")
+                        .param("from", "0")
+                        .param("to", "7200000")
+                        .header("If-None-Match", "W/\"1-4-1700000000000\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        verify(stockService, never()).generateStockChart(anyLong(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGenerateStockChartInvalidInterval() throws Exception {
+        when(stockService.getChartETag(eq(1L), eq("2m"), any(), any()))
+                .thenThrow(new IllegalArgumentException("Unsupported chart interval: 2m"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/1/chart")
+                        .param("interval", "2m")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     public void testDownloadTemplate() throws Exception {
         byte[] templateBytes = "template content".getBytes();
-        when(stockService.getTemplateExcelFile()).thenReturn(new ByteArrayInputStream(templateBytes));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(templateBytes);
+            return null;
+        }).when(stockService).writeTemplateExcelFile(any());
 
-        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/download-template"))
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/stocks/download-template"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", "attachment; filename=template.xlsx"))
                 .andExpect(content().bytes(templateBytes));
@@ -173,13 +462,14 @@ public class StockControllerTest {
 
     @Test
     public void testSaveStockData() throws Exception {
-        doNothing().when(stockService).saveAll(anyList());
+        when(stockService.saveAll(anyList())).thenReturn(new BulkWriteResult(2L, 1L, 2000.0));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/stocks/bulk")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("[{\"name\":\"AAPL\",\"price\":150.0,\"exchangeId\":1},{\"name\":\"GOOGL\",\"price\":2800.0,\"exchangeId\":1}]")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Rows-Written", "2"))
                 .andExpect(content().string("Stocks saved successfully"));
 
         verify(stockService).saveAll(argThat(stocks ->
@@ -188,4 +478,114 @@ public class StockControllerTest {
                         stocks.get(1).getName().equals("GOOGL")
         ));
     }
+
+    @Test
+    public void testStreamPricesOpensEventStream() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        when(priceStreamService.subscribe(List.of(1L, 2L))).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/stocks/stream")
+                        .param("ids", "1,2")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Headers are committed with the first event
+        emitter.send(SseEmitter.event().name("price").data("{}"));
+
+        assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+    }
+
+    @Test
+    public void testStreamPricesTooManyIds() throws Exception {
+        when(priceStreamService.subscribe(anyList())).thenThrow(new IllegalArgumentException("Too many stocks"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/stream")
+                        .param("ids", "1,2")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testStreamPricesAtSubscriberLimit() throws Exception {
+        when(priceStreamService.subscribe(anyList())).thenThrow(new SubscriptionRejectedException("Too many subscribers"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/stream")
+                        .param("ids", "1")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testCompareStocks() throws Exception {
+        when(stockService.compareStocks(List.of(1L, 2L), "1d", null, null)).thenReturn(new StockComparison("1d",
+                new long[]{0L, 86_400_000L}, List.of(new ComparisonSeries(1L, "AAPL", 100.0, 0, new double[]{0.0, 5.0}),
+                new ComparisonSeries(2L, "MSFT", 50.0, 1, new double[]{0.0}))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/compare")
+                        .param("ids", "1,2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timestamps[1]").value(86_400_000L))
+                .andExpect(jsonPath("$.series[0].changes[1]").value(5.0))
+                .andExpect(jsonPath("$.series[1].offset").value(1));
+    }
+
+    @Test
+    public void testCompareStocksTooManyIds() throws Exception {
+        when(stockService.compareStocks(anyList(), anyString(), any(), any())).thenThrow(new IllegalArgumentException("Too many stocks"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/compare")
+                        .param("ids", "1,2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testScreenTopLosersOfExchange() throws Exception {
+        when(marketScreener.top(MarketScreener.Metric.CHANGE, 2L, true, 5)).thenReturn(List.of(
+                new ScreenerEntry(7L, "ACME", 2L, 90.0, 100.0, 101.0, 89.0, 1_000L, -10.0, 12.0)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/screener")
+                        .param("metric", "change")
+                        .param("order", "asc")
+                        .param("exchangeId", "2")
+                        .param("limit", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stockId").value(7))
+                .andExpect(jsonPath("$[0].changePercent").value(-10.0));
+    }
+
+    @Test
+    public void testScreenUnknownMetric() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/screener")
+                        .param("metric", "beta")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(marketScreener, never()).top(any(), any(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    public void testSearchStocks() throws Exception {
+        when(stockSearchIndex.search("app", 1L, 5)).thenReturn(List.of(new StockSuggestion(3L, "Apple Inc", 1L, "NASDAQ")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/search")
+                        .param("q", "app")
+                        .param("exchangeId", "1")
+                        .param("limit", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stockId").value(3))
+                .andExpect(jsonPath("$[0].exchangeName").value("NASDAQ"));
+    }
+
+    @Test
+    public void testSearchStocksInvalidQuery() throws Exception {
+        when(stockSearchIndex.search("--", null, 10)).thenThrow(new IllegalArgumentException("Query must contain a letter or digit"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/stocks/search")
+                        .param("q", "--")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
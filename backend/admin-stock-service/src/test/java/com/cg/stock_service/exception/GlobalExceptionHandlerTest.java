@@ -39,6 +39,24 @@ public class GlobalExceptionHandlerTest {
         assertEquals("Invalid exchange ID", response.getBody());
     }
 
+    @Test
+    public void testHandleUploadJobNotFoundException() {
+        UploadJobNotFoundException exception = new UploadJobNotFoundException("Upload job not found");
+        ResponseEntity<String> response = globalExceptionHandler.handleUploadJobNotFoundException(exception);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Upload job not found", response.getBody());
+    }
+
+    @Test
+    public void testHandleDependencyUnavailableException() {
+        DependencyUnavailableException exception = new DependencyUnavailableException("Circuit breaker of admin-exchange-service is open");
+        ResponseEntity<String> response = globalExceptionHandler.handleDependencyUnavailableException(exception);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Circuit breaker of admin-exchange-service is open", response.getBody());
+    }
+
     @Test
     public void testHandleGeneralException() {
         Exception exception = new Exception("General error");
@@ -0,0 +1,155 @@
+package com.cg.stock_service.indicator;
+
+import com.cg.stock_service.dto.ChartOverlay;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndicatorsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static double[] randomWalk(int size, long seed) {
+        Random random = new Random(seed);
+        double[] series = new double[size];
+        double price = 100.0;
+        for (int i = 0; i < size; i++) {
+            price += random.nextGaussian();
+            series[i] = price;
+        }
+        return series;
+    }
+
+    @Test
+    public void testSimpleMovingAverageMatchesWindowMean() {
+        double[] series = randomWalk(500, 1L);
+        ChartOverlay sma = Indicators.run(new SimpleMovingAverage(20), series, 0).get(0);
+
+        assertEquals(19, sma.getOffset());
+        for (int i = 19; i < series.length; i++) {
+            double sum = 0;
+            for (int j = i - 19; j <= i; j++) {
+                sum += series[j];
+            }
+            assertEquals(sum / 20, sma.getValues()[i - 19], EPSILON);
+        }
+    }
+
+    @Test
+    public void testExponentialMovingAverage() {
+        double[] out = new double[1];
+        ExponentialMovingAverage ema = new ExponentialMovingAverage(3);
+
+        assertFalse(ema.update(1.0, out));
+        assertFalse(ema.update(2.0, out));
+        assertTrue(ema.update(3.0, out));
+        assertEquals(2.0, out[0], EPSILON);
+        assertTrue(ema.update(6.0, out));
+        assertEquals(4.0, out[0], EPSILON);
+    }
+
+    @Test
+    public void testRelativeStrengthIndexBounds() {
+        double[] out = new double[1];
+        RelativeStrengthIndex rsi = new RelativeStrengthIndex(14);
+        for (int i = 0; i < 15; i++) {
+            rsi.update(100.0 + i, out);
+        }
+        assertEquals(100.0, out[0], EPSILON);
+
+        for (double value : randomWalk(1_000, 2L)) {
+            if (rsi.update(value, out)) {
+                assertTrue(out[0] >= 0 && out[0] <= 100);
+            }
+        }
+    }
+
+    @Test
+    public void testMacdHistogramIsLineMinusSignal() {
+        List<ChartOverlay> macd = Indicators.run(new MovingAverageConvergenceDivergence(12, 26, 9),
+                randomWalk(300, 3L), 0);
+
+        assertEquals(List.of("macd", "signal", "histogram"), macd.stream().map(ChartOverlay::getLine).toList());
+        assertEquals(33, macd.get(0).getOffset());
+        for (int i = 0; i < macd.get(0).getValues().length; i++) {
+            assertEquals(macd.get(0).getValues()[i] - macd.get(1).getValues()[i], macd.get(2).getValues()[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void testBollingerBandsMatchTwoPassDeviation() {
+        double[] series = randomWalk(1_000, 4L);
+        for (int i = 0; i < series.length; i++) {
+            series[i] += 1_000_000.0; // a large offset is where a sum-of-squares variance loses precision
+        }
+        List<ChartOverlay> bands = Indicators.run(new BollingerBands(20, 2), series, 0);
+
+        for (int i = 19; i < series.length; i++) {
+            double mean = 0;
+            for (int j = i - 19; j <= i; j++) {
+                mean += series[j] / 20;
+            }
+            double variance = 0;
+            for (int j = i - 19; j <= i; j++) {
+                variance += (series[j] - mean) * (series[j] - mean) / 20;
+            }
+            assertEquals(mean, bands.get(1).getValues()[i - 19], 1e-6);
+            assertEquals(mean + 2 * Math.sqrt(variance), bands.get(0).getValues()[i - 19], 1e-6);
+        }
+    }
+
+    @Test
+    public void testRollingMinMaxMatchesWindowScan() {
+        double[] series = randomWalk(2_000, 5L);
+        List<ChartOverlay> minmax = Indicators.run(new RollingMinMax(30), series, 0);
+
+        for (int i = 29; i < series.length; i++) {
+            double max = Double.NEGATIVE_INFINITY;
+            double min = Double.POSITIVE_INFINITY;
+            for (int j = i - 29; j <= i; j++) {
+                max = Math.max(max, series[j]);
+                min = Math.min(min, series[j]);
+            }
+            assertEquals(max, minmax.get(0).getValues()[i - 29]);
+            assertEquals(min, minmax.get(1).getValues()[i - 29]);
+        }
+    }
+
+    @Test
+    public void testCarriedForwardStateMatchesFullRecompute() {
+        double[] series = randomWalk(400, 6L);
+        Indicator carried = new BollingerBands(20, 2);
+        double[] out = new double[3];
+        for (int i = 0; i < 399; i++) {
+            carried.update(series[i], out);
+        }
+        carried.update(series[399], out);
+
+        List<ChartOverlay> full = Indicators.run(new BollingerBands(20, 2), series, 0);
+        assertEquals(full.get(0).getValues()[full.get(0).getValues().length - 1], out[0], EPSILON);
+    }
+
+    @Test
+    public void testRunReportsFromRequestedIndex() {
+        ChartOverlay sma = Indicators.run(new SimpleMovingAverage(5), randomWalk(100, 7L), 40).get(0);
+
+        assertEquals(0, sma.getOffset());
+        assertEquals(60, sma.getValues().length);
+    }
+
+    @Test
+    public void testParse() {
+        List<Indicator> indicators = Indicators.parse("sma(20), EMA(50),rsi(14),macd(12,26,9),bb(20,2.5),minmax(10)");
+
+        assertEquals(List.of("sma(20)", "ema(50)", "rsi(14)", "macd(12,26,9)", "bb(20,2.5)", "minmax(10)"),
+                indicators.stream().map(Indicator::getName).toList());
+        assertTrue(Indicators.parse(null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Indicators.parse("vwap(10)"));
+        assertThrows(IllegalArgumentException.class, () -> Indicators.parse("sma(20"));
+        assertThrows(IllegalArgumentException.class, () -> Indicators.parse("sma(0)"));
+        assertThrows(IllegalArgumentException.class, () -> Indicators.parse("macd(12,26)"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.cg.stock_service.repository;
+
+import com.cg.stock_service.chart.PriceSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceSegmentStoreTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private PriceSegmentStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new PriceSegmentStore();
+        ReflectionTestUtils.setField(store, "segmentDir", tempDir.toString());
+    }
+
+    private static PriceSeries minuteBars(long fromMinute, int count) {
+        long[] timestamps = new long[count];
+        double[] open = new double[count];
+        double[] high = new double[count];
+        double[] low = new double[count];
+        double[] close = new double[count];
+        long[] volume = new long[count];
+        for (int i = 0; i < count; i++) {
+            long minute = fromMinute + i;
+            timestamps[i] = minute * MINUTE;
+            open[i] = minute;
+            high[i] = minute + 0.5;
+            low[i] = minute - 0.5;
+            close[i] = minute + 0.25;
+            volume[i] = minute * 10;
+        }
+        return PriceSeries.of(timestamps, open, high, low, close, volume);
+    }
+
+    private List<long[]> read(long from, long to) {
+        List<long[]> bars = new ArrayList<>();
+        store.streamRange(1L, "1m", from, to, (ts, open, high, low, close, volume) -> {
+            assertEquals(ts / MINUTE + 0.5, high);
+            assertEquals(ts / MINUTE + 0.25, close);
+            bars.add(new long[]{ts, volume});
+        });
+        return bars;
+    }
+
+    @Test
+    public void testRangeReadAcrossIndexStrides() throws IOException {
+        store.write(1L, "1m", 0L, 10_000 * MINUTE, minuteBars(0, 10_000));
+
+        List<long[]> bars = read(1_234 * MINUTE + 1, 2_000 * MINUTE);
+
+        assertEquals(765, bars.size());
+        assertEquals(1_235 * MINUTE, bars.get(0)[0]);
+        assertEquals(1_999 * MINUTE, bars.get(764)[0]);
+        assertEquals(19_990L, bars.get(764)[1]);
+    }
+
+    @Test
+    public void testReadSpansSegmentsInOrder() throws IOException {
+        store.write(1L, "1m", Long.MIN_VALUE, 1_000 * MINUTE, minuteBars(0, 1_000));
+        store.write(1L, "1m", 1_000 * MINUTE, 2_000 * MINUTE, minuteBars(1_000, 1_000));
+
+        List<long[]> bars = read(900 * MINUTE, 1_100 * MINUTE);
+
+        assertEquals(200, bars.size());
+        for (int i = 1; i < bars.size(); i++) {
+            assertEquals(bars.get(i - 1)[0] + MINUTE, bars.get(i)[0]);
+        }
+        assertEquals(2_000 * MINUTE, store.getSealedUntil(1L, "1m"));
+    }
+
+    @Test
+    public void testNothingSealed() {
+        assertEquals(Long.MIN_VALUE, store.getSealedUntil(1L, "1m"));
+        assertTrue(read(0L, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testSegmentsSurviveReopen() throws IOException {
+        store.write(1L, "1m", 0L, 500 * MINUTE, minuteBars(0, 500));
+
+        setUp();
+
+        assertEquals(500 * MINUTE, store.getSealedUntil(1L, "1m"));
+        assertEquals(500, read(0L, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testDeleteStock() throws IOException {
+        store.write(1L, "1m", 0L, 500 * MINUTE, minuteBars(0, 500));
+        store.write(1L, "1h", 0L, 500 * MINUTE, PriceSeries.empty());
+
+        store.deleteStock(1L);
+
+        assertEquals(Long.MIN_VALUE, store.getSealedUntil(1L, "1m"));
+        assertFalse(Files.exists(tempDir.resolve("1")));
+    }
+
+    @Test
+    public void testWithoutDirectoryNothingIsSealed() {
+        PriceSegmentStore unconfigured = new PriceSegmentStore();
+        ReflectionTestUtils.setField(unconfigured, "segmentDir", "");
+
+        assertFalse(unconfigured.isConfigured());
+        assertEquals(Long.MIN_VALUE, unconfigured.getSealedUntil(1L, "1m"));
+        assertThrows(IllegalStateException.class,
+                () -> unconfigured.write(1L, "1m", Long.MIN_VALUE, 60_000L, minuteBars(0, 1)));
+    }
+}
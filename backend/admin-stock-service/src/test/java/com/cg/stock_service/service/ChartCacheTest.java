@@ -0,0 +1,88 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.ChartOverlay;
+import com.cg.stock_service.dto.StockChart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChartCacheTest {
+
+    private ChartCache chartCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        chartCache = new ChartCache();
+        ReflectionTestUtils.setField(chartCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(chartCache, "maxWeightMb", 1L);
+        ReflectionTestUtils.setField(chartCache, "expireAfterWriteSeconds", 300L);
+        chartCache.buildCache();
+    }
+
+    private static StockChart chart(Long stockId, int candles) {
+        return new StockChart(stockId, "AAPL", "1d", new long[candles], new double[candles], new double[candles],
+                new double[candles], new double[candles], new long[candles], List.of());
+    }
+
+    private StockChart get(Long stockId, String interval) {
+        return chartCache.get(stockId, interval, null, null, null, null, () -> {
+            loads.incrementAndGet();
+            return chart(stockId, 10);
+        });
+    }
+
+    @Test
+    public void testRepeatedRequestIsServedFromCache() {
+        StockChart first = get(1L, "1d");
+        StockChart second = get(1L, "1d");
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "stockCharts").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "stockCharts").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void testDifferentParametersAreSeparateEntries() {
+        get(1L, "1d");
+        get(1L, "1h");
+        chartCache.get(1L, "1d", null, null, 500, null, () -> chart(1L, 5));
+
+        assertEquals(2, loads.get());
+        assertEquals(3, chartCache.size());
+    }
+
+    @Test
+    public void testInvalidateDropsOnlyThatStock() {
+        get(1L, "1d");
+        get(1L, "1h");
+        get(2L, "1d");
+
+        chartCache.invalidate(1L);
+        get(1L, "1d");
+        get(2L, "1d");
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testWeightCountsCandlesAndOverlays() {
+        StockChart chart = chart(1L, 1_000);
+        int bare = ChartCache.weigh(chart);
+        chart.setOverlays(List.of(new ChartOverlay("sma(20)", "sma", 19, new double[981])));
+
+        assertEquals(128 + 48 * 1_000, bare);
+        assertEquals(bare + 64 + 8 * 981, ChartCache.weigh(chart));
+    }
+}
@@ -0,0 +1,131 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.client.AdminExchangeFeignClient;
+import com.cg.stock_service.client.ExchangeBatchLoader;
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.exception.DependencyUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class ExchangeCacheTest {
+
+    @Mock
+    private AdminExchangeFeignClient adminExchangeFeignClient;
+
+    @Mock
+    private ExchangeBatchLoader exchangeBatchLoader;
+
+    @InjectMocks
+    private ExchangeCache exchangeCache;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(exchangeCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(exchangeCache, "maxSize", 100);
+        ReflectionTestUtils.setField(exchangeCache, "refreshPageSize", 500);
+        when(adminExchangeFeignClient.getExchanges(null, 500))
+                .thenReturn(ResponseEntity.ok(List.of(new Exchange(1L, "NYSE"), new Exchange(2L, "NASDAQ"))));
+    }
+
+    @Test
+    public void testRefreshFollowsCursorThroughAllPages() {
+        when(adminExchangeFeignClient.getExchanges(null, 500))
+                .thenReturn(ResponseEntity.ok().header("X-Next-Cursor", "1").body(List.of(new Exchange(1L, "NYSE"))));
+        when(adminExchangeFeignClient.getExchanges(1L, 500))
+                .thenReturn(ResponseEntity.ok(List.of(new Exchange(2L, "NASDAQ"))));
+
+        exchangeCache.refreshAll();
+
+        assertTrue(exchangeCache.isValid(1L));
+        assertTrue(exchangeCache.isValid(2L));
+        verify(adminExchangeFeignClient, times(2)).getExchanges(any(), eq(500));
+        verify(exchangeBatchLoader, never()).getExchangeById(anyLong());
+    }
+
+    @Test
+    public void testWarmedCacheAnswersWithoutRemoteCalls() {
+        exchangeCache.warm();
+
+        assertEquals("NYSE", exchangeCache.getExchange(1L).getName());
+        assertTrue(exchangeCache.isValid(2L));
+        verify(exchangeBatchLoader, never()).getExchangeById(anyLong());
+    }
+
+    @Test
+    public void testMissIsLoadedOnceAndRemembered() {
+        exchangeCache.warm();
+        when(exchangeBatchLoader.getExchangeById(3L)).thenReturn(null);
+
+        assertFalse(exchangeCache.isValid(3L));
+        assertFalse(exchangeCache.isValid(3L));
+
+        verify(exchangeBatchLoader, times(1)).getExchangeById(3L);
+    }
+
+    @Test
+    public void testFindUnknownIdsUsesSingleBatchLookup() {
+        when(exchangeBatchLoader.getExchangesByIds(anyCollection()))
+                .thenReturn(Map.of(1L, new Exchange(1L, "NYSE"), 2L, new Exchange(2L, "NASDAQ")));
+
+        Set<Long> unknown = exchangeCache.findUnknownIds(List.of(1L, 2L, 2L, 7L, 8L, 7L));
+
+        assertEquals(Set.of(7L, 8L), unknown);
+        verify(exchangeBatchLoader, times(1)).getExchangesByIds(Set.of(1L, 2L, 7L, 8L));
+        verify(exchangeBatchLoader, never()).getExchangeById(anyLong());
+
+        // Unknown IDs are remembered, so a second batch needs no remote calls at all
+        assertEquals(Set.of(7L), exchangeCache.findUnknownIds(List.of(1L, 7L)));
+        verify(exchangeBatchLoader, times(1)).getExchangesByIds(anyCollection());
+    }
+
+    @Test
+    public void testEvictsWhenOversized() {
+        ReflectionTestUtils.setField(exchangeCache, "maxSize", 10);
+        for (long id = 100; id < 130; id++) {
+            when(exchangeBatchLoader.getExchangeById(id)).thenReturn(new Exchange(id, "EX" + id));
+            exchangeCache.getExchange(id);
+        }
+
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(exchangeCache, "entries")).size() <= 10);
+    }
+
+    @Test
+    public void testExpiredEntriesServedWhileServiceUnavailable() {
+        exchangeCache.warm();
+        ReflectionTestUtils.setField(exchangeCache, "ttlSeconds", -1L);
+        DependencyUnavailableException unavailable =
+                new DependencyUnavailableException("Circuit breaker of admin-exchange-service is open");
+        when(exchangeBatchLoader.getExchangeById(anyLong())).thenThrow(unavailable);
+        when(exchangeBatchLoader.getExchangesByIds(anyCollection())).thenThrow(unavailable);
+
+        assertEquals("NYSE", exchangeCache.getExchange(1L).getName());
+        assertEquals(Set.of(), exchangeCache.findUnknownIds(List.of(1L, 2L)));
+        // Exchanges never seen before cannot be validated
+        assertThrows(DependencyUnavailableException.class, () -> exchangeCache.getExchange(3L));
+        assertThrows(DependencyUnavailableException.class, () -> exchangeCache.findUnknownIds(List.of(1L, 3L)));
+    }
+
+    @Test
+    public void testOtherFailuresAreNotMaskedByExpiredEntries() {
+        exchangeCache.warm();
+        ReflectionTestUtils.setField(exchangeCache, "ttlSeconds", -1L);
+        when(exchangeBatchLoader.getExchangeById(1L)).thenThrow(new IllegalStateException("Bad response"));
+
+        assertThrows(IllegalStateException.class, () -> exchangeCache.getExchange(1L));
+    }
+}
@@ -0,0 +1,152 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.ScreenerEntry;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.StockRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MarketScreenerTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private PriceBarRepository priceBarRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private MarketScreener marketScreener;
+
+    private long now;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(marketScreener, "maxResults", 10);
+        now = System.currentTimeMillis();
+    }
+
+    private static Stock stock(Long id, Long exchangeId, double price) {
+        Stock stock = new Stock();
+        stock.setId(id);
+        stock.setName("S" + id);
+        stock.setPrice(price);
+        stock.setExchange(new Exchange(exchangeId, "X" + exchangeId));
+        return stock;
+    }
+
+    private void price(Long stockId, double price, long volume) {
+        marketScreener.record(stockId, List.of(new PricePoint(now, price, volume)));
+    }
+
+    private List<Long> ids(List<ScreenerEntry> entries) {
+        return entries.stream().map(ScreenerEntry::getStockId).toList();
+    }
+
+    @Test
+    public void testRanksGainersAndLosersByPercentChange() {
+        marketScreener.track(stock(1L, 1L, 100.0));
+        marketScreener.track(stock(2L, 1L, 100.0));
+        marketScreener.track(stock(3L, 2L, 100.0));
+
+        price(1L, 110.0, 10);
+        price(2L, 95.0, 20);
+        price(3L, 120.0, 5);
+
+        assertEquals(List.of(3L, 1L, 2L), ids(marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 10)));
+        assertEquals(List.of(2L, 1L), ids(marketScreener.top(MarketScreener.Metric.CHANGE, 1L, true, 10)));
+        assertEquals(List.of(2L), ids(marketScreener.top(MarketScreener.Metric.VOLUME, 1L, false, 1)));
+        ScreenerEntry top = marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 1).get(0);
+        assertEquals(20.0, top.getChangePercent(), 1e-9);
+        assertEquals(120.0, top.getPrice());
+    }
+
+    @Test
+    public void testFallingStockLeavesTheTop() {
+        marketScreener.track(stock(1L, 1L, 100.0));
+        marketScreener.track(stock(2L, 1L, 100.0));
+        price(1L, 130.0, 1);
+        price(2L, 110.0, 1);
+
+        price(1L, 90.0, 1);
+
+        assertEquals(List.of(2L), ids(marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 1)));
+        ScreenerEntry volatileStock = marketScreener.top(MarketScreener.Metric.RANGE, null, false, 1).get(0);
+        assertEquals(1L, volatileStock.getStockId());
+        assertEquals(40.0, volatileStock.getRangePercent(), 1e-9);
+    }
+
+    @Test
+    public void testUntrackedStockIsDropped() {
+        marketScreener.track(stock(1L, 1L, 100.0));
+
+        marketScreener.untrack(1L);
+
+        assertTrue(marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 10).isEmpty());
+        assertTrue(marketScreener.top(MarketScreener.Metric.CHANGE, 1L, false, 10).isEmpty());
+    }
+
+    @Test
+    public void testStockMovedToOtherExchange() {
+        marketScreener.track(stock(1L, 1L, 100.0));
+
+        marketScreener.track(stock(1L, 2L, 100.0));
+
+        assertTrue(marketScreener.top(MarketScreener.Metric.CHANGE, 1L, false, 10).isEmpty());
+        assertEquals(List.of(1L), ids(marketScreener.top(MarketScreener.Metric.CHANGE, 2L, false, 10)));
+    }
+
+    @Test
+    public void testUnknownStockIsLoadedOnFirstPrice() {
+        when(stockRepository.findById(5L)).thenReturn(Optional.of(stock(5L, 1L, 50.0)));
+
+        price(5L, 55.0, 1);
+
+        assertEquals(List.of(5L), ids(marketScreener.top(MarketScreener.Metric.CHANGE, 1L, false, 10)));
+    }
+
+    @Test
+    public void testRebuildUsesTodaysDailyBars() {
+        long today = ChartInterval.ONE_DAY.bucketStart(now);
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, 1L, 110.0), stock(2L, 1L, 50.0)));
+        doAnswer(invocation -> {
+            PriceBarRepository.StockBarHandler handler = invocation.getArgument(2);
+            handler.onBar(1L, today, 100.0, 112.0, 99.0, 110.0, 500L);
+            return null;
+        }).when(priceBarRepository).streamBucket(eq("1d"), eq(today), any());
+
+        marketScreener.rebuild();
+
+        ScreenerEntry top = marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 1).get(0);
+        assertEquals(1L, top.getStockId());
+        assertEquals(10.0, top.getChangePercent(), 1e-9);
+        assertEquals(500L, top.getVolume());
+        assertEquals(2, marketScreener.top(MarketScreener.Metric.CHANGE, 1L, false, 10).size());
+    }
+
+    @Test
+    public void testLimitIsValidated() {
+        assertThrows(IllegalArgumentException.class, () -> marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 0));
+        assertThrows(IllegalArgumentException.class, () -> marketScreener.top(MarketScreener.Metric.CHANGE, null, false, 11));
+    }
+}
@@ -0,0 +1,137 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.client.PriceAlertFeignClient;
+import com.cg.stock_service.client.PriceAlertInstances;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.PriceTick;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceAlertPublisherTest {
+
+    @Mock
+    private PriceAlertInstances priceAlertInstances;
+
+    @Mock
+    private PriceAlertFeignClient priceAlertFeignClient;
+
+    @Mock
+    private PriceAlertFeignClient otherInstance;
+
+    @InjectMocks
+    private PriceAlertPublisher priceAlertPublisher;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(priceAlertPublisher, "enabled", true);
+        ReflectionTestUtils.setField(priceAlertPublisher, "maxBatchSize", 1000);
+        when(priceAlertInstances.clients()).thenReturn(Map.of("http://10.0.0.1:8080", priceAlertFeignClient));
+    }
+
+    private void twoInstances() {
+        Map<String, PriceAlertFeignClient> instances = new LinkedHashMap<>();
+        instances.put("http://10.0.0.1:8080", priceAlertFeignClient);
+        instances.put("http://10.0.0.2:8080", otherInstance);
+        when(priceAlertInstances.clients()).thenReturn(instances);
+    }
+
+    @Test
+    public void testFlushSendsLowHighAndLastPerStock() {
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(1_000L, 100.0, 1), new PricePoint(2_000L, 120.0, 1)));
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(3_000L, 90.0, 1)));
+        priceAlertPublisher.publish(2L, List.of(new PricePoint(1_500L, 50.0, 1)));
+
+        priceAlertPublisher.flush();
+
+        verify(priceAlertFeignClient, times(1)).evaluatePrices(argThat((Collection<PriceTick> ticks) -> ticks.size() == 2
+                && ticks.contains(new PriceTick(1L, 90.0, 120.0, 90.0, 3_000L))
+                && ticks.contains(new PriceTick(2L, 50.0, 50.0, 50.0, 1_500L))));
+    }
+
+    @Test
+    public void testNothingToFlushMakesNoCall() {
+        priceAlertPublisher.publish(1L, List.of());
+
+        priceAlertPublisher.flush();
+
+        verifyNoInteractions(priceAlertFeignClient);
+    }
+
+    @Test
+    public void testFailedFlushIsRetriedWithLaterMoves() {
+        doThrow(new RuntimeException("Service unavailable")).doNothing()
+                .when(priceAlertFeignClient).evaluatePrices(any());
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(1_000L, 210.0, 1)));
+        priceAlertPublisher.flush();
+
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(2_000L, 190.0, 1)));
+        priceAlertPublisher.flush();
+
+        verify(priceAlertFeignClient).evaluatePrices(argThat((Collection<PriceTick> ticks) ->
+                ticks.contains(new PriceTick(1L, 190.0, 210.0, 190.0, 2_000L))));
+    }
+
+    @Test
+    public void testDisabledPublisherQueuesNothing() {
+        ReflectionTestUtils.setField(priceAlertPublisher, "enabled", false);
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(1_000L, 210.0, 1)));
+
+        priceAlertPublisher.flush();
+
+        verifyNoInteractions(priceAlertFeignClient);
+    }
+
+    @Test
+    public void testMovesReachEveryInstance() {
+        twoInstances();
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(1_000L, 210.0, 1)));
+
+        priceAlertPublisher.flush();
+
+        PriceTick move = new PriceTick(1L, 210.0, 210.0, 210.0, 1_000L);
+        verify(priceAlertFeignClient).evaluatePrices(argThat((Collection<PriceTick> ticks) -> ticks.contains(move)));
+        verify(otherInstance).evaluatePrices(argThat((Collection<PriceTick> ticks) -> ticks.contains(move)));
+    }
+
+    @Test
+    public void testInstanceNotReadyIsRetriedWithoutResendingToOthers() {
+        twoInstances();
+        doThrow(new RuntimeException("Price alerts are still loading")).doNothing()
+                .when(otherInstance).evaluatePrices(any());
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(1_000L, 210.0, 1)));
+        priceAlertPublisher.flush();
+
+        priceAlertPublisher.flush();
+
+        verify(priceAlertFeignClient, times(1)).evaluatePrices(any());
+        verify(otherInstance, times(2)).evaluatePrices(argThat((Collection<PriceTick> ticks) ->
+                ticks.contains(new PriceTick(1L, 210.0, 210.0, 210.0, 1_000L))));
+    }
+
+    @Test
+    public void testMovesWaitForAnInstanceToRegister() {
+        when(priceAlertInstances.clients()).thenReturn(Map.of());
+        priceAlertPublisher.publish(1L, List.of(new PricePoint(1_000L, 210.0, 1)));
+        priceAlertPublisher.flush();
+
+        when(priceAlertInstances.clients()).thenReturn(Map.of("http://10.0.0.1:8080", priceAlertFeignClient));
+        priceAlertPublisher.flush();
+
+        verify(priceAlertFeignClient).evaluatePrices(argThat((Collection<PriceTick> ticks) ->
+                ticks.contains(new PriceTick(1L, 210.0, 210.0, 210.0, 1_000L))));
+    }
+}
@@ -0,0 +1,244 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.dto.BulkWriteResult;
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.exception.StockNotFoundException;
+import com.cg.stock_service.model.PriceBar;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.PriceHistoryRepository;
+import com.cg.stock_service.repository.PriceSegmentStore;
+import com.cg.stock_service.repository.StockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceHistoryServiceTest {
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private PriceBarRepository priceBarRepository;
+
+    @Mock
+    private PriceSegmentStore priceSegmentStore;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ChartCache chartCache;
+
+    @Mock
+    private PriceStreamService priceStreamService;
+
+    @Mock
+    private MarketScreener marketScreener;
+
+    @Mock
+    private PriceAlertPublisher priceAlertPublisher;
+
+    @InjectMocks
+    private PriceHistoryService priceHistoryService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testRecordPricesAppendsInTimeOrderAndUpdatesPrice() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(priceHistoryRepository.findLatestTimestamp(1L)).thenReturn(1_000L);
+        List<PricePoint> ticks = List.of(new PricePoint(3_000L, 152.0, 10), new PricePoint(2_000L, 151.0, 5));
+
+        BulkWriteResult result = priceHistoryService.recordPrices(1L, ticks);
+
+        assertEquals(2, result.getRowsWritten());
+        verify(priceHistoryRepository).append(eq(1L), argThat(sorted ->
+                sorted.get(0).getTimestamp() == 2_000L && sorted.get(1).getTimestamp() == 3_000L));
+        verify(stockRepository).updatePrice(1L, 152.0);
+        verify(chartCache).invalidate(1L);
+        verify(priceStreamService).publish(eq(1L), argThat(tick -> tick.getTimestamp() == 3_000L && tick.getPrice() == 152.0));
+        verify(marketScreener).record(eq(1L), argThat(sorted -> sorted.size() == 2));
+        verify(priceAlertPublisher).publish(eq(1L), argThat(sorted -> sorted.size() == 2));
+    }
+
+    @Test
+    public void testRecordPricesRollsUpEveryTier() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        List<PricePoint> ticks = List.of(new PricePoint(0L, 10.0, 1), new PricePoint(30_000L, 12.0, 2),
+                new PricePoint(90_000L, 11.0, 3));
+
+        priceHistoryService.recordPrices(1L, ticks);
+
+        verify(priceBarRepository).merge(argThat(bars -> {
+            List<PriceBar> minutes = bars.stream().filter(bar -> bar.getResolution().equals("1m")).toList();
+            PriceBar hour = bars.stream().filter(bar -> bar.getResolution().equals("1h")).findFirst().orElseThrow();
+            return bars.size() == 5
+                    && minutes.size() == 2
+                    && minutes.get(0).getClose() == 12.0 && minutes.get(0).getLastTimestamp() == 30_000L
+                    && hour.getOpen() == 10.0 && hour.getHigh() == 12.0 && hour.getClose() == 11.0
+                    && hour.getVolume() == 6L && hour.getFirstTimestamp() == 0L && hour.getLastTimestamp() == 90_000L;
+        }));
+    }
+
+    @Test
+    public void testReplayedTicksAreNotRolledUpAgain() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(priceHistoryRepository.findLatestTimestamp(1L)).thenReturn(60_000L);
+        when(priceHistoryRepository.findExistingTimestamps(1L, List.of(0L, 60_000L))).thenReturn(Set.of(0L));
+        List<PricePoint> ticks = List.of(new PricePoint(60_000L, 11.0, 4), new PricePoint(0L, 10.0, 1),
+                new PricePoint(60_000L, 12.0, 2), new PricePoint(120_000L, 13.0, 3));
+
+        BulkWriteResult result = priceHistoryService.recordPrices(1L, ticks);
+
+        // The later of two ticks at one timestamp wins, and the already stored tick at 0 is only replaced
+        assertEquals(3, result.getRowsWritten());
+        verify(priceHistoryRepository).append(eq(1L), argThat(sorted -> sorted.size() == 3 && sorted.get(1).getPrice() == 12.0));
+        verify(priceBarRepository).merge(argThat(bars -> {
+            PriceBar hour = bars.stream().filter(bar -> bar.getResolution().equals("1h")).findFirst().orElseThrow();
+            return hour.getOpen() == 12.0 && hour.getVolume() == 5L && hour.getFirstTimestamp() == 60_000L;
+        }));
+        verify(marketScreener).record(eq(1L), argThat(inserted -> inserted.size() == 2));
+    }
+
+    @Test
+    public void testLiveTicksSkipTheExistingTimestampLookup() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(priceHistoryRepository.findLatestTimestamp(1L)).thenReturn(1_000L);
+
+        priceHistoryService.recordPrices(1L, List.of(new PricePoint(2_000L, 10.0, 1)));
+
+        verify(priceHistoryRepository, never()).findExistingTimestamps(anyLong(), anyList());
+    }
+
+    @Test
+    public void testDeleteHistoryRemovesTicksBarsAndSegments() {
+        priceHistoryService.deleteHistory(1L);
+
+        verify(priceHistoryRepository).deleteByStockId(1L);
+        verify(priceBarRepository).deleteByStockId(1L);
+        verify(priceSegmentStore).deleteStock(1L);
+        verify(chartCache).invalidate(1L);
+    }
+
+    @Test
+    public void testRebuildRollupsReplaysTicks() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(priceHistoryRepository.findEarliestTimestamp(1L)).thenReturn(0L);
+        when(priceHistoryRepository.findLatestTimestamp(1L)).thenReturn(60_000L);
+        doAnswer(invocation -> {
+            PriceHistoryRepository.TickHandler handler = invocation.getArgument(3);
+            handler.onTick(0L, 10.0, 1L);
+            handler.onTick(60_000L, 11.0, 1L);
+            return null;
+        }).when(priceHistoryRepository).streamRange(eq(1L), anyLong(), anyLong(), any());
+
+        BulkWriteResult result = priceHistoryService.rebuildRollups(1L);
+
+        assertEquals(5, result.getRowsWritten());
+        verify(priceSegmentStore).deleteStock(1L);
+        verify(priceBarRepository).deleteByStockId(1L);
+        verify(priceHistoryRepository, times(1)).streamRange(eq(1L), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testStreamBarsSplitsAtSealedBoundary() {
+        PriceBarRepository.BarHandler handler = (ts, open, high, low, close, volume) -> { };
+        when(priceSegmentStore.getSealedUntil(1L, "1d")).thenReturn(5_000L);
+
+        priceHistoryService.streamBars(1L, ChartInterval.ONE_DAY, 1_000L, 9_000L, handler);
+
+        verify(priceSegmentStore).streamRange(1L, "1d", 1_000L, 5_000L, handler);
+        verify(priceBarRepository).streamRange(1L, "1d", 5_000L, 9_000L, handler);
+    }
+
+    @Test
+    public void testStreamBarsRecentRangeSkipsSegments() {
+        PriceBarRepository.BarHandler handler = (ts, open, high, low, close, volume) -> { };
+        when(priceSegmentStore.getSealedUntil(1L, "1m")).thenReturn(5_000L);
+
+        priceHistoryService.streamBars(1L, ChartInterval.ONE_MINUTE, 6_000L, 9_000L, handler);
+
+        verify(priceSegmentStore, never()).streamRange(anyLong(), anyString(), anyLong(), anyLong(), any());
+        verify(priceBarRepository).streamRange(1L, "1m", 6_000L, 9_000L, handler);
+    }
+
+    @Test
+    public void testStreamBarsOfManyStocksUsesOneQueryForUnsealedBars() {
+        List<long[]> first = new ArrayList<>();
+        List<long[]> second = new ArrayList<>();
+        Map<Long, PriceBarRepository.BarHandler> handlers = Map.of(
+                1L, (ts, open, high, low, close, volume) -> first.add(new long[]{ts}),
+                2L, (ts, open, high, low, close, volume) -> second.add(new long[]{ts}));
+        when(priceSegmentStore.getSealedUntil(1L, "1d")).thenReturn(5_000L);
+        when(priceSegmentStore.getSealedUntil(2L, "1d")).thenReturn(Long.MIN_VALUE);
+        doAnswer(invocation -> {
+            PriceBarRepository.StockBarHandler handler = invocation.getArgument(4);
+            handler.onBar(1L, 6_000L, 1, 1, 1, 1, 1);
+            handler.onBar(2L, 2_000L, 1, 1, 1, 1, 1);
+            handler.onBar(2L, 6_000L, 1, 1, 1, 1, 1);
+            return null;
+        }).when(priceBarRepository).streamRange(anyCollection(), eq("1d"), eq(1_000L), eq(9_000L),
+                any(PriceBarRepository.StockBarHandler.class));
+
+        priceHistoryService.streamBars(List.of(1L, 2L), ChartInterval.ONE_DAY, 1_000L, 9_000L, handlers);
+
+        verify(priceSegmentStore).streamRange(1L, "1d", 1_000L, 5_000L, handlers.get(1L));
+        verify(priceSegmentStore, never()).streamRange(eq(2L), anyString(), anyLong(), anyLong(), any());
+        verify(priceBarRepository, times(1)).streamRange(anyCollection(), anyString(), anyLong(), anyLong(),
+                any(PriceBarRepository.StockBarHandler.class));
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+    }
+
+    @Test
+    public void testRecordPricesRejectsInvalidTicks() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+
+        for (PricePoint tick : List.of(new PricePoint(1_000L, -1.0, 5), new PricePoint(1_000L, Double.NaN, 5),
+                new PricePoint(1_000L, Double.POSITIVE_INFINITY, 5), new PricePoint(1_000L, 150.0, -5),
+                new PricePoint(null, 150.0, 5))) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> priceHistoryService.recordPrices(1L, List.of(new PricePoint(500L, 149.0, 1), tick)));
+        }
+        verify(priceHistoryRepository, never()).append(anyLong(), anyList());
+        verify(stockRepository, never()).updatePrice(anyLong(), anyDouble());
+    }
+
+    @Test
+    public void testRecordPricesBackfillKeepsCurrentPrice() {
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(priceHistoryRepository.findLatestTimestamp(1L)).thenReturn(10_000L);
+
+        priceHistoryService.recordPrices(1L, List.of(new PricePoint(2_000L, 140.0, 5)));
+
+        verify(priceHistoryRepository).append(eq(1L), anyList());
+        verify(stockRepository, never()).updatePrice(anyLong(), anyDouble());
+        verify(stockRepository).incrementVersion(1L);
+        verify(priceStreamService, never()).publish(anyLong(), any());
+        verify(priceAlertPublisher).publish(eq(1L), argThat(List::isEmpty));
+    }
+
+    @Test
+    public void testRecordPricesStockNotFound() {
+        when(stockRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(StockNotFoundException.class,
+                () -> priceHistoryService.recordPrices(1L, List.of(new PricePoint(1L, 1.0, 1))));
+        verify(priceHistoryRepository, never()).append(anyLong(), anyList());
+    }
+}
@@ -0,0 +1,115 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.chart.PriceSeries;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.PriceSegmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceSegmentSealerTest {
+
+    private static final long WEEK = 7 * 24 * 60 * 60_000L;
+
+    // 1970-01-01 was a Thursday, so weeks start three days before the epoch
+    private static final long CUTOFF = 4 * 24 * 60 * 60_000L;
+
+    @Mock
+    private PriceBarRepository priceBarRepository;
+
+    @Mock
+    private PriceSegmentStore priceSegmentStore;
+
+    @InjectMocks
+    private PriceSegmentSealer priceSegmentSealer;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(priceSegmentSealer, "windowWeeks", 1);
+        when(priceSegmentStore.getSealedUntil(anyLong(), anyString())).thenReturn(Long.MIN_VALUE);
+    }
+
+    @Test
+    public void testSealWritesSegmentThenDeletesRows() throws IOException {
+        when(priceBarRepository.findStockIdsWithBarsBefore("1m", CUTOFF)).thenReturn(List.of(1L));
+        when(priceBarRepository.findEarliestBucketStart(1L, "1m", Long.MIN_VALUE, CUTOFF)).thenReturn(0L);
+        doAnswer(invocation -> {
+            PriceBarRepository.BarHandler handler = invocation.getArgument(4);
+            handler.onBar(0L, 10.0, 11.0, 9.0, 10.5, 100L);
+            handler.onBar(60_000L, 10.5, 12.0, 10.0, 11.0, 50L);
+            return null;
+        }).when(priceBarRepository).streamRange(eq(1L), eq("1m"), eq(CUTOFF - WEEK), eq(CUTOFF), any());
+
+        long sealed = priceSegmentSealer.sealBefore(CUTOFF);
+
+        assertEquals(2, sealed);
+        ArgumentCaptor<PriceSeries> bars = ArgumentCaptor.forClass(PriceSeries.class);
+        var order = inOrder(priceSegmentStore, priceBarRepository);
+        order.verify(priceSegmentStore).write(eq(1L), eq("1m"), eq(Long.MIN_VALUE), eq(CUTOFF), bars.capture());
+        order.verify(priceBarRepository).deleteBefore(1L, "1m", CUTOFF);
+        assertEquals(2, bars.getValue().size());
+        assertEquals(12.0, bars.getValue().high(1));
+        verify(priceSegmentStore, never()).write(eq(1L), eq("1h"), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testAlreadySealedRangeSkipped() throws IOException {
+        when(priceBarRepository.findStockIdsWithBarsBefore(anyString(), eq(CUTOFF))).thenReturn(List.of(1L));
+        when(priceSegmentStore.getSealedUntil(eq(1L), anyString())).thenReturn(CUTOFF);
+
+        assertEquals(0, priceSegmentSealer.sealBefore(CUTOFF));
+        verify(priceBarRepository, never()).streamRange(anyLong(), anyString(), anyLong(), anyLong(), any());
+        verify(priceBarRepository, never()).deleteBefore(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    public void testLongHistorySealedOneWindowAtATime() throws IOException {
+        long cutoff = CUTOFF + 2 * WEEK;
+        when(priceBarRepository.findStockIdsWithBarsBefore("1d", cutoff)).thenReturn(List.of(1L));
+        when(priceBarRepository.findEarliestBucketStart(1L, "1d", Long.MIN_VALUE, cutoff)).thenReturn(0L);
+        doAnswer(invocation -> {
+            long from = invocation.getArgument(2);
+            // The middle week has no bars
+            if (from != CUTOFF) {
+                invocation.<PriceBarRepository.BarHandler>getArgument(4).onBar(from + WEEK - 1, 10.0, 11.0, 9.0, 10.5, 100L);
+            }
+            return null;
+        }).when(priceBarRepository).streamRange(eq(1L), eq("1d"), anyLong(), anyLong(), any());
+
+        assertEquals(2, priceSegmentSealer.sealBefore(cutoff));
+
+        verify(priceBarRepository).streamRange(eq(1L), eq("1d"), eq(CUTOFF - WEEK), eq(CUTOFF), any());
+        verify(priceBarRepository).streamRange(eq(1L), eq("1d"), eq(CUTOFF), eq(CUTOFF + WEEK), any());
+        verify(priceBarRepository).streamRange(eq(1L), eq("1d"), eq(CUTOFF + WEEK), eq(cutoff), any());
+        var order = inOrder(priceSegmentStore, priceBarRepository);
+        order.verify(priceSegmentStore).write(eq(1L), eq("1d"), eq(Long.MIN_VALUE), eq(CUTOFF), any());
+        order.verify(priceBarRepository).deleteBefore(1L, "1d", CUTOFF);
+        order.verify(priceSegmentStore).write(eq(1L), eq("1d"), eq(CUTOFF), eq(cutoff), any());
+        order.verify(priceBarRepository).deleteBefore(1L, "1d", cutoff);
+        verify(priceSegmentStore, times(2)).write(eq(1L), eq("1d"), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testEnablingRequiresASegmentDirectory() {
+        ReflectionTestUtils.setField(priceSegmentSealer, "enabled", true);
+        when(priceSegmentStore.isConfigured()).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> priceSegmentSealer.checkSegmentDirectory());
+
+        when(priceSegmentStore.isConfigured()).thenReturn(true);
+        priceSegmentSealer.checkSegmentDirectory();
+    }
+}
@@ -0,0 +1,167 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.PricePoint;
+import com.cg.stock_service.dto.PriceUpdate;
+import com.cg.stock_service.exception.SubscriptionRejectedException;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PriceStreamServiceTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @InjectMocks
+    private PriceStreamService priceStreamService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<Runnable> queuedSends = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(priceStreamService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(priceStreamService, "maxSubscribers", 2);
+        ReflectionTestUtils.setField(priceStreamService, "maxStocksPerSubscriber", 3);
+        ReflectionTestUtils.setField(priceStreamService, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(priceStreamService, "senderThreads", 1);
+        ReflectionTestUtils.setField(priceStreamService, "senderQueueCapacity", 10);
+        priceStreamService.start();
+        // Sends run only when the test says so, which makes a slow client easy to simulate
+        ReflectionTestUtils.setField(priceStreamService, "sender", (Executor) queuedSends::add);
+        when(stockRepository.findAllById(any())).thenReturn(List.of());
+    }
+
+    private void runQueuedSends() {
+        while (!queuedSends.isEmpty()) {
+            queuedSends.remove(0).run();
+        }
+    }
+
+    private static Stock stock(Long id, double price) {
+        Stock stock = new Stock();
+        stock.setId(id);
+        stock.setName("S" + id);
+        stock.setPrice(price);
+        return stock;
+    }
+
+    @Test
+    public void testSubscriberReceivesCurrentPricesFirst() {
+        when(stockRepository.findAllById(any())).thenReturn(List.of(stock(1L, 150.0)));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        priceStreamService.register(Set.of(1L), emitter);
+        runQueuedSends();
+
+        assertEquals(1, emitter.updates.size());
+        assertEquals(150.0, emitter.updates.get(0).getPrice());
+    }
+
+    @Test
+    public void testSlowSubscriberOnlyGetsLatestPricePerStock() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        PriceStreamService.Subscriber subscriber = priceStreamService.register(new LinkedHashSet<>(List.of(1L, 2L)), emitter);
+        runQueuedSends();
+
+        priceStreamService.publish(1L, new PricePoint(1_000L, 10.0, 1));
+        priceStreamService.publish(1L, new PricePoint(2_000L, 11.0, 1));
+        priceStreamService.publish(2L, new PricePoint(2_000L, 50.0, 1));
+        priceStreamService.publish(1L, new PricePoint(3_000L, 12.0, 1));
+
+        assertEquals(2, subscriber.pendingCount());
+        assertEquals(1, queuedSends.size());
+        assertEquals(2.0, meterRegistry.counter("stock.stream.updates.conflated").count());
+
+        runQueuedSends();
+
+        assertEquals(2, emitter.updates.size());
+        PriceUpdate latest = emitter.updates.stream().filter(u -> u.getStockId() == 1L).findFirst().orElseThrow();
+        assertEquals(12.0, latest.getPrice());
+        assertEquals(0, subscriber.pendingCount());
+    }
+
+    @Test
+    public void testUpdatesOfOtherStocksAreNotDelivered() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        priceStreamService.register(Set.of(1L), emitter);
+        runQueuedSends();
+
+        priceStreamService.publish(2L, new PricePoint(1_000L, 10.0, 1));
+        runQueuedSends();
+
+        assertTrue(emitter.updates.isEmpty());
+    }
+
+    @Test
+    public void testFailedSendDropsSubscriber() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failing = true;
+        priceStreamService.register(Set.of(1L), emitter);
+        assertEquals(1, priceStreamService.getSubscriberCount());
+
+        priceStreamService.publish(1L, new PricePoint(1_000L, 10.0, 1));
+        runQueuedSends();
+
+        assertEquals(0, priceStreamService.getSubscriberCount());
+        priceStreamService.publish(1L, new PricePoint(2_000L, 11.0, 1));
+        assertTrue(queuedSends.isEmpty());
+    }
+
+    @Test
+    public void testSubscribeRejectsEmptyAndOversizedRequests() {
+        assertThrows(IllegalArgumentException.class, () -> priceStreamService.subscribe(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> priceStreamService.subscribe(List.of(1L, 2L, 3L, 4L)));
+    }
+
+    @Test
+    public void testSubscribeRejectedAtSubscriberLimit() {
+        priceStreamService.subscribe(List.of(1L));
+        priceStreamService.subscribe(List.of(2L));
+
+        assertThrows(SubscriptionRejectedException.class, () -> priceStreamService.subscribe(List.of(3L)));
+    }
+
+    /**
+     * Emitter that records the price updates sent to it instead of writing to a connection.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<PriceUpdate> updates = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof PriceUpdate update) {
+                    updates.add(update);
+                }
+            }
+        }
+    }
+}
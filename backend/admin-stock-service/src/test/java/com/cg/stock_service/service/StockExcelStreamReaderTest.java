@@ -0,0 +1,117 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.exception.InvalidExcelFileException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StockExcelStreamReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StockExcelStreamReader reader;
+
+    @BeforeEach
+    public void setUp() {
+        reader = new StockExcelStreamReader();
+        ReflectionTestUtils.setField(reader, "chunkSize", 2);
+    }
+
+    private Path writeWorkbook(Object[][] rows) throws IOException {
+        Path file = tempDir.resolve("stocks.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Stock Template");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Stock Name");
+            header.createCell(1).setCellValue("Stock Price");
+            header.createCell(2).setCellValue("Stock Exchange ID");
+            for (int i = 0; i < rows.length; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue((String) rows[i][0]);
+                row.createCell(1).setCellValue((Double) rows[i][1]);
+                row.createCell(2).setCellValue((Double) rows[i][2]);
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    @Test
+    public void testReadRowsEmitsBoundedChunks() throws IOException {
+        Path file = writeWorkbook(new Object[][]{
+                {"AAPL", 150.0, 1.0},
+                {"GOOGL", 2800.5, 1.0},
+                {"INFY", 18.25, 2.0}
+        });
+        List<List<String[]>> chunks = new ArrayList<>();
+        AtomicLong expectedRows = new AtomicLong(-1);
+
+        long rows = reader.readRows(file, chunks::add, expectedRows::set);
+
+        assertEquals(3, rows);
+        assertEquals(3, expectedRows.get());
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(1).size());
+        String[] last = chunks.get(1).get(0);
+        assertEquals("INFY", last[StockExcelStreamReader.NAME_COLUMN]);
+        assertEquals("18.25", last[StockExcelStreamReader.PRICE_COLUMN]);
+        assertEquals("2", last[StockExcelStreamReader.EXCHANGE_ID_COLUMN]);
+    }
+
+    @Test
+    public void testReadRowsIgnoresNumberFormats() throws IOException {
+        Path file = tempDir.resolve("stocks.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Stock Template");
+            sheet.createRow(0).createCell(0).setCellValue("Stock Name");
+            String[] formats = {"$#,##0", "0%", "#,##0.00;(#,##0.00)", "#,##0.000"};
+            double[] prices = {1234.56, 0.15, -12.5, 150.5};
+            for (int i = 0; i < formats.length; i++) {
+                CellStyle style = workbook.createCellStyle();
+                style.setDataFormat(workbook.createDataFormat().getFormat(formats[i]));
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue("STK" + i);
+                Cell price = row.createCell(1);
+                price.setCellValue(prices[i]);
+                price.setCellStyle(style);
+                row.createCell(2).setCellValue(1.0);
+            }
+            workbook.write(out);
+        }
+        ReflectionTestUtils.setField(reader, "chunkSize", 10);
+        List<String[]> rows = new ArrayList<>();
+
+        reader.readRows(file, rows::addAll);
+
+        assertEquals(List.of("1234.56", "0.15", "-12.5", "150.5"),
+                rows.stream().map(row -> row[StockExcelStreamReader.PRICE_COLUMN]).toList());
+    }
+
+    @Test
+    public void testReadRejectsNonWorkbook() throws IOException {
+        Path file = tempDir.resolve("stocks.xlsx");
+        Files.writeString(file, "not a workbook");
+
+        assertThrows(InvalidExcelFileException.class, () -> reader.readRows(file, chunk -> { }));
+    }
+}
@@ -0,0 +1,171 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.exception.ExportRejectedException;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StockExportServiceTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private StockExportService stockExportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockExportService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(stockExportService, "flushInterval", 2);
+        ReflectionTestUtils.setField(stockExportService, "xlsxWindowSize", 2);
+        ReflectionTestUtils.setField(stockExportService, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(stockExportService, "timeoutMillis", 60_000L);
+        stockExportService.createExportSlots();
+    }
+
+    private static Stock stock(long id, String name, double price) {
+        Stock stock = new Stock();
+        stock.setId(id);
+        stock.setName(name);
+        stock.setPrice(price);
+        stock.setExchange(new Exchange(7L, "NYSE"));
+        return stock;
+    }
+
+    @Test
+    public void testExportNdjsonWritesOneStockPerLine() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, "AAPL", 150.0), stock(2L, "MSFT", 320.0),
+                stock(3L, "GOOGL", 2800.0)).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = stockExportService.export(StockExportService.Format.NDJSON, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, count);
+        assertEquals(4, lines.length);
+        assertEquals("", lines[3]);
+        assertEquals("MSFT", objectMapper.readTree(lines[1]).get("name").asText());
+        assertTrue(closed.get());
+        verify(entityManager, times(3)).detach(any(Stock.class));
+        verify(entityManager, times(1)).clear();
+    }
+
+    @Test
+    public void testExportPastDeadlineIsAbortedAndClosesCursor() {
+        ReflectionTestUtils.setField(stockExportService, "timeoutMillis", 0L);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, "AAPL", 150.0), stock(2L, "MSFT", 320.0),
+                stock(3L, "GOOGL", 2800.0)).onClose(() -> closed.set(true)));
+
+        assertThrows(InterruptedIOException.class,
+                () -> stockExportService.export(StockExportService.Format.CSV, null, new ByteArrayOutputStream()));
+        assertTrue(closed.get());
+        verify(entityManager, times(2)).detach(any(Stock.class));
+    }
+
+    @Test
+    public void testExportSlotsAreBounded() {
+        stockExportService.acquireExportSlot();
+
+        assertThrows(ExportRejectedException.class, () -> stockExportService.acquireExportSlot());
+
+        stockExportService.releaseExportSlot();
+        stockExportService.acquireExportSlot();
+    }
+
+    @Test
+    public void testExportJsonWritesSingleArray() throws Exception {
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, "AAPL", 150.0), stock(2L, "MSFT", 320.0)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        stockExportService.export(StockExportService.Format.JSON, null, out);
+
+        JsonNode array = objectMapper.readTree(out.toByteArray());
+        assertTrue(array.isArray());
+        assertEquals(2, array.size());
+        assertEquals(320.0, array.get(1).get("price").asDouble());
+    }
+
+    @Test
+    public void testExportOfNoStocks() throws Exception {
+        when(stockRepository.streamAll(null)).thenReturn(Stream.empty());
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+        stockExportService.export(StockExportService.Format.NDJSON, null, ndjson);
+        when(stockRepository.streamAll(null)).thenReturn(Stream.empty());
+        stockExportService.export(StockExportService.Format.JSON, null, json);
+
+        assertEquals("", ndjson.toString(StandardCharsets.UTF_8));
+        assertEquals("[]", json.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportCsvFiltersByExchangeAndQuotes() throws Exception {
+        when(stockRepository.streamAll(7L)).thenReturn(Stream.of(stock(1L, "Alpha, Inc.", 12345678.5),
+                stock(2L, "Say \"Hi\"", 0.25)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = stockExportService.export(StockExportService.Format.CSV, 7L, out);
+
+        assertEquals(2, count);
+        assertEquals("Stock Name,Stock Price,Stock Exchange ID,Stock ID\r\n"
+                + "\"Alpha, Inc.\",12345678.5,7,1\r\n"
+                + "\"Say \"\"Hi\"\"\",0.25,7,2\r\n", out.toString(StandardCharsets.UTF_8));
+        verify(stockRepository, never()).streamAll(null);
+    }
+
+    @Test
+    public void testExportXlsxCanBeReadBack() throws Exception {
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, "AAPL", 150.0), stock(2L, "MSFT", 320.0),
+                stock(3L, "GOOGL", 2800.0), stock(4L, "AMZN", 130.0)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        stockExportService.export(StockExportService.Format.XLSX, null, out);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("Stock Name", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(4, sheet.getLastRowNum());
+            assertEquals("AMZN", sheet.getRow(4).getCell(0).getStringCellValue());
+            assertEquals(320.0, sheet.getRow(2).getCell(1).getNumericCellValue());
+            assertEquals(7.0, sheet.getRow(3).getCell(2).getNumericCellValue());
+            assertEquals(3.0, sheet.getRow(3).getCell(3).getNumericCellValue());
+        }
+    }
+
+    @Test
+    public void testFormatFromCode() {
+        assertEquals(StockExportService.Format.JSON, StockExportService.Format.fromCode("JSON"));
+        assertThrows(IllegalArgumentException.class, () -> StockExportService.Format.fromCode("xml"));
+    }
+}
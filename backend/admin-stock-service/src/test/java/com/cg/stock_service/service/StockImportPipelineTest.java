@@ -0,0 +1,138 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockBulkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class StockImportPipelineTest {
+
+    @Mock
+    private StockExcelStreamReader stockExcelStreamReader;
+
+    @Mock
+    private StockBulkRepository stockBulkRepository;
+
+    @Mock
+    private ExchangeCache exchangeCache;
+
+    @Mock
+    private StockSearchIndex stockSearchIndex;
+
+    @InjectMocks
+    private StockImportPipeline stockImportPipeline;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockImportPipeline, "queueCapacity", 2);
+        ReflectionTestUtils.setField(stockImportPipeline, "validatorThreads", 2);
+        ReflectionTestUtils.setField(stockImportPipeline, "writerThreads", 3);
+        ReflectionTestUtils.setField(stockImportPipeline, "maxConnections", 3);
+        stockImportPipeline.createConnectionBudget();
+        when(exchangeCache.findUnknownIds(anyCollection())).thenReturn(Set.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenChunks(int chunks, int rowsPerChunk, String[] rejectedRow) throws IOException {
+        when(stockExcelStreamReader.readRows(any(Path.class), any(), any())).thenAnswer(invocation -> {
+            Consumer<List<String[]>> consumer = invocation.getArgument(1);
+            for (int c = 0; c < chunks; c++) {
+                List<String[]> chunk = new ArrayList<>();
+                for (int r = 0; r < rowsPerChunk; r++) {
+                    chunk.add(new String[]{"STK" + c + "_" + r, "10.5", "1"});
+                }
+                if (rejectedRow != null) {
+                    chunk.add(rejectedRow);
+                }
+                consumer.accept(chunk);
+            }
+            return (long) chunks * (rowsPerChunk + (rejectedRow != null ? 1 : 0));
+        });
+    }
+
+    @Test
+    public void testRunImportsValidRowsAndCountsRejects() throws IOException {
+        givenChunks(20, 50, new String[]{"BAD", "not-a-price", "1"});
+
+        ImportResult result = stockImportPipeline.run(Path.of("stocks.xlsx"));
+
+        assertEquals(1020, result.getRowsRead());
+        assertEquals(1000, result.getRowsImported());
+        assertEquals(20, result.getRowsRejected());
+        assertEquals(List.of("read", "validate", "write"),
+                result.getStages().stream().map(s -> s.getStage()).toList());
+        verify(stockBulkRepository, times(20)).insertAll(anyList());
+    }
+
+    @Test
+    public void testRunRejectsRowsWithUnknownExchange() throws IOException {
+        givenChunks(4, 10, new String[]{"ORPHAN", "12.0", "42"});
+        when(exchangeCache.findUnknownIds(anyCollection())).thenReturn(Set.of(42L));
+
+        ImportResult result = stockImportPipeline.run(Path.of("stocks.xlsx"));
+
+        assertEquals(40, result.getRowsImported());
+        assertEquals(4, result.getRowsRejected());
+    }
+
+    @Test
+    public void testRunPropagatesWriterFailure() throws IOException {
+        givenChunks(50, 10, null);
+        when(stockBulkRepository.insertAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> stockImportPipeline.run(Path.of("stocks.xlsx")));
+    }
+
+    @Test
+    public void testWritersStayWithinConnectionBudget() throws IOException {
+        ReflectionTestUtils.setField(stockImportPipeline, "maxConnections", 1);
+        stockImportPipeline.createConnectionBudget();
+        givenChunks(12, 10, null);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(stockBulkRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            active.decrementAndGet();
+            return null;
+        });
+
+        ImportResult result = stockImportPipeline.run(Path.of("stocks.xlsx"));
+
+        assertEquals(120, result.getRowsImported());
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    public void testMapRowRejectsIncompleteOrNegativeRows() {
+        assertNull(StockImportPipeline.mapRow(new String[]{"AAPL", null, "1"}));
+        assertNull(StockImportPipeline.mapRow(new String[]{"AAPL", "-5", "1"}));
+        assertNull(StockImportPipeline.mapRow(new String[]{"AAPL", "Infinity", "1"}));
+        // Separators only reach the pipeline from text cells, where their meaning is locale-dependent
+        assertNull(StockImportPipeline.mapRow(new String[]{"AAPL", "150,5", "1"}));
+
+        Stock stock = StockImportPipeline.mapRow(new String[]{"AAPL", "1234.5", "3"});
+        assertNotNull(stock);
+        assertEquals(1234.5, stock.getPrice());
+        assertEquals(3L, stock.getExchange().getId());
+    }
+}
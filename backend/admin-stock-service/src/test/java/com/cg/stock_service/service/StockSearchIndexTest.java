@@ -0,0 +1,154 @@
+package com.cg.stock_service.service;
+
+import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.dto.StockSuggestion;
+import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.StockRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StockSearchIndexTest {
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private ExchangeCache exchangeCache;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private StockSearchIndex stockSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockSearchIndex, "maxResults", 10);
+        ReflectionTestUtils.setField(stockSearchIndex, "maxCandidates", 100);
+        ReflectionTestUtils.setField(stockSearchIndex, "maxQueryLength", 20);
+        when(exchangeCache.getExchange(1L)).thenReturn(new Exchange(1L, "NASDAQ"));
+        when(exchangeCache.getExchange(2L)).thenReturn(new Exchange(2L, "New York Stock Exchange"));
+    }
+
+    private static Stock stock(Long id, String name, Long exchangeId) {
+        Stock stock = new Stock();
+        stock.setId(id);
+        stock.setName(name);
+        stock.setPrice(100.0);
+        stock.setExchange(new Exchange(exchangeId, null));
+        return stock;
+    }
+
+    private List<Long> ids(List<StockSuggestion> suggestions) {
+        return suggestions.stream().map(StockSuggestion::getStockId).toList();
+    }
+
+    @Test
+    public void testRanksExactThenLeadingMatches() {
+        stockSearchIndex.put(stock(1L, "Pineapple Holdings", 1L));
+        stockSearchIndex.put(stock(2L, "Apple Hospitality REIT", 2L));
+        stockSearchIndex.put(stock(3L, "Apple", 1L));
+        stockSearchIndex.put(stock(4L, "Applied Materials", 1L));
+        stockSearchIndex.put(stock(5L, "Big Apple Foods", 2L));
+
+        assertEquals(List.of(3L, 4L, 2L, 5L), ids(stockSearchIndex.search("APP", null, 10)));
+        assertEquals(List.of(3L, 2L, 5L), ids(stockSearchIndex.search("apple", null, 10)));
+        assertEquals(List.of(2L), ids(stockSearchIndex.search("apple ho", null, 10)));
+        StockSuggestion first = stockSearchIndex.search("apple", null, 1).get(0);
+        assertEquals("Apple", first.getStockName());
+        assertEquals("NASDAQ", first.getExchangeName());
+    }
+
+    @Test
+    public void testMatchesExchangeNameAndFiltersByExchange() {
+        stockSearchIndex.put(stock(1L, "Acme Corp", 1L));
+        stockSearchIndex.put(stock(2L, "Acme Industries", 2L));
+
+        assertEquals(List.of(2L), ids(stockSearchIndex.search("acme york", null, 10)));
+        assertEquals(List.of(2L), ids(stockSearchIndex.search("york acme", null, 10)));
+        assertEquals(List.of(1L), ids(stockSearchIndex.search("acme", 1L, 10)));
+    }
+
+    @Test
+    public void testOtherExchangesDoNotUseUpCandidates() {
+        ReflectionTestUtils.setField(stockSearchIndex, "maxCandidates", 3);
+        for (long id = 1; id <= 5; id++) {
+            stockSearchIndex.put(stock(id, "Acme " + id, 2L));
+        }
+        stockSearchIndex.put(stock(6L, "Acme Corp", 1L));
+
+        assertEquals(List.of(6L), ids(stockSearchIndex.search("acme", 1L, 10)));
+        assertEquals(3, stockSearchIndex.search("acme", null, 10).size());
+    }
+
+    @Test
+    public void testIgnoresCaseAndPunctuation() {
+        stockSearchIndex.put(stock(1L, "AT&T Inc.", 2L));
+
+        assertEquals(List.of(1L), ids(stockSearchIndex.search("at&t", null, 10)));
+        assertEquals(List.of(1L), ids(stockSearchIndex.search("AT T", null, 10)));
+        assertTrue(stockSearchIndex.search("att", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testRenamedAndRemovedStocks() {
+        stockSearchIndex.put(stock(1L, "Facebook", 1L));
+
+        stockSearchIndex.put(stock(1L, "Meta Platforms", 1L));
+
+        assertTrue(stockSearchIndex.search("face", null, 10).isEmpty());
+        assertEquals(List.of(1L), ids(stockSearchIndex.search("meta", null, 10)));
+
+        stockSearchIndex.remove(1L);
+
+        assertTrue(stockSearchIndex.search("meta", null, 10).isEmpty());
+        assertEquals(0, stockSearchIndex.size());
+    }
+
+    @Test
+    public void testRebuildLoadsAllStocks() {
+        stockSearchIndex.put(stock(9L, "Stale Co", 1L));
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, "Tesla", 1L), stock(2L, "Texas Instruments", 1L)));
+
+        stockSearchIndex.rebuild();
+
+        assertEquals(2, stockSearchIndex.size());
+        assertEquals(List.of(1L, 2L), ids(stockSearchIndex.search("te", null, 10)));
+        assertTrue(stockSearchIndex.search("stale", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testRefreshOnlyWhenStale() {
+        when(stockRepository.streamAll(null)).thenReturn(Stream.of(stock(1L, "Tesla", 1L)));
+
+        stockSearchIndex.refreshIfStale();
+        verify(stockRepository, never()).streamAll(null);
+
+        stockSearchIndex.markStale();
+        stockSearchIndex.refreshIfStale();
+        stockSearchIndex.refreshIfStale();
+
+        verify(stockRepository, times(1)).streamAll(null);
+        assertEquals(1, stockSearchIndex.size());
+    }
+
+    @Test
+    public void testQueryAndLimitAreValidated() {
+        assertThrows(IllegalArgumentException.class, () -> stockSearchIndex.search(" -- ", null, 10));
+        assertThrows(IllegalArgumentException.class, () -> stockSearchIndex.search("a".repeat(21), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> stockSearchIndex.search("a", null, 0));
+        assertThrows(IllegalArgumentException.class, () -> stockSearchIndex.search("a", null, 11));
+    }
+}
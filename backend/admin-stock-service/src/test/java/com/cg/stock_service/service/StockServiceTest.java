@@ -1,25 +1,47 @@
 package com.cg.stock_service.service;
 
-import com.cg.stock_service.client.AdminExchangeFeignClient;
+import com.cg.stock_service.chart.ChartInterval;
+import com.cg.stock_service.dto.BulkWriteResult;
 import com.cg.stock_service.dto.Exchange;
+import com.cg.stock_service.dto.ImportResult;
+import com.cg.stock_service.dto.KeysetPage;
+import com.cg.stock_service.dto.StockChart;
+import com.cg.stock_service.dto.StockComparison;
 import com.cg.stock_service.exception.InvalidExchangeIdException;
 import com.cg.stock_service.exception.StockNotFoundException;
 import com.cg.stock_service.model.Stock;
+import com.cg.stock_service.repository.PriceBarRepository;
+import com.cg.stock_service.repository.PriceHistoryRepository;
+import com.cg.stock_service.repository.StockBulkRepository;
 import com.cg.stock_service.repository.StockRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -29,7 +51,28 @@ public class StockServiceTest {
     private StockRepository stockRepository;
 
     @Mock
-    private AdminExchangeFeignClient adminExchangeFeignClient;
+    private ExchangeCache exchangeCache;
+
+    @Mock
+    private StockBulkRepository stockBulkRepository;
+
+    @Mock
+    private PriceHistoryService priceHistoryService;
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private ChartCache chartCache;
+
+    @Mock
+    private MarketScreener marketScreener;
+
+    @Mock
+    private StockSearchIndex stockSearchIndex;
+
+    @Mock
+    private StockImportPipeline stockImportPipeline;
 
 
     @InjectMocks
@@ -40,7 +83,12 @@ public class StockServiceTest {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(stockService, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(stockService, "maxPageSize", 1000);
+        ReflectionTestUtils.setField(stockService, "maxCompareStocks", 3);
         objectMapper = new ObjectMapper();
+        when(chartCache.get(any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<StockChart>>getArgument(6).get());
     }
 
     private List<Stock> readStocksFromJson() throws IOException {
@@ -48,14 +96,43 @@ public class StockServiceTest {
         return objectMapper.readValue(resource.getFile(), objectMapper.getTypeFactory().constructCollectionType(List.class, Stock.class));
     }
 
+    private static Stock stock(Long id, String name, double price, Long exchangeId) {
+        return new Stock(id, name, price, new Exchange(exchangeId, null), null, null);
+    }
+
     @Test
-    public void testGetAllStocks() throws IOException {
+    public void testGetStocksPage() throws IOException {
         List<Stock> stocks = readStocksFromJson();
-        when(stockRepository.findAll()).thenReturn(stocks);
+        when(stockRepository.findPage(null, null, null, null, null, PageRequest.of(0, 101))).thenReturn(stocks);
 
-        List<Stock> result = stockService.getAllStocks();
-        assertEquals(1, result.size());
-        assertEquals("AAPL", result.get(0).getName());
+        KeysetPage<Stock> page = stockService.getStocksPage(null, null, null, null, null, null);
+        assertEquals(1, page.getItems().size());
+        assertEquals("AAPL", page.getItems().get(0).getName());
+        assertNull(page.getNextCursor());
+        verify(stockRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetStocksPageSeeksPastCursor() {
+        Stock first = stock(11L, "AAPL", 150.0, 1L);
+        Stock second = stock(12L, "AAL", 110.0, 1L);
+        Stock extra = stock(13L, "AAON", 90.0, 1L);
+        when(stockRepository.findPage(10L, 1L, 50.0, 200.0, "A!_A%", PageRequest.of(0, 3)))
+                .thenReturn(List.of(first, second, extra));
+
+        KeysetPage<Stock> page = stockService.getStocksPage(10L, 2, 1L, 50.0, 200.0, "A_A");
+
+        assertEquals(List.of(first, second), page.getItems());
+        assertEquals(12L, page.getNextCursor());
+    }
+
+    @Test
+    public void testGetStocksPageCapsLimit() {
+        stockService.getStocksPage(null, 5000, null, null, null, null);
+
+        verify(stockRepository).findPage(null, null, null, null, null, PageRequest.of(0, 1001));
+        assertThrows(IllegalArgumentException.class, () -> stockService.getStocksPage(null, 0, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> stockService.getStocksPage(null, 10, null, 5.0, 1.0, null));
     }
 
     @Test
@@ -70,22 +147,95 @@ public class StockServiceTest {
     @Test
     public void testAddStock() throws IOException {
         Stock stock = readStocksFromJson().get(0);
-        when(adminExchangeFeignClient.getExchangeById(1L)).thenReturn(new Exchange(1L, "NYSE"));
+        when(exchangeCache.getExchange(1L)).thenReturn(new Exchange(1L, "NYSE"));
         when(stockRepository.save(stock)).thenReturn(stock);
 
         Stock addedStock = stockService.addStock(stock);
         assertEquals("AAPL", addedStock.getName());
+        verify(priceHistoryService, times(1)).recordCurrentPrice(1L, 150.0);
+        verify(stockSearchIndex, times(1)).put(stock);
     }
 
     @Test
     public void testUpdateStock() throws IOException {
         Stock stock = readStocksFromJson().get(0);
         when(stockRepository.existsById(1L)).thenReturn(true);
-        when(adminExchangeFeignClient.getExchangeById(1L)).thenReturn(new Exchange(1L, "NYSE"));
+        when(exchangeCache.getExchange(1L)).thenReturn(new Exchange(1L, "NYSE"));
         when(stockRepository.save(stock)).thenReturn(stock);
 
         Stock updatedStock = stockService.updateStock(1L, stock);
         assertEquals("AAPL", updatedStock.getName());
+        verify(stockSearchIndex, times(1)).put(stock);
+    }
+
+    @Test
+    public void testUpdateStockRecordsPriceOnlyWhenItChanged() {
+        Stock renamed = stock(1L, "Apple Inc.", 150.0, 1L);
+        Stock repriced = stock(1L, "Apple Inc.", 155.0, 1L);
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(stockRepository.findPriceById(1L)).thenReturn(Optional.of(150.0));
+        when(exchangeCache.getExchange(1L)).thenReturn(new Exchange(1L, "NYSE"));
+        when(stockRepository.save(any(Stock.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        stockService.updateStock(1L, renamed);
+        verify(priceHistoryService, never()).recordCurrentPrice(anyLong(), anyDouble());
+
+        stockService.updateStock(1L, repriced);
+        verify(priceHistoryService).recordCurrentPrice(1L, 155.0);
+    }
+
+    @Test
+    public void testUpdateStockKeepsStoredVersionWhenNoneSent() throws IOException {
+        Stock stock = readStocksFromJson().get(0);
+        stock.setVersion(null);
+        when(stockRepository.existsById(1L)).thenReturn(true);
+        when(stockRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+        when(exchangeCache.getExchange(1L)).thenReturn(new Exchange(1L, "NYSE"));
+        when(stockRepository.save(stock)).thenReturn(stock);
+
+        stockService.updateStock(1L, stock);
+
+        assertEquals(4L, stock.getVersion());
+    }
+
+    @Test
+    public void testGetStocksPageETagFollowsPageContents() {
+        Stock first = stock(11L, "AAPL", 150.0, 1L);
+        first.setVersion(1L);
+        Stock second = stock(12L, "AAL", 110.0, 1L);
+        second.setVersion(3L);
+        KeysetPage<Stock> page = new KeysetPage<>(List.of(first, second), 12L);
+
+        String eTag = stockService.getStocksPageETag(page);
+
+        assertEquals(eTag, stockService.getStocksPageETag(new KeysetPage<>(List.of(first, second), 12L)));
+        assertNotEquals(eTag, stockService.getStocksPageETag(new KeysetPage<>(List.of(first, second), null)));
+        assertNotEquals(eTag, stockService.getStocksPageETag(new KeysetPage<>(List.of(first), 11L)));
+        second.setVersion(4L);
+        assertNotEquals(eTag, stockService.getStocksPageETag(page));
+        verifyNoInteractions(stockRepository);
+    }
+
+    @Test
+    public void testGetStockETag() {
+        when(stockRepository.findVersionById(1L)).thenReturn(Optional.of(7L));
+        when(stockRepository.findVersionById(2L)).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of("W/\"1-7\""), stockService.getStockETag(1L));
+        assertEquals(Optional.empty(), stockService.getStockETag(2L));
+    }
+
+    @Test
+    public void testGetChartETagFollowsPersistedVersionAndLatestTick() {
+        when(stockRepository.findVersionById(1L)).thenReturn(Optional.of(4L), Optional.of(5L));
+        when(priceHistoryRepository.findLatestTimestamp(1L)).thenReturn(1_000L);
+
+        String before = stockService.getChartETag(1L, "1d", 0L, 10L);
+        String after = stockService.getChartETag(1L, "1d", 0L, 10L);
+
+        assertEquals("W/\"1-4-1000\"", before);
+        assertNotEquals(before, after);
+        assertThrows(IllegalArgumentException.class, () -> stockService.getChartETag(1L, "2m", null, null));
     }
 
     @Test
@@ -95,6 +245,9 @@ public class StockServiceTest {
         stockService.deleteStock(1L);
         verify(stockRepository, times(1)).existsById(1L);
         verify(stockRepository, times(1)).deleteById(1L);
+        verify(chartCache, times(1)).invalidate(1L);
+        verify(marketScreener, times(1)).untrack(1L);
+        verify(stockSearchIndex, times(1)).remove(1L);
     }
 
 
@@ -124,15 +277,15 @@ public class StockServiceTest {
     @Test
     public void testUpdateStockInvalidExchangeId() throws IOException {
         Stock stock = readStocksFromJson().get(0);
-        stock.setExchangeId(999L);  // Invalid exchange ID
+        stock.setExchange(new Exchange(999L, null));  // Invalid exchange ID
         when(stockRepository.existsById(1L)).thenReturn(true);
-        when(adminExchangeFeignClient.getExchangeById(999L)).thenReturn(null); // Simulate exchange not found
+        when(exchangeCache.getExchange(999L)).thenReturn(null); // Simulate exchange not found
 
         assertThrows(InvalidExchangeIdException.class, () -> {
             stockService.updateStock(1L, stock);
         });
 
-        verify(adminExchangeFeignClient, times(1)).getExchangeById(999L);
+        verify(exchangeCache, times(1)).getExchange(999L);
         verify(stockRepository, never()).save(any(Stock.class));
     }
 
@@ -140,18 +293,18 @@ public class StockServiceTest {
     @Test
     public void testInvalidExchangeIdException() {
         // Create a stock object with an invalid exchange ID
-        Stock stock = new Stock(1L, "AAPL", 150.0, 999L); // 999L is an invalid exchange ID
+        Stock stock = stock(1L, "AAPL", 150.0, 999L); // 999L is an invalid exchange ID
 
-        // Mock the adminExchangeFeignClient to return null when the invalid exchange ID is passed
-        when(adminExchangeFeignClient.getExchangeById(anyLong())).thenReturn(null);
+        // Mock the exchange cache to return null when the invalid exchange ID is passed
+        when(exchangeCache.getExchange(anyLong())).thenReturn(null);
 
         // Expect InvalidExchangeIdException to be thrown
         assertThrows(InvalidExchangeIdException.class, () -> {
             stockService.addStock(stock);
         });
 
-        // Verify the feign client was called with the invalid exchange ID
-        verify(adminExchangeFeignClient, times(1)).getExchangeById(999L);
+        // Verify the exchange cache was asked for the invalid exchange ID
+        verify(exchangeCache, times(1)).getExchange(999L);
     }
 
 
@@ -174,7 +327,7 @@ public class StockServiceTest {
         });
 
         verify(stockRepository, times(1)).existsById(1L);
-        verify(adminExchangeFeignClient, never()).getExchangeById(anyLong());
+        verify(exchangeCache, never()).getExchange(anyLong());
         verify(stockRepository, never()).save(any(Stock.class));
     }
 
@@ -187,30 +340,123 @@ public class StockServiceTest {
 
         verify(stockRepository, times(1)).existsById(1L);
         verify(stockRepository, times(1)).deleteById(1L);
+        verify(priceHistoryService, times(1)).deleteHistory(1L);
     }
 
     @Test
-    public void testUploadStockData() throws IOException {
+    public void testSaveExcelDataRunsImportPipeline() throws IOException {
         MultipartFile mockFile = mock(MultipartFile.class);
+        ImportResult expected = new ImportResult(2L, 2L, 0L, 10L, 200.0, List.of());
+        when(stockImportPipeline.run(any(Path.class))).thenReturn(expected);
 
-        doNothing().when(stockService).uploadStockData(mockFile);
+        ImportResult result = stockService.saveExcelData(mockFile);
+
+        assertEquals(expected, result);
+        verify(mockFile, times(1)).transferTo(any(Path.class));
+        verify(stockImportPipeline, times(1)).run(any(Path.class));
+    }
+
+    @Test
+    public void testWriteTemplateExcelFile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
 
-        stockService.uploadStockData(mockFile);
+        stockService.writeTemplateExcelFile(out);
 
-        verify(stockService, times(1)).uploadStockData(mockFile);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Row header = workbook.getSheetAt(0).getRow(0);
+            assertEquals("Stock Name", header.getCell(0).getStringCellValue());
+            assertEquals("Stock Exchange ID", header.getCell(2).getStringCellValue());
+        }
     }
 
     @Test
     public void testGenerateStockChart() throws IOException {
         Stock stock = readStocksFromJson().get(0);
         when(stockRepository.findById(1L)).thenReturn(Optional.of(stock));
+        doAnswer(invocation -> {
+            PriceBarRepository.BarHandler handler = invocation.getArgument(4);
+            handler.onBar(-3 * ChartInterval.ONE_DAY.getMillis(), 150.0, 155.0, 148.0, 150.0, 25L);
+            return null;
+        }).when(priceHistoryService).streamBars(eq(1L), eq(ChartInterval.ONE_WEEK), eq(-3 * ChartInterval.ONE_DAY.getMillis()),
+                eq(10 * ChartInterval.ONE_DAY.getMillis()), any());
+
+        // 1970-01-01 was a Thursday, so the range starts with the week of 1969-12-29, read from the weekly rollup
+        StockChart chart = stockService.generateStockChart(1L, "1w", 12 * 60 * 60_000L, 10 * ChartInterval.ONE_DAY.getMillis(), null, null);
+
+        assertEquals(stock.getName(), chart.getStockName());
+        assertArrayEquals(new long[]{-3 * ChartInterval.ONE_DAY.getMillis()}, chart.getTimestamps());
+        assertArrayEquals(new double[]{150.0}, chart.getOpen());
+        assertArrayEquals(new double[]{155.0}, chart.getHigh());
+        assertArrayEquals(new double[]{148.0}, chart.getLow());
+        assertArrayEquals(new double[]{150.0}, chart.getClose());
+        assertArrayEquals(new long[]{25L}, chart.getVolume());
+    }
 
-        doNothing().when(userGraphFeignClient).generateStockChart(any(StockData.class));
+    @Test
+    public void testGenerateStockChartWarmsUpIndicators() throws IOException {
+        long day = ChartInterval.ONE_DAY.getMillis();
+        Stock stock = readStocksFromJson().get(0);
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(stock));
+        doAnswer(invocation -> {
+            PriceBarRepository.BarHandler handler = invocation.getArgument(4);
+            handler.onBar(9 * day, 10.0, 10.0, 10.0, 10.0, 1L);
+            handler.onBar(10 * day, 20.0, 20.0, 20.0, 20.0, 1L);
+            handler.onBar(11 * day, 30.0, 30.0, 30.0, 30.0, 1L);
+            return null;
+        }).when(priceHistoryService).streamBars(eq(1L), eq(ChartInterval.ONE_DAY), eq(9 * day), eq(12 * day), any());
+
+        StockChart chart = stockService.generateStockChart(1L, "1d", 10 * day, 12 * day, null, "sma(2)");
+
+        assertArrayEquals(new long[]{10 * day, 11 * day}, chart.getTimestamps());
+        assertEquals(0, chart.getOverlays().get(0).getOffset());
+        assertArrayEquals(new double[]{15.0, 25.0}, chart.getOverlays().get(0).getValues());
+    }
 
-        stockService.generateStockChart(1L);
+    @Test
+    public void testCompareStocksAlignsSeriesOnCommonAxis() {
+        long day = ChartInterval.ONE_DAY.getMillis();
+        Stock first = new Stock();
+        first.setId(1L);
+        first.setName("AAPL");
+        Stock second = new Stock();
+        second.setId(2L);
+        second.setName("MSFT");
+        when(stockRepository.findAllById(any())).thenReturn(List.of(second, first));
+        doAnswer(invocation -> {
+            Map<Long, PriceBarRepository.BarHandler> handlers = invocation.getArgument(4);
+            handlers.get(1L).onBar(0L, 100.0, 100.0, 100.0, 100.0, 1L);
+            handlers.get(1L).onBar(2 * day, 110.0, 110.0, 110.0, 110.0, 1L);
+            handlers.get(2L).onBar(day, 50.0, 50.0, 50.0, 50.0, 1L);
+            handlers.get(2L).onBar(2 * day, 40.0, 40.0, 40.0, 40.0, 1L);
+            return null;
+        }).when(priceHistoryService).streamBars(anyCollection(), eq(ChartInterval.ONE_DAY), eq(0L), eq(3 * day), anyMap());
+
+        StockComparison comparison = stockService.compareStocks(List.of(1L, 2L, 1L), "1d", 0L, 3 * day);
+
+        assertArrayEquals(new long[]{0L, day, 2 * day}, comparison.getTimestamps());
+        assertEquals(2, comparison.getSeries().size());
+        assertEquals("AAPL", comparison.getSeries().get(0).getStockName());
+        assertEquals(0, comparison.getSeries().get(0).getOffset());
+        assertArrayEquals(new double[]{0.0, 0.0, 10.0}, comparison.getSeries().get(0).getChanges(), 1e-9);
+        assertEquals(1, comparison.getSeries().get(1).getOffset());
+        assertArrayEquals(new double[]{0.0, -20.0}, comparison.getSeries().get(1).getChanges(), 1e-9);
+        verify(stockRepository, never()).findById(anyLong());
+    }
 
-        verify(stockRepository, times(1)).findById(1L);
-        verify(userGraphFeignClient, times(1)).generateStockChart(any(StockData.class));
+    @Test
+    public void testCompareStocksUnknownStock() {
+        Stock first = new Stock();
+        first.setId(1L);
+        when(stockRepository.findAllById(any())).thenReturn(List.of(first));
+
+        assertThrows(StockNotFoundException.class, () -> stockService.compareStocks(List.of(1L, 2L), "1d", null, null));
+        verify(priceHistoryService, never()).streamBars(anyCollection(), any(), anyLong(), anyLong(), anyMap());
+    }
+
+    @Test
+    public void testCompareStocksRejectsTooManyStocks() {
+        assertThrows(IllegalArgumentException.class, () -> stockService.compareStocks(List.of(1L, 2L, 3L, 4L), "1d", null, null));
+        assertThrows(IllegalArgumentException.class, () -> stockService.compareStocks(List.of(), "1d", null, null));
     }
 
     @Test
@@ -218,25 +464,40 @@ public class StockServiceTest {
         when(stockRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(StockNotFoundException.class, () -> {
-            stockService.generateStockChart(1L);
+            stockService.generateStockChart(1L, "1d", null, null, null, null);
         });
 
         verify(stockRepository, times(1)).findById(1L);
-        verify(userGraphFeignClient, never()).generateStockChart(any(StockData.class));
+        verify(priceHistoryService, never()).streamBars(anyLong(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testSaveAllInvalidExchangeId() {
+        Stock stock = stock(null, "AAPL", 150.0, 999L);
+        List<Stock> stocks = List.of(stock);
+        when(exchangeCache.findUnknownIds(anyCollection())).thenReturn(Set.of(999L));
+
+        assertThrows(InvalidExchangeIdException.class, () -> stockService.saveAll(stocks));
+
+        verify(stockBulkRepository, never()).insertAll(anyList());
     }
 
     @Test
     public void testSaveAll() {
         // Given
-        Stock stock1 = new Stock(null, "AAPL", 150.0, 1L);
-        Stock stock2 = new Stock(null, "GOOGL", 2800.0, 1L);
+        Stock stock1 = stock(null, "AAPL", 150.0, 1L);
+        Stock stock2 = stock(null, "GOOGL", 2800.0, 1L);
         List<Stock> stocks = List.of(stock1, stock2);
+        when(stockBulkRepository.insertAll(stocks)).thenReturn(new BulkWriteResult(2L, 1L, 2000.0));
 
         // When
-        stockService.saveAll(stocks);
+        BulkWriteResult result = stockService.saveAll(stocks);
 
         // Then
-        verify(stockRepository, times(1)).saveAll(stocks);
+        assertEquals(2L, result.getRowsWritten());
+        verify(stockBulkRepository, times(1)).insertAll(stocks);
+        verify(stockSearchIndex, times(1)).markStale();
+        verify(stockRepository, never()).saveAll(anyList());
     }
 
 }
@@ -0,0 +1,102 @@
+package com.cg.stockmarket.adminuser.controller;
+
+import com.cg.stockmarket.adminuser.dto.PriceTick;
+import com.cg.stockmarket.adminuser.model.PriceAlert;
+import com.cg.stockmarket.adminuser.service.PriceAlertService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for users' price alerts.
+ * Provides endpoints to create, list and delete alerts, and the endpoint the stock service
+ * reports price moves to.
+ */
+@RestController
+@RequestMapping("/alerts")
+@Tag(name = "Price Alerts", description = "Endpoints for managing users' price alerts")
+public class PriceAlertController {
+
+    @Autowired
+    private PriceAlertService priceAlertService;
+
+    /**
+     * Creates a price alert for a user.
+     *
+     * @param alert The alert: user, stock, direction (ABOVE or BELOW) and threshold.
+     * @return The created alert.
+     */
+    @Operation(summary = "Create a price alert", description = "Notify a user when a stock's price rises above or falls below a threshold")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created alert"),
+            @ApiResponse(responseCode = "400", description = "Missing stock or direction, or invalid threshold"),
+            @ApiResponse(responseCode = "404", description = "User not found")
+    })
+    @PostMapping
+    public ResponseEntity<PriceAlert> createAlert(
+            @Parameter(description = "Alert to be created") @RequestBody PriceAlert alert) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(priceAlertService.createAlert(alert));
+    }
+
+    /**
+     * Retrieves the alerts of a user.
+     *
+     * @param userId The ID of the user.
+     * @param status Only return alerts in this status: ACTIVE or TRIGGERED.
+     * @return The user's alerts.
+     */
+    @Operation(summary = "Get alerts of a user", description = "Retrieve a user's active and triggered price alerts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved alerts")
+    })
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<PriceAlert>> getAlertsByUser(
+            @Parameter(description = "ID of the user") @PathVariable Long userId,
+            @Parameter(description = "Status to filter alerts") @RequestParam(required = false) PriceAlert.Status status) {
+        return ResponseEntity.ok(priceAlertService.getAlertsByUser(userId, status));
+    }
+
+    /**
+     * Deletes a price alert.
+     *
+     * @param id The ID of the alert.
+     * @return A no-content response if the alert was deleted.
+     */
+    @Operation(summary = "Delete a price alert", description = "Delete a price alert by its ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successfully deleted alert"),
+            @ApiResponse(responseCode = "404", description = "Alert not found")
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteAlert(
+            @Parameter(description = "ID of the alert to delete") @PathVariable Long id) {
+        priceAlertService.deleteAlert(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Matches a batch of price moves against the active alerts.
+     * Called by the stock service as prices are written.
+     *
+     * @param ticks The price moves, with the low, high and last price of each stock.
+     * @return The alerts the moves triggered, or a 503 status while the alerts are still loading.
+     */
+    @Operation(summary = "Evaluate price moves", description = "Trigger the alerts crossed by a batch of price moves")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Price moves evaluated"),
+            @ApiResponse(responseCode = "503", description = "Alerts not loaded yet, send the moves again later")
+    })
+    @PostMapping("/prices")
+    public ResponseEntity<List<PriceAlert>> evaluatePrices(
+            @Parameter(description = "Price moves to evaluate") @RequestBody List<PriceTick> ticks) {
+        return ResponseEntity.ok(priceAlertService.evaluate(ticks));
+    }
+}
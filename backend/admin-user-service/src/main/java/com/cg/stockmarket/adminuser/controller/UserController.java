@@ -1,5 +1,6 @@
 package com.cg.stockmarket.adminuser.controller;
 
+import com.cg.stockmarket.adminuser.dto.KeysetPage;
 import com.cg.stockmarket.adminuser.model.User;
 import com.cg.stockmarket.adminuser.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,18 +28,32 @@ public class UserController {
     private UserService userService;
 
     /**
-     * Retrieves all users.
+     * Retrieves one page of users in ID order, optionally filtered by role and username prefix.
+     * When more users follow, the X-Next-Cursor header carries the cursor of the next page.
      *
-     * @return A list of all users.
+     * @param cursor         The cursor returned with the previous page, or none for the first page.
+     * @param limit          The page size; capped at the configured maximum.
+     * @param role           Only return users with this role.
+     * @param usernamePrefix Only return users whose username starts with this.
+     * @return A page of users.
      */
-    @Operation(summary = "Get all users", description = "Retrieve a list of all users")
+    @Operation(summary = "Get users", description = "Retrieve users page by page; follow X-Next-Cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of users")
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of users"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit")
     })
     @GetMapping("/getAll")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getAllUsers(
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Page size") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Role to filter users") @RequestParam(required = false) String role,
+            @Parameter(description = "Username prefix to filter users") @RequestParam(required = false) String usernamePrefix) {
+        KeysetPage<User> page = userService.getUsersPage(cursor, limit, role, usernamePrefix);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", String.valueOf(page.getNextCursor()));
+        }
+        return response.body(page.getItems());
     }
 
     /**
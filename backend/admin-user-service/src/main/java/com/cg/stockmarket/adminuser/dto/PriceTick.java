@@ -0,0 +1,21 @@
+package com.cg.stockmarket.adminuser.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The price movement of one stock over a short window: the lowest, highest and last price
+ * written, and the time of the last one. Alerts are matched against the low and the high, so
+ * a threshold crossed and left again within the window still fires.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceTick {
+    private Long stockId;
+    private double low;
+    private double high;
+    private double last;
+    private long timestamp;
+}
@@ -0,0 +1,7 @@
+package com.cg.stockmarket.adminuser.exception;
+
+public class AlertsNotReadyException extends RuntimeException {
+    public AlertsNotReadyException(String message) {
+        super(message);
+    }
+}
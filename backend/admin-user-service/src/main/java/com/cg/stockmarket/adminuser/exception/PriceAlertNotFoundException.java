@@ -0,0 +1,7 @@
+package com.cg.stockmarket.adminuser.exception;
+
+public class PriceAlertNotFoundException extends RuntimeException {
+    public PriceAlertNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cg.stockmarket.adminuser.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A user's request to be notified when a stock's price reaches a threshold.
+ * An alert fires once: when it is triggered it records the time and the price that crossed
+ * the threshold, and is no longer evaluated.
+ */
+@Entity
+@Table(name = "price_alerts", indexes = {
+        @Index(name = "idx_price_alerts_user", columnList = "user_id"),
+        @Index(name = "idx_price_alerts_status", columnList = "status")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PriceAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "stock_id", nullable = false)
+    private Long stockId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Direction direction;
+
+    @Column(nullable = false)
+    private double threshold;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    private Instant createdAt;
+
+    private Instant triggeredAt;
+
+    private Double triggeredPrice;
+
+    /**
+     * Whether the alert fires when the price rises to the threshold or falls to it.
+     */
+    public enum Direction {
+        ABOVE,
+        BELOW
+    }
+
+    public enum Status {
+        ACTIVE,
+        TRIGGERED
+    }
+}
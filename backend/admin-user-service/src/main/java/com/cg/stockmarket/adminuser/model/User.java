@@ -35,4 +35,8 @@ public class User {
 
     @OneToMany(mappedBy = "user")
     private Set<StockDto> stocks;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
\ No newline at end of file
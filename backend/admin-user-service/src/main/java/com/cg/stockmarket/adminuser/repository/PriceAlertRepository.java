@@ -0,0 +1,38 @@
+package com.cg.stockmarket.adminuser.repository;
+
+import com.cg.stockmarket.adminuser.model.PriceAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PriceAlertRepository extends JpaRepository<PriceAlert, Long> {
+    List<PriceAlert> findByStatus(PriceAlert.Status status);
+
+    List<PriceAlert> findByUserIdOrderById(Long userId);
+
+    List<PriceAlert> findByUserIdAndStatusOrderById(Long userId, PriceAlert.Status status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PriceAlert a WHERE a.userId = :userId")
+    int deleteByUserId(Long userId);
+
+    /**
+     * Marks an alert as triggered unless it is no longer active, e.g. because another instance
+     * triggered it first.
+     *
+     * @return 1 if this call triggered the alert, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PriceAlert a SET a.status = com.cg.stockmarket.adminuser.model.PriceAlert.Status.TRIGGERED, "
+            + "a.triggeredAt = :triggeredAt, a.triggeredPrice = :triggeredPrice "
+            + "WHERE a.id = :id AND a.status = com.cg.stockmarket.adminuser.model.PriceAlert.Status.ACTIVE")
+    int markTriggered(Long id, Instant triggeredAt, Double triggeredPrice);
+}
@@ -1,12 +1,29 @@
 package com.cg.stockmarket.adminuser.repository;
 
 import com.cg.stockmarket.adminuser.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByRole(String role);
+
+    /**
+     * Reads the users after a cursor in ID order. Null filters are ignored; the username prefix is
+     * a LIKE pattern escaped with {@code !}. The page size is taken from {@code page}, which should
+     * always ask for its first page because the cursor, not an offset, does the skipping.
+     */
+    @Query("SELECT u FROM User u WHERE (:cursor IS NULL OR u.id > :cursor)"
+            + " AND (:role IS NULL OR :role MEMBER OF u.roles)"
+            + " AND (:usernamePattern IS NULL OR u.username LIKE :usernamePattern ESCAPE '!')"
+            + " ORDER BY u.id")
+    List<User> findPage(Long cursor, String role, String usernamePattern, Pageable page);
+
+    @Query("SELECT u.version FROM User u WHERE u.id = :id")
+    Optional<Long> findVersionById(Long id);
 }
@@ -0,0 +1,153 @@
+package com.cg.stockmarket.adminuser.service;
+
+import com.cg.stockmarket.adminuser.model.PriceAlert;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the active price alerts, used to find the alerts a price move triggers
+ * without looking at the others.
+ * <p>
+ * Each stock has two sorted maps from threshold to alert IDs, one for alerts on a rising price
+ * and one for alerts on a falling price. A move up to {@code high} triggers exactly the head of
+ * the first map up to {@code high}, and a move down to {@code low} the tail of the second map
+ * from {@code low}, so matching costs O(log n + k) for k triggered alerts out of n.
+ * <p>
+ * The index is empty until the active alerts have been loaded from the database, and reports
+ * itself loaded only then, so that price moves are not matched against a partial index.
+ */
+@Component
+public class PriceAlertIndex {
+
+    private final Map<Long, StockAlerts> byStock = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * Adds an active alert to the index.
+     *
+     * @param alert the alert, with its ID assigned
+     */
+    public void add(PriceAlert alert) {
+        byStock.computeIfAbsent(alert.getStockId(), id -> new StockAlerts()).add(alert);
+    }
+
+    /**
+     * Removes an alert from the index, if present.
+     *
+     * @param alert the alert
+     */
+    public void remove(PriceAlert alert) {
+        StockAlerts alerts = byStock.get(alert.getStockId());
+        if (alerts != null) {
+            alerts.remove(alert);
+        }
+    }
+
+    /**
+     * Removes and returns the alerts of a stock that a price move between {@code low} and
+     * {@code high} triggers: rising alerts at or below the high and falling alerts at or above
+     * the low.
+     *
+     * @param stockId the ID of the stock
+     * @param low     the lowest price of the move
+     * @param high    the highest price of the move
+     * @return the IDs of the triggered alerts
+     */
+    public List<Long> match(Long stockId, double low, double high) {
+        StockAlerts alerts = byStock.get(stockId);
+        return alerts != null ? alerts.match(low, high) : List.of();
+    }
+
+    /**
+     * Records that every active alert has been added.
+     */
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Returns whether every active alert has been added, so that matching is complete.
+     *
+     * @return true once loaded
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Drops every alert from the index.
+     */
+    public void clear() {
+        byStock.clear();
+    }
+
+    /**
+     * Returns the number of indexed alerts.
+     *
+     * @return the alert count
+     */
+    public int size() {
+        return byStock.values().stream().mapToInt(StockAlerts::size).sum();
+    }
+
+    /**
+     * The alerts of one stock, guarded by its own monitor.
+     */
+    private static class StockAlerts {
+
+        private final NavigableMap<Double, Set<Long>> above = new TreeMap<>();
+        private final NavigableMap<Double, Set<Long>> below = new TreeMap<>();
+        private int size;
+
+        synchronized void add(PriceAlert alert) {
+            if (side(alert).computeIfAbsent(alert.getThreshold(), t -> new HashSet<>()).add(alert.getId())) {
+                size++;
+            }
+        }
+
+        synchronized void remove(PriceAlert alert) {
+            NavigableMap<Double, Set<Long>> side = side(alert);
+            Set<Long> ids = side.get(alert.getThreshold());
+            if (ids != null && ids.remove(alert.getId())) {
+                size--;
+                if (ids.isEmpty()) {
+                    side.remove(alert.getThreshold());
+                }
+            }
+        }
+
+        synchronized List<Long> match(double low, double high) {
+            List<Long> triggered = new ArrayList<>();
+            drain(above.headMap(high, true), triggered);
+            drain(below.tailMap(low, true), triggered);
+            size -= triggered.size();
+            return triggered;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private NavigableMap<Double, Set<Long>> side(PriceAlert alert) {
+            return alert.getDirection() == PriceAlert.Direction.ABOVE ? above : below;
+        }
+
+        private static void drain(NavigableMap<Double, Set<Long>> range, List<Long> triggered) {
+            if (range.isEmpty()) {
+                return;
+            }
+            range.values().forEach(triggered::addAll);
+            // Clearing the view removes the entries from the backing map
+            range.clear();
+        }
+    }
+}
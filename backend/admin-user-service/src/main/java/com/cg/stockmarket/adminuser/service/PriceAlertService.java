@@ -0,0 +1,170 @@
+package com.cg.stockmarket.adminuser.service;
+
+import com.cg.stockmarket.adminuser.dto.PriceTick;
+import com.cg.stockmarket.adminuser.exception.AlertsNotReadyException;
+import com.cg.stockmarket.adminuser.exception.PriceAlertNotFoundException;
+import com.cg.stockmarket.adminuser.exception.UserNotFoundException;
+import com.cg.stockmarket.adminuser.model.PriceAlert;
+import com.cg.stockmarket.adminuser.repository.PriceAlertRepository;
+import com.cg.stockmarket.adminuser.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for managing users' price alerts and matching them against price moves.
+ * Active alerts are held in a {@link PriceAlertIndex}, so a batch of price moves only touches
+ * the alerts it triggers, however many alerts exist.
+ * <p>
+ * Every instance of the service loads the active alerts and is sent every price move. An alert
+ * matched on several instances is triggered by whichever marks it in the database first.
+ */
+@Service
+public class PriceAlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceAlertService.class);
+
+    @Autowired
+    private PriceAlertRepository priceAlertRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PriceAlertIndex priceAlertIndex;
+
+    /**
+     * Loads the active alerts into the index once the application is ready to serve requests.
+     * Price moves are refused until then. The index is cleared before the query, so alerts
+     * created while it runs are indexed either way.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveAlerts() {
+        priceAlertIndex.clear();
+        List<PriceAlert> active = priceAlertRepository.findByStatus(PriceAlert.Status.ACTIVE);
+        active.forEach(priceAlertIndex::add);
+        priceAlertIndex.markLoaded();
+        logger.info("Loaded {} active price alerts", active.size());
+    }
+
+    /**
+     * Creates an alert for a user.
+     *
+     * @param alert the alert; its user, stock, direction and a positive threshold are required.
+     * @return the saved alert.
+     * @throws UserNotFoundException if the user does not exist.
+     * @throws IllegalArgumentException if the stock, direction or threshold is missing or invalid.
+     */
+    public PriceAlert createAlert(PriceAlert alert) {
+        if (alert.getStockId() == null || alert.getDirection() == null) {
+            throw new IllegalArgumentException("Stock ID and direction are required");
+        }
+        if (!(alert.getThreshold() > 0)) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        if (alert.getUserId() == null || !userRepository.existsById(alert.getUserId())) {
+            throw new UserNotFoundException("User not found with id: " + alert.getUserId());
+        }
+        alert.setId(null);
+        alert.setStatus(PriceAlert.Status.ACTIVE);
+        alert.setCreatedAt(Instant.now());
+        alert.setTriggeredAt(null);
+        alert.setTriggeredPrice(null);
+        PriceAlert saved = priceAlertRepository.save(alert);
+        priceAlertIndex.add(saved);
+        return saved;
+    }
+
+    /**
+     * Retrieves the alerts of a user.
+     *
+     * @param userId the ID of the user.
+     * @param status only return alerts in this status, or null for all.
+     * @return the user's alerts in creation order.
+     */
+    public List<PriceAlert> getAlertsByUser(Long userId, PriceAlert.Status status) {
+        return status != null ? priceAlertRepository.findByUserIdAndStatusOrderById(userId, status)
+                : priceAlertRepository.findByUserIdOrderById(userId);
+    }
+
+    /**
+     * Deletes an alert.
+     *
+     * @param id the ID of the alert.
+     * @throws PriceAlertNotFoundException if the alert does not exist.
+     */
+    public void deleteAlert(Long id) {
+        PriceAlert alert = priceAlertRepository.findById(id)
+                .orElseThrow(() -> new PriceAlertNotFoundException("Price alert not found with id: " + id));
+        priceAlertRepository.delete(alert);
+        priceAlertIndex.remove(alert);
+    }
+
+    /**
+     * Deletes every alert of a user, e.g. when the user is deleted.
+     *
+     * @param userId the ID of the user.
+     */
+    public void deleteAlertsOfUser(Long userId) {
+        priceAlertRepository.findByUserIdOrderById(userId).forEach(priceAlertIndex::remove);
+        priceAlertRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Triggers the alerts crossed by a batch of price moves. Only the alerts each move
+     * crosses are looked at; they are marked as triggered with the price that crossed them.
+     *
+     * @param ticks the price moves, one or more per stock.
+     * @return the alerts triggered by this batch; alerts another instance triggered first are left out.
+     * @throws AlertsNotReadyException if the active alerts have not been loaded yet; the caller
+     *                                 should send the moves again later.
+     */
+    public List<PriceAlert> evaluate(List<PriceTick> ticks) {
+        if (!priceAlertIndex.isLoaded()) {
+            throw new AlertsNotReadyException("Price alerts are still loading");
+        }
+        Map<Long, PriceTick> crossedBy = new HashMap<>();
+        for (PriceTick tick : ticks) {
+            for (Long alertId : priceAlertIndex.match(tick.getStockId(), tick.getLow(), tick.getHigh())) {
+                crossedBy.put(alertId, tick);
+            }
+        }
+        if (crossedBy.isEmpty()) {
+            return List.of();
+        }
+        List<PriceAlert> crossed = priceAlertRepository.findAllById(crossedBy.keySet());
+        List<PriceAlert> triggered = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < crossed.size(); i++) {
+            PriceAlert alert = crossed.get(i);
+            PriceTick tick = crossedBy.get(alert.getId());
+            double price = alert.getDirection() == PriceAlert.Direction.ABOVE ? tick.getHigh() : tick.getLow();
+            try {
+                if (priceAlertRepository.markTriggered(alert.getId(), now, price) == 0) {
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                // Put the remaining alerts back so that the next move past their thresholds triggers them again
+                crossed.subList(i, crossed.size()).forEach(priceAlertIndex::add);
+                throw e;
+            }
+            alert.setStatus(PriceAlert.Status.TRIGGERED);
+            alert.setTriggeredAt(now);
+            alert.setTriggeredPrice(price);
+            triggered.add(alert);
+        }
+        triggered.forEach(alert -> logger.info("Price alert {} of user {} triggered: stock {} {} {} at {}",
+                alert.getId(), alert.getUserId(), alert.getStockId(), alert.getDirection(), alert.getThreshold(),
+                alert.getTriggeredPrice()));
+        return triggered;
+    }
+}
@@ -1,9 +1,12 @@
 package com.cg.stockmarket.adminuser.service;
 
+import com.cg.stockmarket.adminuser.dto.KeysetPage;
 import com.cg.stockmarket.adminuser.exception.UserNotFoundException;
 import com.cg.stockmarket.adminuser.model.User;
 import com.cg.stockmarket.adminuser.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,13 +23,36 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PriceAlertService priceAlertService;
+
+    @Value("${user.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${user.listing.max-page-size:1000}")
+    private int maxPageSize;
+
     /**
-     * Retrieves a list of all users in the system.
+     * Retrieves one page of users in ID order, optionally filtered.
+     * Pages are read by seeking past the cursor on the primary key rather than with an offset,
+     * so deep pages cost the same as the first one.
      *
-     * @return a list of {@link User} objects.
+     * @param cursor         the ID after which the page starts, or null for the first page.
+     * @param limit          the page size, or null for the default; capped at the configured maximum.
+     * @param role           only return users with this role, or null for all.
+     * @param usernamePrefix only return users whose username starts with this, or null.
+     * @return the users of the page and the cursor of the next one.
+     * @throws IllegalArgumentException if the limit is not positive.
      */
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public KeysetPage<User> getUsersPage(Long cursor, Integer limit, String role, String usernamePrefix) {
+        int pageSize = limit != null ? Math.min(limit, maxPageSize) : defaultPageSize;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        String usernamePattern = usernamePrefix == null || usernamePrefix.isEmpty() ? null
+                : usernamePrefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        List<User> rows = userRepository.findPage(cursor, role, usernamePattern, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, User::getId);
     }
 
     /**
@@ -53,6 +79,7 @@ public class UserService {
 
     /**
      * Updates an existing user by their ID.
+     * A user sent without a version is applied to whatever version is stored.
      *
      * @param id the ID of the user to update.
      * @param user the {@link User} object containing the updated details.
@@ -62,19 +89,23 @@ public class UserService {
     public User updateUser(Long id, User user) {
         if (userRepository.existsById(id)) {
             user.setId(id);
+            if (user.getVersion() == null) {
+                userRepository.findVersionById(id).ifPresent(user::setVersion);
+            }
             return userRepository.save(user);
         } //directly throwing message without creating custom exception
         throw new UserNotFoundException("User not found with id: " + id);
     }
 
     /**
-     * Deletes a user by their ID.
+     * Deletes a user by their ID, together with their price alerts.
      *
      * @param id the ID of the user to delete.
      * @throws UserNotFoundException if the user with the specified ID does not exist.
      */
     public void deleteUser(Long id) {
         if (userRepository.existsById(id)) {
+            priceAlertService.deleteAlertsOfUser(id);
             userRepository.deleteById(id);
         } else {
             throw new UserNotFoundException("User not found with id: " + id);
@@ -1,5 +1,6 @@
 package com.cg.stockmarket.adminuser.controller;
 
+import com.cg.stockmarket.adminuser.dto.KeysetPage;
 import com.cg.stockmarket.adminuser.model.User;
 import com.cg.stockmarket.adminuser.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -113,13 +114,27 @@ public class UserControllerTest {
     @Test
     public void testGetAllUsers() throws Exception {
         List<User> users = Arrays.asList(user);
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getUsersPage(null, null, null, null)).thenReturn(new KeysetPage<>(users, null));
 
-        mockMvc.perform(get("/users"))
+        mockMvc.perform(get("/users/getAll"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$.size()").value(users.size()));
 
-        verify(userService).getAllUsers();
+        verify(userService).getUsersPage(null, null, null, null);
+    }
+
+    @Test
+    public void testGetAllUsersNextPage() throws Exception {
+        when(userService.getUsersPage(0L, 1, "ROLE_USER", "Viv")).thenReturn(new KeysetPage<>(List.of(user), 1L));
+
+        mockMvc.perform(get("/users/getAll")
+                        .param("cursor", "0")
+                        .param("limit", "1")
+                        .param("role", "ROLE_USER")
+                        .param("usernamePrefix", "Viv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "1"));
     }
 
     @Test
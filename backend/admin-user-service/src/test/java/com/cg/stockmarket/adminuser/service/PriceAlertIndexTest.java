@@ -0,0 +1,63 @@
+package com.cg.stockmarket.adminuser.service;
+
+import com.cg.stockmarket.adminuser.model.PriceAlert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceAlertIndexTest {
+
+    private PriceAlertIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PriceAlertIndex();
+    }
+
+    private static PriceAlert alert(Long id, Long stockId, PriceAlert.Direction direction, double threshold) {
+        return new PriceAlert(id, 1L, stockId, direction, threshold, PriceAlert.Status.ACTIVE, null, null, null);
+    }
+
+    @Test
+    public void testMatchTriggersOnlyCrossedThresholds() {
+        index.add(alert(1L, 10L, PriceAlert.Direction.ABOVE, 200.0));
+        index.add(alert(2L, 10L, PriceAlert.Direction.ABOVE, 210.0));
+        index.add(alert(3L, 10L, PriceAlert.Direction.BELOW, 180.0));
+        index.add(alert(4L, 10L, PriceAlert.Direction.BELOW, 190.0));
+        index.add(alert(5L, 11L, PriceAlert.Direction.ABOVE, 100.0));
+
+        List<Long> triggered = index.match(10L, 189.0, 205.0);
+
+        assertEquals(Set.of(1L, 4L), Set.copyOf(triggered));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testTriggeredAlertFiresOnce() {
+        index.add(alert(1L, 10L, PriceAlert.Direction.ABOVE, 200.0));
+
+        assertEquals(List.of(1L), index.match(10L, 200.0, 200.0));
+        assertTrue(index.match(10L, 250.0, 250.0).isEmpty());
+    }
+
+    @Test
+    public void testRemovedAlertDoesNotFire() {
+        PriceAlert alert = alert(1L, 10L, PriceAlert.Direction.BELOW, 100.0);
+        index.add(alert);
+        index.add(alert(2L, 10L, PriceAlert.Direction.BELOW, 100.0));
+
+        index.remove(alert);
+
+        assertEquals(List.of(2L), index.match(10L, 90.0, 90.0));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testUnknownStockMatchesNothing() {
+        assertTrue(index.match(99L, 0.0, 1_000.0).isEmpty());
+    }
+}
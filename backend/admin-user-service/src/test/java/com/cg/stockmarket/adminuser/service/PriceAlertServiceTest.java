@@ -0,0 +1,170 @@
+package com.cg.stockmarket.adminuser.service;
+
+import com.cg.stockmarket.adminuser.dto.PriceTick;
+import com.cg.stockmarket.adminuser.exception.AlertsNotReadyException;
+import com.cg.stockmarket.adminuser.exception.PriceAlertNotFoundException;
+import com.cg.stockmarket.adminuser.exception.UserNotFoundException;
+import com.cg.stockmarket.adminuser.model.PriceAlert;
+import com.cg.stockmarket.adminuser.repository.PriceAlertRepository;
+import com.cg.stockmarket.adminuser.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PriceAlertServiceTest {
+
+    @InjectMocks
+    private PriceAlertService priceAlertService;
+
+    @Mock
+    private PriceAlertRepository priceAlertRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Spy
+    private PriceAlertIndex priceAlertIndex = new PriceAlertIndex();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        priceAlertIndex.markLoaded();
+    }
+
+    private static PriceAlert alert(Long id, PriceAlert.Direction direction, double threshold) {
+        return new PriceAlert(id, 1L, 10L, direction, threshold, PriceAlert.Status.ACTIVE, null, null, null);
+    }
+
+    @Test
+    public void testCreateAlertIndexesIt() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(priceAlertRepository.save(any(PriceAlert.class))).thenAnswer(invocation -> {
+            PriceAlert saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+
+        PriceAlert created = priceAlertService.createAlert(alert(null, PriceAlert.Direction.ABOVE, 200.0));
+
+        assertEquals(PriceAlert.Status.ACTIVE, created.getStatus());
+        assertNotNull(created.getCreatedAt());
+        assertEquals(List.of(7L), priceAlertIndex.match(10L, 200.0, 200.0));
+    }
+
+    @Test
+    public void testCreateAlertForUnknownUser() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class,
+                () -> priceAlertService.createAlert(alert(null, PriceAlert.Direction.ABOVE, 200.0)));
+        verify(priceAlertRepository, never()).save(any());
+    }
+
+    @Test
+    public void testCreateAlertRejectsInvalidThreshold() {
+        assertThrows(IllegalArgumentException.class,
+                () -> priceAlertService.createAlert(alert(null, PriceAlert.Direction.ABOVE, 0.0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> priceAlertService.createAlert(alert(null, null, 10.0)));
+    }
+
+    @Test
+    public void testEvaluateTriggersCrossedAlertsWithCrossingPrice() {
+        PriceAlert above = alert(1L, PriceAlert.Direction.ABOVE, 200.0);
+        PriceAlert below = alert(2L, PriceAlert.Direction.BELOW, 150.0);
+        priceAlertIndex.add(above);
+        priceAlertIndex.add(below);
+        when(priceAlertRepository.findAllById(any())).thenReturn(List.of(above));
+        when(priceAlertRepository.markTriggered(eq(1L), any(), eq(205.0))).thenReturn(1);
+
+        List<PriceAlert> triggered = priceAlertService.evaluate(List.of(new PriceTick(10L, 190.0, 205.0, 198.0, 1_000L)));
+
+        assertEquals(1, triggered.size());
+        assertEquals(PriceAlert.Status.TRIGGERED, above.getStatus());
+        assertEquals(205.0, above.getTriggeredPrice());
+        assertNotNull(above.getTriggeredAt());
+        verify(priceAlertRepository).findAllById(argThat(ids -> ids.iterator().next().equals(1L)));
+        verify(priceAlertRepository).markTriggered(eq(1L), eq(above.getTriggeredAt()), eq(205.0));
+        assertEquals(1, priceAlertIndex.size());
+    }
+
+    @Test
+    public void testAlertTriggeredElsewhereIsNotReturned() {
+        PriceAlert above = alert(1L, PriceAlert.Direction.ABOVE, 200.0);
+        priceAlertIndex.add(above);
+        when(priceAlertRepository.findAllById(any())).thenReturn(List.of(above));
+        when(priceAlertRepository.markTriggered(eq(1L), any(), anyDouble())).thenReturn(0);
+
+        assertTrue(priceAlertService.evaluate(List.of(new PriceTick(10L, 201.0, 201.0, 201.0, 1_000L))).isEmpty());
+        assertEquals(PriceAlert.Status.ACTIVE, above.getStatus());
+        assertEquals(0, priceAlertIndex.size());
+    }
+
+    @Test
+    public void testEvaluateRefusedUntilAlertsAreLoaded() {
+        PriceAlertIndex loading = new PriceAlertIndex();
+        ReflectionTestUtils.setField(priceAlertService, "priceAlertIndex", loading);
+        when(priceAlertRepository.findByStatus(PriceAlert.Status.ACTIVE))
+                .thenReturn(List.of(alert(1L, PriceAlert.Direction.ABOVE, 200.0)));
+        when(priceAlertRepository.findAllById(any())).thenReturn(List.of());
+        List<PriceTick> ticks = List.of(new PriceTick(10L, 201.0, 201.0, 201.0, 1_000L));
+
+        assertThrows(AlertsNotReadyException.class, () -> priceAlertService.evaluate(ticks));
+        assertEquals(0, loading.size());
+
+        priceAlertService.loadActiveAlerts();
+        priceAlertService.evaluate(ticks);
+
+        verify(priceAlertRepository).findAllById(argThat(ids -> ids.iterator().next().equals(1L)));
+    }
+
+    @Test
+    public void testEvaluateWithoutCrossingsSkipsDatabase() {
+        priceAlertIndex.add(alert(1L, PriceAlert.Direction.ABOVE, 200.0));
+
+        assertTrue(priceAlertService.evaluate(List.of(new PriceTick(10L, 150.0, 160.0, 155.0, 1_000L))).isEmpty());
+        verifyNoInteractions(priceAlertRepository);
+    }
+
+    @Test
+    public void testFailedSaveKeepsAlertsActive() {
+        PriceAlert above = alert(1L, PriceAlert.Direction.ABOVE, 200.0);
+        priceAlertIndex.add(above);
+        when(priceAlertRepository.findAllById(any())).thenReturn(List.of(above));
+        when(priceAlertRepository.markTriggered(any(), any(), any())).thenThrow(new RuntimeException("Database down"));
+
+        assertThrows(RuntimeException.class,
+                () -> priceAlertService.evaluate(List.of(new PriceTick(10L, 201.0, 201.0, 201.0, 1_000L))));
+        assertEquals(1, priceAlertIndex.size());
+    }
+
+    @Test
+    public void testDeleteAlertRemovesItFromIndex() {
+        PriceAlert above = alert(1L, PriceAlert.Direction.ABOVE, 200.0);
+        priceAlertIndex.add(above);
+        when(priceAlertRepository.findById(1L)).thenReturn(Optional.of(above));
+
+        priceAlertService.deleteAlert(1L);
+
+        verify(priceAlertRepository).delete(above);
+        assertEquals(0, priceAlertIndex.size());
+    }
+
+    @Test
+    public void testDeleteUnknownAlert() {
+        when(priceAlertRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(PriceAlertNotFoundException.class, () -> priceAlertService.deleteAlert(1L));
+    }
+}
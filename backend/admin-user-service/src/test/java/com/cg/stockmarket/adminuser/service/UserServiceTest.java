@@ -1,5 +1,6 @@
 package com.cg.stockmarket.adminuser.service;
 
+import com.cg.stockmarket.adminuser.dto.KeysetPage;
 import com.cg.stockmarket.adminuser.exception.UserNotFoundException;
 import com.cg.stockmarket.adminuser.model.User;
 import com.cg.stockmarket.adminuser.repository.UserRepository;
@@ -9,6 +10,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,11 +29,16 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PriceAlertService priceAlertService;
+
     private User user;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 1000);
         user = new User(1L, "Vivek", "ROLE_USER", "vivek12@gmail.com", "vivek@123");
     }
 
@@ -57,15 +65,28 @@ public class UserServiceTest {
     }
 
     @Test
-    public void testGetAllUsers() {
+    public void testGetUsersPage() {
         List<User> users = Arrays.asList(user);
-        when(userRepository.findAll()).thenReturn(users);
+        when(userRepository.findPage(null, null, null, PageRequest.of(0, 101))).thenReturn(users);
 
-        List<User> foundUsers = userService.getAllUsers();
+        KeysetPage<User> page = userService.getUsersPage(null, null, null, null);
 
-        assertEquals(1, foundUsers.size());
-        assertEquals("Vivek", foundUsers.get(0).getName());
-        verify(userRepository, times(1)).findAll();
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        verify(userRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetUsersPageSeeksPastCursor() {
+        User second = new User();
+        second.setId(2L);
+        when(userRepository.findPage(0L, "ROLE_USER", "vi%", PageRequest.of(0, 2))).thenReturn(Arrays.asList(user, second));
+
+        KeysetPage<User> page = userService.getUsersPage(0L, 1, "ROLE_USER", "vi");
+
+        assertEquals(List.of(user), page.getItems());
+        assertEquals(user.getId(), page.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersPage(null, -1, null, null));
     }
 
     @Test
@@ -88,6 +109,7 @@ public class UserServiceTest {
         userService.deleteUser(1L);
         verify(userRepository, times(1)).existsById(1L);
         verify(userRepository, times(1)).deleteById(1L);
+        verify(priceAlertService, times(1)).deleteAlertsOfUser(1L);
 
         assertDoesNotThrow(() -> userService.deleteUser(1L));
     }
@@ -103,6 +125,7 @@ public class UserServiceTest {
         assertEquals("User not found with id: 1", thrown.getMessage());
         verify(userRepository, times(1)).existsById(1L);
         verify(userRepository, never()).deleteById(anyLong());
+        verify(priceAlertService, never()).deleteAlertsOfUser(anyLong());
     }
 
     @Test
@@ -4,6 +4,11 @@ import com.cg.stockmarket.admin_exchange_service.dto.StockDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Feign client interface for communicating with the Admin Stock Service.
@@ -18,4 +23,13 @@ public interface AdminStockClient {
      */
     @GetMapping("/stocks/{id}")
     StockDTO getStockById(@PathVariable("id") Long id);
+
+    /**
+     * Retrieves many stocks by their IDs in a single call.
+     *
+     * @param ids the IDs of the stocks to retrieve.
+     * @return Map of stock ID to StockDTO; IDs that do not exist are omitted.
+     */
+    @PostMapping("/stocks/batch")
+    Map<Long, StockDTO> getStocksByIds(@RequestBody Collection<Long> ids);
 }
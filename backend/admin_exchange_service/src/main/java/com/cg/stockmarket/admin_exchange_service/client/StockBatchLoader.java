@@ -0,0 +1,107 @@
+package com.cg.stockmarket.admin_exchange_service.client;
+
+import com.cg.stockmarket.admin_exchange_service.dto.StockDTO;
+import com.cg.stockmarket.admin_exchange_service.exception.DependencyUnavailableException;
+import feign.FeignException;
+import feign.RetryableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Batching front end for {@link AdminStockClient}.
+ * Single-stock lookups made concurrently are coalesced into one call to the batch endpoint.
+ * The most recently loaded stocks are remembered, and served by single-stock lookups while the
+ * Admin Stock Service is unavailable.
+ */
+@Component
+public class StockBatchLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockBatchLoader.class);
+
+    @Autowired
+    private AdminStockClient adminStockClient;
+
+    @Value("${exchange.batch.window-ms:5}")
+    private long windowMillis;
+
+    @Value("${exchange.batch.max-size:200}")
+    private int maxBatchSize;
+
+    @Value("${exchange.batch.last-known-size:10000}")
+    private int lastKnownSize;
+
+    private RequestCoalescer<Long, StockDTO> coalescer;
+
+    private Map<Long, StockDTO> lastKnown;
+
+    @PostConstruct
+    void init() {
+        lastKnown = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, StockDTO> eldest) {
+                return size() > lastKnownSize;
+            }
+        });
+        coalescer = new RequestCoalescer<>(this::loadAndRemember, windowMillis, maxBatchSize, "stock-batch-");
+    }
+
+    @PreDestroy
+    void close() {
+        coalescer.close();
+    }
+
+    /**
+     * Retrieves a stock by its ID as part of the next coalesced batch.
+     *
+     * @param id the ID of the stock to retrieve.
+     * @return The StockDTO, or null if no stock exists with this ID.
+     * @throws DependencyUnavailableException if the Admin Stock Service turns the call away and the stock was not loaded before.
+     */
+    public StockDTO getStockById(Long id) {
+        try {
+            return coalescer.load(id);
+        } catch (DependencyUnavailableException | RetryableException | FeignException.FeignServerException e) {
+            StockDTO known = lastKnown.get(id);
+            if (known == null) {
+                throw e;
+            }
+            logger.debug("Admin Stock Service unavailable, using last known stock {}: {}", id, e.getMessage());
+            return known;
+        }
+    }
+
+    /**
+     * Retrieves many stocks by their IDs in a single call.
+     *
+     * @param ids the IDs of the stocks to retrieve.
+     * @return Map of stock ID to StockDTO; IDs that do not exist are omitted.
+     */
+    public Map<Long, StockDTO> getStocksByIds(Collection<Long> ids) {
+        return loadAndRemember(ids);
+    }
+
+    private Map<Long, StockDTO> loadAndRemember(Collection<Long> ids) {
+        Map<Long, StockDTO> stocks = adminStockClient.getStocksByIds(ids);
+        if (stocks != null) {
+            for (Long id : ids) {
+                StockDTO stock = stocks.get(id);
+                if (stock != null) {
+                    lastKnown.put(id, stock);
+                } else {
+                    lastKnown.remove(id);
+                }
+            }
+        }
+        return stocks;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cg.stockmarket.admin_exchange_service.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feign clients send their requests through a pooled Apache HttpClient 5, which keeps
+ * connections to each service alive between calls. The pool itself is set up by Spring Cloud
+ * OpenFeign from the {@code spring.cloud.openfeign.httpclient.*} properties; this class publishes
+ * its size, leased, available and pending connections as {@code httpcomponents.httpclient.pool.*}
+ * meters tagged {@code httpclient=feign}.
+ * <p>
+ * OpenFeign declares its connection manager as a plain {@link HttpClientConnectionManager}, so it
+ * is looked up by that type and only bound when it turns out to be a pooling one.
+ */
+@Configuration
+public class FeignTransportConfig {
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManagers) {
+        return registry -> {
+            if (connectionManagers.getIfUnique() instanceof PoolingHttpClientConnectionManager connectionManager) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "feign").bindTo(registry);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.cg.stockmarket.admin_exchange_service.controller;
 
+import com.cg.stockmarket.admin_exchange_service.dto.KeysetPage;
 import com.cg.stockmarket.admin_exchange_service.dto.StockDTO;
 import com.cg.stockmarket.admin_exchange_service.model.Exchange;
 import com.cg.stockmarket.admin_exchange_service.service.ExchangeService;
@@ -12,8 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for managing stock exchanges.
@@ -27,18 +30,39 @@ public class ExchangeController {
     private ExchangeService exchangeService;
 
     /**
-     * Retrieves a list of all stock exchanges.
+     * Retrieves one page of stock exchanges in ID order, optionally filtered by location and name prefix.
+     * When more exchanges follow, the X-Next-Cursor header carries the cursor of the next page.
+     * Responses carry an ETag of the page, so clients polling with If-None-Match get a 304 until the page changes.
      *
-     * @return ResponseEntity containing the list of all exchanges.
+     * @param cursor     the cursor returned with the previous page, or none for the first page.
+     * @param limit      the page size; capped at the configured maximum.
+     * @param location   only return exchanges at this location.
+     * @param namePrefix only return exchanges whose name starts with this.
+     * @param request    the current request, used to evaluate If-None-Match.
+     * @return ResponseEntity containing a page of exchanges, or 304 if the client's copy is current.
      */
-    @Operation(summary = "Get all exchanges", description = "Retrieve a list of all stock exchanges")
+    @Operation(summary = "Get exchanges", description = "Retrieve stock exchanges page by page; follow X-Next-Cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of exchanges")
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of exchanges"),
+            @ApiResponse(responseCode = "304", description = "Exchanges not modified since the given ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit")
     })
     @GetMapping
-    public ResponseEntity<List<Exchange>> getAllExchanges() {
-        List<Exchange> exchanges = exchangeService.getAllExchanges();
-        return ResponseEntity.ok(exchanges);
+    public ResponseEntity<List<Exchange>> getAllExchanges(
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Page size") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Location to filter exchanges") @RequestParam(required = false) String location,
+            @Parameter(description = "Name prefix to filter exchanges") @RequestParam(required = false) String namePrefix,
+            WebRequest request) {
+        KeysetPage<Exchange> page = exchangeService.getExchangesPage(cursor, limit, location, namePrefix);
+        if (request.checkNotModified(exchangeService.getExchangesPageETag(page))) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", String.valueOf(page.getNextCursor()));
+        }
+        return response.body(page.getItems());
     }
 
     /**
@@ -59,6 +83,22 @@ public class ExchangeController {
     }
 
 
+    /**
+     * Retrieves many exchanges by their IDs in a single request.
+     *
+     * @param ids the IDs of the exchanges to retrieve.
+     * @return ResponseEntity containing a map of exchange ID to exchange; unknown IDs are omitted.
+     */
+    @Operation(summary = "Get exchanges by IDs", description = "Retrieve many exchanges in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved exchanges")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<Map<Long, Exchange>> getExchangesByIds(
+            @Parameter(description = "IDs of the exchanges to retrieve") @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(exchangeService.getExchangesByIds(ids));
+    }
+
     /**
      * Retrieves a list of exchanges filtered by country.
      *
@@ -0,0 +1,37 @@
+package com.cg.stockmarket.admin_exchange_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a listing ordered by ID, together with the cursor that continues it.
+ * The next page is read with {@code WHERE id > cursor}, so it costs the same however deep it is.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KeysetPage<T> {
+    private List<T> items;
+    private Long nextCursor;
+
+    /**
+     * Builds a page from rows fetched with one row more than the page size. The extra row only
+     * tells that another page exists and is not returned.
+     *
+     * @param rows     the fetched rows, at most {@code pageSize + 1}
+     * @param pageSize the number of rows to return
+     * @param id       extracts the ID the listing is ordered by
+     * @return the page, with a null cursor if it is the last one
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, Long> id) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, id.apply(items.get(pageSize - 1)));
+    }
+}
@@ -27,4 +27,8 @@ public class Exchange {
 
     @OneToMany(mappedBy = "exchange")
     private Set<StockDTO> stocks;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 }
\ No newline at end of file
@@ -1,12 +1,29 @@
 package com.cg.stockmarket.admin_exchange_service.repository;
 
 import com.cg.stockmarket.admin_exchange_service.model.Exchange;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ExchangeRepository extends JpaRepository<Exchange, Long> {
     List<Exchange> findByCountry(String country);
+
+    /**
+     * Reads the exchanges after a cursor in ID order. Null filters are ignored; the name prefix is
+     * a LIKE pattern escaped with {@code !}. The page size is taken from {@code page}, which should
+     * always ask for its first page because the cursor, not an offset, does the skipping.
+     */
+    @Query("SELECT e FROM Exchange e WHERE (:cursor IS NULL OR e.id > :cursor)"
+            + " AND (:location IS NULL OR e.location = :location)"
+            + " AND (:namePattern IS NULL OR e.name LIKE :namePattern ESCAPE '!')"
+            + " ORDER BY e.id")
+    List<Exchange> findPage(Long cursor, String location, String namePattern, Pageable page);
+
+    @Query("SELECT e.version FROM Exchange e WHERE e.id = :id")
+    Optional<Long> findVersionById(Long id);
 }
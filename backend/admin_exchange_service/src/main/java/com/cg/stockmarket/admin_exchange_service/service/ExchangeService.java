@@ -1,14 +1,22 @@
 package com.cg.stockmarket.admin_exchange_service.service;
 
-import com.cg.stockmarket.admin_exchange_service.client.AdminStockClient;
+import com.cg.stockmarket.admin_exchange_service.client.StockBatchLoader;
+import com.cg.stockmarket.admin_exchange_service.dto.KeysetPage;
 import com.cg.stockmarket.admin_exchange_service.dto.StockDTO;
 import com.cg.stockmarket.admin_exchange_service.exception.NotFoundException;
 import com.cg.stockmarket.admin_exchange_service.model.Exchange;
 import com.cg.stockmarket.admin_exchange_service.repository.ExchangeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class for managing stock exchanges.
@@ -17,17 +25,54 @@ import java.util.List;
 public class ExchangeService {
 
     @Autowired
-    private AdminStockClient adminStockClient;
+    private StockBatchLoader stockBatchLoader;
     @Autowired
     private ExchangeRepository exchangeRepository;
 
+    @Value("${exchange.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${exchange.listing.max-page-size:1000}")
+    private int maxPageSize;
+
     /**
-     * Retrieves a list of all stock exchanges.
+     * Retrieves one page of stock exchanges in ID order, optionally filtered.
+     * Pages are read by seeking past the cursor on the primary key rather than with an offset,
+     * so deep pages cost the same as the first one.
      *
-     * @return List of all stock exchanges.
+     * @param cursor     the ID after which the page starts, or null for the first page.
+     * @param limit      the page size, or null for the default; capped at the configured maximum.
+     * @param location   only return exchanges at this location, or null for all.
+     * @param namePrefix only return exchanges whose name starts with this, or null.
+     * @return The exchanges of the page and the cursor of the next one.
+     * @throws IllegalArgumentException if the limit is not positive.
      */
-    public List<Exchange> getAllExchanges() {
-        return exchangeRepository.findAll();
+    public KeysetPage<Exchange> getExchangesPage(Long cursor, Integer limit, String location, String namePrefix) {
+        int pageSize = limit != null ? Math.min(limit, maxPageSize) : defaultPageSize;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        String namePattern = namePrefix == null || namePrefix.isEmpty() ? null
+                : namePrefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        List<Exchange> rows = exchangeRepository.findPage(cursor, location, namePattern, PageRequest.of(0, pageSize + 1));
+        return KeysetPage.of(rows, pageSize, Exchange::getId);
+    }
+
+    /**
+     * Returns a weak entity tag for one page of exchanges, a digest of the IDs and versions on
+     * the page and of its next cursor. No query is needed beyond the page itself, and writes to
+     * exchanges outside the page leave its tag unchanged.
+     *
+     * @param page the page returned by {@link #getExchangesPage}.
+     * @return the entity tag of the page.
+     */
+    public String getExchangesPageETag(KeysetPage<Exchange> page) {
+        StringBuilder validator = new StringBuilder();
+        for (Exchange exchange : page.getItems()) {
+            validator.append(exchange.getId()).append(':').append(exchange.getVersion()).append(',');
+        }
+        validator.append(page.getNextCursor());
+        return "W/\"" + DigestUtils.md5DigestAsHex(validator.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 
     /**
@@ -54,6 +99,7 @@ public class ExchangeService {
 
     /**
      * Updates an existing stock exchange.
+     * An exchange sent without a version is applied to whatever version is stored.
      *
      * @param id       the ID of the exchange to update.
      * @param exchange the updated Exchange object.
@@ -65,6 +111,9 @@ public class ExchangeService {
             throw new NotFoundException("Exchange not found with id " + id);
         }
         exchange.setId(id);
+        if (exchange.getVersion() == null) {
+            exchangeRepository.findVersionById(id).ifPresent(exchange::setVersion);
+        }
         return exchangeRepository.save(exchange);
     }
 
@@ -91,13 +140,33 @@ public class ExchangeService {
         return exchangeRepository.findByCountry(country);
     }
 
+    /**
+     * Retrieves many stock exchanges by their IDs.
+     *
+     * @param ids the IDs of the exchanges to retrieve.
+     * @return Map of exchange ID to Exchange; IDs that do not exist are omitted.
+     */
+    public Map<Long, Exchange> getExchangesByIds(Collection<Long> ids) {
+        Map<Long, Exchange> exchanges = new LinkedHashMap<>();
+        for (Exchange exchange : exchangeRepository.findAllById(ids)) {
+            exchanges.put(exchange.getId(), exchange);
+        }
+        return exchanges;
+    }
+
     /**
      * Retrieves a stock by its ID from the Admin Stock Service.
+     * Concurrent lookups are coalesced into a single batched call.
      *
      * @param stockId the ID of the stock to retrieve.
      * @return The StockDTO object containing stock information.
+     * @throws NotFoundException if the stock is not found.
      */
     public StockDTO getStockFromAdminStockService(Long stockId) {
-        return adminStockClient.getStockById(stockId);
+        StockDTO stock = stockBatchLoader.getStockById(stockId);
+        if (stock == null) {
+            throw new NotFoundException("Stock not found with id " + stockId);
+        }
+        return stock;
     }
 }
@@ -1,5 +1,6 @@
 package com.cg.stockmarket.admin_exchange_service.controller;
 
+import com.cg.stockmarket.admin_exchange_service.dto.KeysetPage;
 import com.cg.stockmarket.admin_exchange_service.dto.StockDTO;
 import com.cg.stockmarket.admin_exchange_service.exception.NotFoundException;
 import com.cg.stockmarket.admin_exchange_service.model.Exchange;
@@ -45,17 +46,39 @@ public class ExchangeControllerTest {
         exchange = new Exchange();
         exchange.setId(1L);
         exchange.setName("NYSE");
-        exchange.setCountry("USA");
+        exchange.setLocation("USA");
     }
 
     @Test
     void testGetAllExchanges() throws Exception {
-        when(exchangeService.getAllExchanges()).thenReturn(List.of(exchange));
+        when(exchangeService.getExchangesPageETag(any())).thenReturn("W/\"1-1-0\"");
+        when(exchangeService.getExchangesPage(null, null, null, null)).thenReturn(new KeysetPage<>(List.of(exchange), null));
         mockMvc.perform(get("/exchanges"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1-1-0\""))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$[0].name").value("NYSE"));
     }
 
+    @Test
+    void testGetAllExchangesNextPage() throws Exception {
+        when(exchangeService.getExchangesPageETag(any())).thenReturn("W/\"2-3-0\"");
+        when(exchangeService.getExchangesPage(null, 1, null, "N")).thenReturn(new KeysetPage<>(List.of(exchange), 1L));
+        mockMvc.perform(get("/exchanges").param("limit", "1").param("namePrefix", "N"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "1"))
+                .andExpect(jsonPath("$[0].name").value("NYSE"));
+    }
+
+    @Test
+    void testGetAllExchangesNotModified() throws Exception {
+        when(exchangeService.getExchangesPage(null, null, null, null)).thenReturn(new KeysetPage<>(List.of(exchange), null));
+        when(exchangeService.getExchangesPageETag(any())).thenReturn("W/\"1-1-0\"");
+        mockMvc.perform(get("/exchanges").header("If-None-Match", "W/\"1-1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     void testGetExchangeById() throws Exception {
         when(exchangeService.getExchangeById(1L)).thenReturn(exchange);
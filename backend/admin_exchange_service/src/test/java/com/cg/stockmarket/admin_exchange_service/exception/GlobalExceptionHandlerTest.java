@@ -30,6 +30,15 @@ public class GlobalExceptionHandlerTest {
         assertEquals("Exchange not found", response.getBody());
     }
 
+    @Test
+    public void testHandleDependencyUnavailableException() {
+        DependencyUnavailableException exception = new DependencyUnavailableException("Too many concurrent calls to admin-stock-service");
+        ResponseEntity<String> response = globalExceptionHandler.handleDependencyUnavailableException(exception);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Too many concurrent calls to admin-stock-service", response.getBody());
+    }
+
     @Test
     public void testHandleGeneralException() {
         Exception exception = new Exception("Simulated exception");
@@ -1,6 +1,7 @@
 package com.cg.stockmarket.admin_exchange_service.service;
 
-import com.cg.stockmarket.admin_exchange_service.client.AdminStockClient;
+import com.cg.stockmarket.admin_exchange_service.client.StockBatchLoader;
+import com.cg.stockmarket.admin_exchange_service.dto.KeysetPage;
 import com.cg.stockmarket.admin_exchange_service.dto.StockDTO;
 import com.cg.stockmarket.admin_exchange_service.exception.NotFoundException;
 import com.cg.stockmarket.admin_exchange_service.model.Exchange;
@@ -14,10 +15,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.InputStream;
 import java.util.Optional;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,13 +35,15 @@ public class ExchangeServiceTest {
     private ExchangeRepository exchangeRepository;
 
     @Mock
-    private AdminStockClient adminStockClient;
+    private StockBatchLoader stockBatchLoader;
 
     private List<Exchange> exchanges;
 
     @BeforeEach
     public void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(exchangeService, "defaultPageSize", 100);
+        ReflectionTestUtils.setField(exchangeService, "maxPageSize", 1000);
 
 
         ObjectMapper objectMapper = new ObjectMapper();
@@ -46,14 +52,46 @@ public class ExchangeServiceTest {
     }
 
     @Test
-    public void testGetAllExchanges() {
-        when(exchangeRepository.findAll()).thenReturn(exchanges);
+    public void testGetExchangesPage() {
+        when(exchangeRepository.findPage(null, null, null, PageRequest.of(0, 101))).thenReturn(exchanges);
 
-        List<Exchange> result = exchangeService.getAllExchanges();
+        KeysetPage<Exchange> result = exchangeService.getExchangesPage(null, null, null, null);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("NYSE", result.get(0).getName());
+        assertEquals(1, result.getItems().size());
+        assertEquals("NYSE", result.getItems().get(0).getName());
+        assertNull(result.getNextCursor());
+        verify(exchangeRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetExchangesPageSeeksPastCursor() {
+        Exchange first = new Exchange();
+        first.setId(5L);
+        Exchange extra = new Exchange();
+        extra.setId(6L);
+        when(exchangeRepository.findPage(4L, "USA", "N!%%", PageRequest.of(0, 2))).thenReturn(List.of(first, extra));
+
+        KeysetPage<Exchange> result = exchangeService.getExchangesPage(4L, 1, "USA", "N%");
+
+        assertEquals(List.of(first), result.getItems());
+        assertEquals(5L, result.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> exchangeService.getExchangesPage(null, 0, null, null));
+    }
+
+    @Test
+    public void testGetExchangesPageETagFollowsPageContents() {
+        Exchange exchange = exchanges.get(0);
+        exchange.setVersion(1L);
+        KeysetPage<Exchange> page = new KeysetPage<>(List.of(exchange), null);
+
+        String eTag = exchangeService.getExchangesPageETag(page);
+
+        assertEquals(eTag, exchangeService.getExchangesPageETag(new KeysetPage<>(List.of(exchange), null)));
+        assertNotEquals(eTag, exchangeService.getExchangesPageETag(new KeysetPage<>(List.of(exchange), 1L)));
+        exchange.setVersion(2L);
+        assertNotEquals(eTag, exchangeService.getExchangesPageETag(page));
+        verifyNoInteractions(exchangeRepository);
     }
 
     @Test
@@ -80,7 +118,7 @@ public class ExchangeServiceTest {
 
     @Test
     public void testAddExchange() {
-        Exchange newExchange = new Exchange(3L, "BSE", "India");
+        Exchange newExchange = new Exchange(3L, "BSE", "India", null, null);
         when(exchangeRepository.save(newExchange)).thenReturn(newExchange);
 
         Exchange result = exchangeService.addExchange(newExchange);
@@ -91,7 +129,7 @@ public class ExchangeServiceTest {
 
     @Test
     public void testUpdateExchange() {
-        Exchange updatedExchange = new Exchange(1L, "NASDAQ", "USA");
+        Exchange updatedExchange = new Exchange(1L, "NASDAQ", "USA", null, null);
         when(exchangeRepository.existsById(1L)).thenReturn(true);
         when(exchangeRepository.save(updatedExchange)).thenReturn(updatedExchange);
 
@@ -103,7 +141,7 @@ public class ExchangeServiceTest {
 
     @Test
     public void testUpdateExchangeNotFound() {
-        Exchange updatedExchange = new Exchange(1L, "NASDAQ", "USA");
+        Exchange updatedExchange = new Exchange(1L, "NASDAQ", "USA", null, null);
         when(exchangeRepository.existsById(1L)).thenReturn(false);
 
         NotFoundException thrown = assertThrows(NotFoundException.class, () -> {
@@ -147,11 +185,28 @@ public class ExchangeServiceTest {
     @Test
     public void testGetStockFromAdminStockService() {
         StockDTO stockDTO = new StockDTO(1L, "AAPL", 150.0, 1L);
-        when(adminStockClient.getStockById(1L)).thenReturn(stockDTO);
+        when(stockBatchLoader.getStockById(1L)).thenReturn(stockDTO);
 
         StockDTO result = exchangeService.getStockFromAdminStockService(1L);
 
         assertNotNull(result);
         assertEquals("AAPL", result.getName());
     }
+
+    @Test
+    public void testGetStockFromAdminStockServiceNotFound() {
+        when(stockBatchLoader.getStockById(2L)).thenReturn(null);
+
+        assertThrows(NotFoundException.class, () -> exchangeService.getStockFromAdminStockService(2L));
+    }
+
+    @Test
+    public void testGetExchangesByIds() {
+        when(exchangeRepository.findAllById(List.of(1L, 99L))).thenReturn(exchanges);
+
+        Map<Long, Exchange> result = exchangeService.getExchangesByIds(List.of(1L, 99L));
+
+        assertEquals(1, result.size());
+        assertEquals("NYSE", result.get(exchanges.get(0).getId()).getName());
+    }
 }